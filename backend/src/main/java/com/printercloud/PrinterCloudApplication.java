@@ -2,6 +2,7 @@ package com.printercloud;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * 云打印系统主启动类
@@ -10,6 +11,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
  * @since 2024-12-07
  */
 @SpringBootApplication
+@EnableScheduling
 public class PrinterCloudApplication {
 
     public static void main(String[] args) {
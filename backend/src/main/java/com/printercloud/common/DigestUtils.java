@@ -0,0 +1,58 @@
+package com.printercloud.common;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 流式摘要工具，在拷贝数据的同一遍中计算MD5
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+public final class DigestUtils {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private DigestUtils() {
+    }
+
+    public static MessageDigest md5() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5不可用", e);
+        }
+    }
+
+    /**
+     * 通过固定大小缓冲区拷贝输入流并更新摘要，返回拷贝的字节数
+     *
+     * @param limit 允许拷贝的最大字节数，超出时抛出IllegalArgumentException；小于0表示不限制
+     */
+    public static long copy(InputStream in, OutputStream out, MessageDigest digest, int bufferSize, long limit) throws IOException {
+        byte[] buffer = new byte[Math.max(4096, bufferSize)];
+        long total = 0;
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            total += n;
+            if (limit >= 0 && total > limit) {
+                throw new IllegalArgumentException("数据长度超出限制");
+            }
+            digest.update(buffer, 0, n);
+            out.write(buffer, 0, n);
+        }
+        return total;
+    }
+
+    public static String toHex(byte[] bytes) {
+        char[] chars = new char[bytes.length * 2];
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0x0f];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0x0f];
+        }
+        return new String(chars);
+    }
+}
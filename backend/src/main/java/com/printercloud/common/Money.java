@@ -0,0 +1,68 @@
+package com.printercloud.common;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 金额定点运算：内部以分（long）计算，只在接口与持久化边界与元（BigDecimal，两位小数）互转。
+ * 所有需要舍入的地方统一四舍五入（HALF_UP），溢出时抛出 ArithmeticException。
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+public final class Money {
+
+    /**
+     * 万分比的基数，折扣率 0.80 对应 8000
+     */
+    public static final int RATE_BASE = 10000;
+
+    private Money() {
+    }
+
+    /**
+     * 元转分，超过两位小数的部分四舍五入
+     */
+    public static long toFen(BigDecimal yuan) {
+        return yuan.setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    /**
+     * 分转元，固定两位小数
+     */
+    public static BigDecimal toYuan(long fen) {
+        return BigDecimal.valueOf(fen, 2);
+    }
+
+    /**
+     * 比率转万分比，如 0.85 -> 8500
+     */
+    public static int toRate(BigDecimal rate) {
+        return rate.movePointRight(4).setScale(0, RoundingMode.HALF_UP).intValueExact();
+    }
+
+    public static long multiply(long fen, long quantity) {
+        return Math.multiplyExact(fen, quantity);
+    }
+
+    /**
+     * 按万分比计算，结果四舍五入到分
+     */
+    public static long applyRate(long fen, int rate) {
+        if (rate == RATE_BASE) {
+            return fen;
+        }
+        return divide(Math.multiplyExact(fen, rate), RATE_BASE);
+    }
+
+    /**
+     * 除法，结果四舍五入到分（负数按绝对值舍入）
+     */
+    public static long divide(long fen, long divisor) {
+        if (divisor <= 0) {
+            throw new ArithmeticException("除数必须大于0");
+        }
+        long half = divisor / 2;
+        return fen >= 0 ? (fen + half) / divisor : -((-fen + half) / divisor);
+    }
+}
@@ -0,0 +1,34 @@
+package com.printercloud.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    @Value("${file.page-count.workers:4}")
+    private int pageCountWorkers;
+
+    @Value("${file.page-count.queue-capacity:200}")
+    private int pageCountQueueCapacity;
+
+    /**
+     * 页数解析线程池：固定大小、有界队列，队列满时拒绝而不占用请求线程
+     */
+    @Bean
+    public ThreadPoolTaskExecutor pageCountExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(pageCountWorkers);
+        executor.setMaxPoolSize(pageCountWorkers);
+        executor.setQueueCapacity(pageCountQueueCapacity);
+        executor.setThreadNamePrefix("page-count-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
@@ -0,0 +1,60 @@
+package com.printercloud.config;
+
+import com.printercloud.ipp.FakeIppServer;
+import com.printercloud.ipp.IppClient;
+import com.printercloud.ipp.IppJobTracker;
+import com.printercloud.service.PrinterDriver;
+import com.printercloud.service.impl.IppPrinterDriver;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * IPP打印：print.fleet.driver=ipp 时打印机集群通过IPP/CUPS向设备提交作业；
+ * print.ipp.fake-server.enabled=true 时在进程内启动模拟IPP打印机，用于无打印机环境下的联调和压测
+ */
+@Configuration
+public class IppConfig {
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "print.fleet.driver", havingValue = "ipp")
+    public IppClient ippClient(@Value("${print.ipp.connect-timeout-ms:5000}") int connectTimeoutMs,
+                               @Value("${print.ipp.read-timeout-ms:60000}") int readTimeoutMs,
+                               @Value("${print.ipp.max-total:50}") int maxTotal,
+                               @Value("${print.ipp.max-per-route:4}") int maxPerRoute) {
+        return new IppClient(connectTimeoutMs, readTimeoutMs, maxTotal, maxPerRoute);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "print.fleet.driver", havingValue = "ipp")
+    public IppJobTracker ippJobTracker(IppClient ippClient,
+                                       @Value("${print.ipp.poll-interval-ms:2000}") long pollIntervalMs,
+                                       @Value("${print.ipp.poll-threads:4}") int pollThreads,
+                                       @Value("${print.ipp.job-timeout-ms:1800000}") long jobTimeoutMs) {
+        return new IppJobTracker(ippClient, pollIntervalMs, pollThreads, jobTimeoutMs);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "print.fleet.driver", havingValue = "ipp")
+    public PrinterDriver ippPrinterDriver(IppClient ippClient,
+                                          IppJobTracker ippJobTracker,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${print.ipp.submit-threads:8}") int submitThreads,
+                                          @Value("${print.ipp.operation:print-job}") String operation,
+                                          @Value("${print.ipp.user-name:printercloud}") String userName) {
+        return new IppPrinterDriver(ippClient, ippJobTracker, meterRegistry,
+                submitThreads, "create-job".equalsIgnoreCase(operation), userName);
+    }
+
+    @Bean(initMethod = "start", destroyMethod = "stop")
+    @ConditionalOnProperty(name = "print.ipp.fake-server.enabled", havingValue = "true")
+    public FakeIppServer fakeIppServer(@Value("${print.ipp.fake-server.port:8631}") int port,
+                                       @Value("${print.ipp.fake-server.threads:16}") int threads,
+                                       @Value("${print.ipp.fake-server.ms-per-copy:2000}") long msPerCopy,
+                                       @Value("${print.ipp.fake-server.ms-per-mb:500}") long msPerMb,
+                                       @Value("${print.ipp.fake-server.failure-rate:0}") double failureRate) {
+        return new FakeIppServer(port, threads, msPerCopy, msPerMb, failureRate);
+    }
+}
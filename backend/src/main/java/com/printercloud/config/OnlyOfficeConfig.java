@@ -1,14 +1,60 @@
 package com.printercloud.config;
 
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.concurrent.TimeUnit;
+
 @Configuration
 public class OnlyOfficeConfig {
+
+    @Value("${onlyoffice.http.max-total:20}")
+    private int maxTotal;
+
+    @Value("${onlyoffice.http.max-per-route:10}")
+    private int maxPerRoute;
+
+    @Value("${onlyoffice.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${onlyoffice.http.read-timeout-ms:120000}")
+    private int readTimeoutMs;
+
+    @Value("${onlyoffice.http.connection-request-timeout-ms:5000}")
+    private int connectionRequestTimeoutMs;
+
     @Bean
     public RestTemplate restTemplate() {
         return new RestTemplate();
     }
-}
 
+    /**
+     * OnlyOffice文档转换使用的HTTP客户端：连接池复用连接，并设置连接、读取与取连接超时
+     */
+    @Bean(destroyMethod = "close")
+    public CloseableHttpClient onlyOfficeHttpClient() {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .setConnectionRequestTimeout(connectionRequestTimeoutMs)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .build();
+    }
+}
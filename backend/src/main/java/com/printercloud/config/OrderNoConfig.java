@@ -0,0 +1,51 @@
+package com.printercloud.config;
+
+import com.printercloud.service.OrderNoGenerator;
+import com.printercloud.service.WorkerIdProvider;
+import com.printercloud.service.impl.RedisWorkerIdProvider;
+import com.printercloud.service.impl.SnowflakeOrderNoGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * 订单号生成：节点编号由配置指定，或开启Redis租约后自动分配（获取不到租约时启动失败）
+ */
+@Configuration
+public class OrderNoConfig {
+
+    @Value("${order.no.worker-id:0}")
+    private int workerId;
+
+    @Bean
+    @ConditionalOnProperty(name = "order.no.worker-lease.enabled", havingValue = "true")
+    public WorkerIdProvider redisWorkerIdProvider(StringRedisTemplate redisTemplate,
+                                                  @Value("${order.no.worker-lease.key-prefix:printercloud:order-no:worker:}") String keyPrefix,
+                                                  @Value("${order.no.worker-lease.ttl-seconds:60}") long ttlSeconds) {
+        return new RedisWorkerIdProvider(redisTemplate, keyPrefix, Duration.ofSeconds(ttlSeconds));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "order.no.worker-lease.enabled", havingValue = "false", matchIfMissing = true)
+    public WorkerIdProvider staticWorkerIdProvider() {
+        int id = checkedWorkerId();
+        return () -> id;
+    }
+
+    @Bean
+    public OrderNoGenerator orderNoGenerator(WorkerIdProvider workerIdProvider) {
+        return new SnowflakeOrderNoGenerator(workerIdProvider, Clock.systemUTC());
+    }
+
+    private int checkedWorkerId() {
+        if (workerId < 0 || workerId > WorkerIdProvider.MAX_WORKER_ID) {
+            throw new IllegalStateException("order.no.worker-id 必须在0-" + WorkerIdProvider.MAX_WORKER_ID + "之间");
+        }
+        return workerId;
+    }
+}
@@ -0,0 +1,57 @@
+package com.printercloud.config;
+
+import com.printercloud.service.PriceChangePublisher;
+import com.printercloud.service.PriceTable;
+import com.printercloud.service.impl.RedisPriceChangePublisher;
+import com.printercloud.service.impl.RedisPriceChangeSubscriber;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * 价格配置多节点同步：开启Redis时通过发布/订阅广播变更，否则只依赖各节点定时检查
+ */
+@Configuration
+public class PriceSyncConfig {
+
+    @Value("${price.sync.redis.channel:printercloud:price:invalidate}")
+    private String channel;
+
+    @Bean
+    @ConditionalOnProperty(name = "price.sync.redis.enabled", havingValue = "true")
+    public PriceChangePublisher redisPriceChangePublisher(StringRedisTemplate redisTemplate) {
+        return new RedisPriceChangePublisher(redisTemplate, channel);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "price.sync.redis.enabled", havingValue = "false", matchIfMissing = true)
+    public PriceChangePublisher localPriceChangePublisher() {
+        return fingerprint -> {
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "price.sync.redis.enabled", havingValue = "true")
+    public RedisMessageListenerContainer priceChangeListenerContainer(RedisConnectionFactory connectionFactory) {
+        // 不随容器启动，由订阅者在应用就绪后建立订阅，避免Redis不可用时阻止应用启动
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer() {
+            @Override
+            public boolean isAutoStartup() {
+                return false;
+            }
+        };
+        container.setConnectionFactory(connectionFactory);
+        return container;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "price.sync.redis.enabled", havingValue = "true")
+    public RedisPriceChangeSubscriber redisPriceChangeSubscriber(RedisMessageListenerContainer priceChangeListenerContainer,
+                                                                 PriceTable priceTable) {
+        return new RedisPriceChangeSubscriber(priceChangeListenerContainer, priceTable, channel);
+    }
+}
@@ -0,0 +1,41 @@
+package com.printercloud.config;
+
+import com.printercloud.service.PrintJobHandler;
+import com.printercloud.service.PrinterDriver;
+import com.printercloud.service.PrinterFleet;
+import com.printercloud.service.impl.LoggingPrintJobHandler;
+import com.printercloud.service.impl.SimulatedPrinterDriver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 打印作业处理器与打印机驱动选择：print.dispatch.handler 指定由哪种处理器执行已认领的订单，
+ * print.fleet.driver 指定打印机集群使用的设备驱动
+ */
+@Configuration
+public class PrintDispatchConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "print.dispatch.handler", havingValue = "log", matchIfMissing = true)
+    public PrintJobHandler loggingPrintJobHandler() {
+        return new LoggingPrintJobHandler();
+    }
+
+    /**
+     * 按路由策略分配到打印机集群中的设备队列
+     */
+    @Bean
+    @ConditionalOnProperty(name = "print.dispatch.handler", havingValue = "fleet")
+    public PrintJobHandler fleetPrintJobHandler(PrinterFleet printerFleet) {
+        return printerFleet::submit;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "print.fleet.driver", havingValue = "simulated", matchIfMissing = true)
+    public PrinterDriver simulatedPrinterDriver(@Value("${print.fleet.simulated.time-scale:1.0}") double timeScale,
+                                                @Value("${print.fleet.simulated.failure-rate:0}") double failureRate) {
+        return new SimulatedPrinterDriver(timeScale, failureRate);
+    }
+}
@@ -1,8 +1,13 @@
 package com.printercloud.controller;
 
 import com.printercloud.common.R;
+import com.printercloud.dto.request.InitChunkUploadRequest;
+import com.printercloud.dto.response.CursorPage;
 import com.printercloud.dto.response.FileUploadResponse;
+import com.printercloud.dto.response.PageCountResponse;
+import com.printercloud.dto.response.UploadSessionResponse;
 import com.printercloud.entity.FileInfo;
+import com.printercloud.service.ChunkUploadService;
 import com.printercloud.service.FileService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -10,13 +15,20 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.io.IOException;
+
 @RestController
 @RequestMapping("/api/file")
 @Tag(name = "文件", description = "文件管理相关接口")
 @RequiredArgsConstructor
 public class FileController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final FileService fileService;
+    private final ChunkUploadService chunkUploadService;
 
     @PostMapping("/upload")
     @Operation(summary = "文件上传")
@@ -27,6 +39,45 @@ public class FileController {
         return R.success("上传成功", resp);
     }
 
+    @PostMapping("/upload/init")
+    @Operation(summary = "初始化分片上传")
+    public R<UploadSessionResponse> initChunkUpload(@Valid @RequestBody InitChunkUploadRequest request,
+                                                    @RequestAttribute("uid") Long uid) {
+        return R.success(chunkUploadService.init(request, uid));
+    }
+
+    @PutMapping("/upload/{sessionId}/chunks/{index}")
+    @Operation(summary = "上传分片", description = "请求体为分片原始字节，可通过X-Chunk-MD5头提供分片MD5用于校验")
+    public R<UploadSessionResponse> uploadChunk(@PathVariable String sessionId,
+                                                @PathVariable int index,
+                                                @RequestHeader(value = "X-Chunk-MD5", required = false) String chunkHash,
+                                                HttpServletRequest request,
+                                                @RequestAttribute("uid") Long uid) throws IOException {
+        return R.success(chunkUploadService.uploadChunk(sessionId, index, request.getInputStream(), chunkHash, uid));
+    }
+
+    @GetMapping("/upload/{sessionId}")
+    @Operation(summary = "查询分片上传进度")
+    public R<UploadSessionResponse> chunkUploadStatus(@PathVariable String sessionId, @RequestAttribute("uid") Long uid) {
+        return R.success(chunkUploadService.status(sessionId, uid));
+    }
+
+    @PostMapping("/upload/{sessionId}/complete")
+    @Operation(summary = "完成分片上传")
+    public R<FileUploadResponse> completeChunkUpload(@PathVariable String sessionId, @RequestAttribute("uid") Long uid) {
+        return R.success("上传成功", chunkUploadService.complete(sessionId, uid));
+    }
+
+    @GetMapping("/list/cursor")
+    @Operation(summary = "文件列表(游标分页)", description = "按上传时间倒序，首次请求不传cursor，之后回传上一页返回的nextCursor")
+    public R<CursorPage<FileUploadResponse>> listByCursor(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "10") int size,
+                                                          @RequestParam(defaultValue = "false") boolean withTotal,
+                                                          @RequestAttribute("uid") Long uid) {
+        int limit = Math.min(Math.max(1, size), MAX_CURSOR_PAGE_SIZE);
+        return R.success(fileService.listFilesByCursor(uid, cursor, limit, withTotal));
+    }
+
     @DeleteMapping("/delete")
     @Operation(summary = "删除文件")
     public R<Void> delete(@RequestParam("fileId") Long fileId, @RequestAttribute("uid") Long uid) {
@@ -40,4 +91,11 @@ public class FileController {
         FileInfo info = fileService.info(fileId, uid);
         return info != null ? R.success(info) : R.notFound("文件不存在");
     }
+
+    @GetMapping("/pageCount")
+    @Operation(summary = "查询页数解析结果", description = "上传返回pageCountStatus=PENDING时轮询此接口")
+    public R<PageCountResponse> pageCount(@RequestParam("fileId") Long fileId, @RequestAttribute("uid") Long uid) {
+        PageCountResponse resp = fileService.pageCount(fileId, uid);
+        return resp != null ? R.success(resp) : R.notFound("文件不存在");
+    }
 }
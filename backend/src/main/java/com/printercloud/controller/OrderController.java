@@ -2,6 +2,7 @@ package com.printercloud.controller;
 
 import com.printercloud.common.R;
 import com.printercloud.dto.request.CreateOrderRequest;
+import com.printercloud.dto.response.CursorPage;
 import com.printercloud.dto.response.OrderResponse;
 import com.printercloud.service.OrderService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -16,6 +17,8 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+
     private final OrderService orderService;
 
 
@@ -37,6 +40,16 @@ public class OrderController {
         return R.success(orderService.listOrders(uid, pageIndex, pageSize, status, startTime, endTime));
     }
 
+    @GetMapping("/list/cursor")
+    @Operation(summary = "订单列表(游标分页)", description = "按创建时间倒序，首次请求不传cursor，之后回传上一页返回的nextCursor")
+    public R<CursorPage<OrderResponse>> listByCursor(@RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "10") int size,
+                                                     @RequestParam(defaultValue = "false") boolean withTotal,
+                                                     @RequestAttribute("uid") Long uid) {
+        int limit = Math.min(Math.max(1, size), MAX_CURSOR_PAGE_SIZE);
+        return R.success(orderService.listOrdersByCursor(uid, cursor, limit, withTotal));
+    }
+
     @GetMapping("/detail")
     @Operation(summary = "订单详情")
     public R<OrderResponse> detail(@RequestParam("orderId") Long orderId, @RequestAttribute("uid") Long uid) {
@@ -1,8 +1,12 @@
 package com.printercloud.controller;
 
 import com.printercloud.common.R;
+import com.printercloud.dto.request.BatchQuoteRequest;
+import com.printercloud.dto.request.PriceRuleRequest;
 import com.printercloud.dto.request.UpdatePriceConfigRequest;
+import com.printercloud.dto.response.BatchQuoteResponse;
 import com.printercloud.dto.response.PriceConfigResponse;
+import com.printercloud.entity.PriceRule;
 import com.printercloud.service.PriceConfigService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -161,6 +165,33 @@ public class PriceConfigController {
         }
     }
 
+    /**
+     * 批量更新价格配置
+     */
+    @PutMapping("/admin/configs/batch")
+    @Operation(summary = "批量更新价格配置", description = "管理员批量更新价格配置，全部成功或全部不生效")
+    public R<Void> batchUpdateConfigs(
+            @RequestBody List<UpdatePriceConfigRequest> requests,
+            HttpServletRequest httpRequest) {
+
+        try {
+            // 验证管理员权限
+            if (!isAdmin(httpRequest)) {
+                return R.forbidden("无权限执行此操作");
+            }
+
+            String updatedBy = getCurrentUsername(httpRequest);
+            priceConfigService.batchUpdateConfigs(requests, updatedBy);
+            return R.success("批量更新成功");
+
+        } catch (IllegalArgumentException e) {
+            return R.badRequest(e.getMessage());
+        } catch (Exception e) {
+            log.error("批量更新价格配置失败: {}", e.getMessage(), e);
+            return R.error("批量更新价格配置失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 启用/禁用价格配置
      */
@@ -193,6 +224,69 @@ public class PriceConfigController {
         }
     }
 
+    /**
+     * 获取全部价格规则（管理员）
+     */
+    @GetMapping("/admin/rules")
+    @Operation(summary = "获取价格规则", description = "管理员获取阶梯价、角色价与时段折扣规则")
+    public R<List<PriceRule>> getRules(HttpServletRequest request) {
+        try {
+            if (!isAdmin(request)) {
+                return R.forbidden("无权限访问");
+            }
+            return R.success("获取价格规则成功", priceConfigService.getRules());
+
+        } catch (Exception e) {
+            log.error("获取价格规则失败: {}", e.getMessage(), e);
+            return R.error("获取价格规则失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 新建或更新价格规则（管理员）
+     */
+    @PostMapping("/admin/rules")
+    @Operation(summary = "保存价格规则", description = "管理员新建或更新价格规则，保存后立即生效")
+    public R<PriceRule> saveRule(@Valid @RequestBody PriceRuleRequest request, HttpServletRequest httpRequest) {
+        try {
+            if (!isAdmin(httpRequest)) {
+                return R.forbidden("无权限执行此操作");
+            }
+            PriceRule rule = priceConfigService.saveRule(request, getCurrentUsername(httpRequest));
+            return R.success("价格规则保存成功", rule);
+
+        } catch (IllegalArgumentException e) {
+            return R.badRequest(e.getMessage());
+        } catch (Exception e) {
+            log.error("保存价格规则失败: {}", e.getMessage(), e);
+            return R.error("保存价格规则失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 删除价格规则（管理员）
+     */
+    @DeleteMapping("/admin/rules/{id}")
+    @Operation(summary = "删除价格规则", description = "管理员删除价格规则")
+    public R<Void> deleteRule(
+            @Parameter(description = "规则ID", required = true)
+            @PathVariable @NotNull Long id,
+            HttpServletRequest request) {
+        try {
+            if (!isAdmin(request)) {
+                return R.forbidden("无权限执行此操作");
+            }
+            if (!priceConfigService.deleteRule(id)) {
+                return R.notFound("价格规则不存在");
+            }
+            return R.success("操作成功");
+
+        } catch (Exception e) {
+            log.error("删除价格规则失败: id={}, error={}", id, e.getMessage(), e);
+            return R.error("操作失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 计算打印价格
      */
@@ -208,13 +302,14 @@ public class PriceConfigController {
             @Parameter(description = "页数", required = true, example = "3")
             @RequestParam Integer pages,
             @Parameter(description = "份数", required = true, example = "2")
-            @RequestParam Integer copies) {
+            @RequestParam Integer copies,
+            @RequestAttribute("uid") Long uid) {
         
         log.info("计算打印价格: colorType={}, paperSize={}, duplex={}, pages={}, copies={}", 
                 colorType, paperSize, duplex, pages, copies);
         
         try {
-            BigDecimal totalPrice = priceConfigService.calculatePrintPrice(colorType, paperSize, duplex, pages, copies);
+            BigDecimal totalPrice = priceConfigService.calculatePrintPrice(colorType, paperSize, duplex, pages, copies, uid);
             return R.success("价格计算成功", totalPrice);
             
         } catch (Exception e) {
@@ -223,6 +318,25 @@ public class PriceConfigController {
         }
     }
 
+    /**
+     * 批量计算打印价格
+     */
+    @PostMapping("/calculate/batch")
+    @Operation(summary = "批量计算打印价格", description = "一次计算多份文件/多种打印配置的价格，返回明细与合计")
+    public R<BatchQuoteResponse> calculateBatchPrice(@Valid @RequestBody BatchQuoteRequest request,
+                                                     @RequestAttribute("uid") Long uid) {
+        try {
+            BatchQuoteResponse response = priceConfigService.calculateBatchPrice(request, uid);
+            return R.success("价格计算成功", response);
+
+        } catch (IllegalArgumentException e) {
+            return R.badRequest(e.getMessage());
+        } catch (Exception e) {
+            log.error("批量计算打印价格失败: {}", e.getMessage(), e);
+            return R.error("价格计算失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 获取所有分类
      */
@@ -0,0 +1,95 @@
+package com.printercloud.controller;
+
+import com.printercloud.common.R;
+import com.printercloud.dto.request.FleetSimulationRequest;
+import com.printercloud.dto.request.PrinterRequest;
+import com.printercloud.dto.response.FleetSimulationResponse;
+import com.printercloud.dto.response.PrinterStatusResponse;
+import com.printercloud.entity.Printer;
+import com.printercloud.service.PrinterFleet;
+import com.printercloud.service.PrinterService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.validation.Valid;
+import java.util.List;
+
+/**
+ * 打印机管理控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/printer")
+@Tag(name = "打印机管理", description = "打印机配置、队列状态与路由策略模拟")
+@RequiredArgsConstructor
+public class PrinterController {
+
+    private final PrinterService printerService;
+    private final PrinterFleet printerFleet;
+
+    @GetMapping("/admin/printers")
+    @Operation(summary = "打印机列表")
+    public R<List<Printer>> list(HttpServletRequest httpRequest) {
+        if (!isAdmin(httpRequest)) {
+            return R.forbidden("无权限访问");
+        }
+        return R.success(printerService.getPrinters());
+    }
+
+    @PostMapping("/admin/printers")
+    @Operation(summary = "保存打印机", description = "id为空时新建，否则更新")
+    public R<Printer> save(@Valid @RequestBody PrinterRequest request, HttpServletRequest httpRequest) {
+        if (!isAdmin(httpRequest)) {
+            return R.forbidden("无权限执行此操作");
+        }
+        return R.success("保存成功", printerService.savePrinter(request));
+    }
+
+    @PostMapping("/admin/printers/{id}/toggle")
+    @Operation(summary = "启用/停用打印机")
+    public R<Void> toggle(@PathVariable Long id, HttpServletRequest httpRequest) {
+        if (!isAdmin(httpRequest)) {
+            return R.forbidden("无权限执行此操作");
+        }
+        return printerService.togglePrinterStatus(id) ? R.success("状态切换成功") : R.notFound("打印机不存在");
+    }
+
+    @DeleteMapping("/admin/printers/{id}")
+    @Operation(summary = "删除打印机")
+    public R<Void> delete(@PathVariable Long id, HttpServletRequest httpRequest) {
+        if (!isAdmin(httpRequest)) {
+            return R.forbidden("无权限执行此操作");
+        }
+        return printerService.deletePrinter(id) ? R.success("删除成功") : R.notFound("打印机不存在");
+    }
+
+    @GetMapping("/admin/status")
+    @Operation(summary = "打印机队列状态", description = "本节点各打印机的排队作业、页数、速度与预计等待时间")
+    public R<List<PrinterStatusResponse>> status(HttpServletRequest httpRequest) {
+        if (!isAdmin(httpRequest)) {
+            return R.forbidden("无权限访问");
+        }
+        return R.success(printerFleet.status());
+    }
+
+    @PostMapping("/admin/simulate")
+    @Operation(summary = "路由策略模拟", description = "回放订单流，比较各路由策略的总完成时间与排队等待")
+    public R<FleetSimulationResponse> simulate(@RequestBody FleetSimulationRequest request, HttpServletRequest httpRequest) {
+        if (!isAdmin(httpRequest)) {
+            return R.forbidden("无权限执行此操作");
+        }
+        return R.success(printerService.simulate(request));
+    }
+
+    /**
+     * 判断当前用户是否为管理员
+     */
+    private boolean isAdmin(HttpServletRequest request) {
+        String role = request.getHeader("X-User-Role");
+        return "ADMIN".equals(role);
+    }
+}
@@ -0,0 +1,45 @@
+package com.printercloud.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+
+/**
+ * 批量报价请求DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "批量报价请求")
+public class BatchQuoteRequest {
+
+    /**
+     * 报价明细（明细字段在计价时逐项校验，不逐项做Bean Validation，以免大批量时校验开销远超计价本身）
+     */
+    @NotEmpty(message = "报价明细不能为空")
+    @Schema(description = "报价明细", required = true)
+    private List<Item> items;
+
+    @Data
+    @Schema(description = "报价明细项")
+    public static class Item {
+
+        @Schema(description = "颜色类型", example = "BW", required = true)
+        private String colorType;
+
+        @Schema(description = "纸张规格", example = "A4", required = true)
+        private String paperSize;
+
+        @Schema(description = "单双面", example = "SINGLE", required = true)
+        private String duplex;
+
+        @Schema(description = "页数", example = "3", required = true)
+        private Integer pages;
+
+        @Schema(description = "份数", example = "2", required = true)
+        private Integer copies;
+    }
+}
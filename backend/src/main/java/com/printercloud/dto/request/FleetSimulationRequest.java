@@ -0,0 +1,75 @@
+package com.printercloud.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 打印机路由策略模拟请求DTO：回放订单流，比较不同策略的总完成时间与排队等待
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "路由策略模拟请求")
+public class FleetSimulationRequest {
+
+    @Schema(description = "参与比较的策略，为空时比较全部策略", example = "[\"FASTEST_FINISH\",\"ROUND_ROBIN\"]")
+    private List<String> policies;
+
+    @Schema(description = "订单流，为空时回放数据库中最近的订单")
+    private List<Item> orders;
+
+    @Schema(description = "回放数据库中最近的订单数", example = "500")
+    private Integer replayRecent;
+
+    @Schema(description = "回放时的时间压缩倍数，2表示订单到达间隔缩短一半", example = "1")
+    private Double speedup;
+
+    @Schema(description = "模拟用打印机，为空时使用当前已启用的打印机")
+    private List<PrinterSpec> printers;
+
+    @Data
+    @Schema(description = "模拟订单")
+    public static class Item {
+
+        @Schema(description = "相对第一单的到达时间（毫秒）", example = "0")
+        private Long arrivalMs;
+
+        @Schema(description = "页数", example = "3")
+        private Integer pages;
+
+        @Schema(description = "份数", example = "1")
+        private Integer copies;
+
+        @Schema(description = "颜色类型", example = "BW")
+        private String colorType;
+
+        @Schema(description = "纸张规格", example = "A4")
+        private String paperSize;
+
+        @Schema(description = "单双面", example = "SINGLE")
+        private String duplex;
+    }
+
+    @Data
+    @Schema(description = "模拟打印机")
+    public static class PrinterSpec {
+
+        @Schema(description = "名称", example = "sim-1")
+        private String name;
+
+        @Schema(description = "打印速度（页/分钟）", example = "30")
+        private Integer ppm;
+
+        @Schema(description = "是否支持彩色", example = "false")
+        private Boolean colorCapable;
+
+        @Schema(description = "是否支持双面", example = "true")
+        private Boolean duplexCapable;
+
+        @Schema(description = "支持的纸张规格，逗号分隔", example = "A4,A3")
+        private String paperSizes;
+    }
+}
@@ -0,0 +1,46 @@
+package com.printercloud.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+/**
+ * 初始化分片上传请求DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "初始化分片上传请求")
+public class InitChunkUploadRequest {
+
+    /**
+     * 文件名
+     */
+    @NotBlank(message = "文件名不能为空")
+    @Schema(description = "文件名", example = "document.pdf", required = true)
+    private String fileName;
+
+    /**
+     * 文件大小
+     */
+    @NotNull(message = "文件大小不能为空")
+    @Min(value = 1, message = "文件大小必须大于0")
+    @Schema(description = "文件大小（字节）", example = "52428800", required = true)
+    private Long fileSize;
+
+    /**
+     * MIME类型
+     */
+    @Schema(description = "MIME类型", example = "application/pdf")
+    private String mimeType;
+
+    /**
+     * 整文件MD5
+     */
+    @Schema(description = "整文件MD5（可选，合并时校验）", example = "d41d8cd98f00b204e9800998ecf8427e")
+    private String fileHash;
+}
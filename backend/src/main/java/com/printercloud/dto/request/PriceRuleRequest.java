@@ -0,0 +1,65 @@
+package com.printercloud.dto.request;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import javax.validation.constraints.NotBlank;
+import java.math.BigDecimal;
+import java.time.LocalTime;
+
+/**
+ * 保存价格规则请求DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "保存价格规则请求")
+public class PriceRuleRequest {
+
+    /**
+     * 规则ID，为空时新建
+     */
+    @Schema(description = "规则ID，为空时新建", example = "1")
+    private Long id;
+
+    @NotBlank(message = "规则类型不能为空")
+    @Schema(description = "规则类型：TIER-阶梯/角色单价，TIME_DISCOUNT-时段折扣", example = "TIER", required = true)
+    private String ruleType;
+
+    @Schema(description = "颜色类型，为空不限", example = "BW")
+    private String colorType;
+
+    @Schema(description = "单双面，为空不限", example = "SINGLE")
+    private String duplex;
+
+    @Schema(description = "纸张规格，为空不限", example = "A4")
+    private String paperSize;
+
+    @Schema(description = "用户角色（仅阶梯规则），为空对所有用户生效", example = "USER")
+    private String userRole;
+
+    @Schema(description = "阶梯起始张数（页数×份数）", example = "51")
+    private Integer minPages;
+
+    @Schema(description = "阶梯单价", example = "0.30")
+    private BigDecimal priceValue;
+
+    @Schema(description = "折扣率", example = "0.80")
+    private BigDecimal discountRate;
+
+    @JsonFormat(pattern = "HH:mm")
+    @Schema(description = "折扣开始时间", example = "22:00")
+    private LocalTime startTime;
+
+    @JsonFormat(pattern = "HH:mm")
+    @Schema(description = "折扣结束时间（不含），早于开始时间表示跨越午夜", example = "07:00")
+    private LocalTime endTime;
+
+    @Schema(description = "状态", example = "1", allowableValues = {"0", "1"})
+    private Integer status;
+
+    @Schema(description = "描述", example = "51张起每张0.30元")
+    private String description;
+}
@@ -0,0 +1,49 @@
+package com.printercloud.dto.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+
+/**
+ * 保存打印机请求DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "保存打印机请求")
+public class PrinterRequest {
+
+    @Schema(description = "打印机ID，为空时新建", example = "1")
+    private Long id;
+
+    @NotBlank(message = "打印机名称不能为空")
+    @Schema(description = "打印机名称", example = "一楼黑白A4", required = true)
+    private String name;
+
+    @Schema(description = "设备地址", example = "ipp://192.168.1.20:631/ipp/print")
+    private String deviceUri;
+
+    @Schema(description = "是否支持彩色", example = "false")
+    private Boolean colorCapable;
+
+    @Schema(description = "是否支持双面", example = "true")
+    private Boolean duplexCapable;
+
+    @Schema(description = "支持的纸张规格，逗号分隔", example = "A4,A3")
+    private String paperSizes;
+
+    @NotNull(message = "额定打印速度不能为空")
+    @Min(value = 1, message = "额定打印速度必须大于0")
+    @Schema(description = "额定打印速度（页/分钟）", example = "30", required = true)
+    private Integer ratedPpm;
+
+    @Schema(description = "状态", example = "1", allowableValues = {"0", "1"})
+    private Integer status;
+
+    @Schema(description = "描述", example = "一楼大厅")
+    private String description;
+}
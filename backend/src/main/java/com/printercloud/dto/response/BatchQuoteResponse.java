@@ -0,0 +1,47 @@
+package com.printercloud.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 批量报价响应DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "批量报价结果")
+public class BatchQuoteResponse {
+
+    /**
+     * 报价所用价格快照版本，同一次报价的所有明细使用同一版本
+     */
+    @Schema(description = "价格版本", example = "3")
+    private Long priceVersion;
+
+    /**
+     * 明细报价，顺序与请求一致
+     */
+    @Schema(description = "明细报价")
+    private List<Line> items;
+
+    /**
+     * 合计
+     */
+    @Schema(description = "合计金额", example = "12.50")
+    private BigDecimal totalPrice;
+
+    @Data
+    @Schema(description = "明细报价项")
+    public static class Line {
+
+        @Schema(description = "单价", example = "0.50")
+        private BigDecimal unitPrice;
+
+        @Schema(description = "小计", example = "3.00")
+        private BigDecimal price;
+    }
+}
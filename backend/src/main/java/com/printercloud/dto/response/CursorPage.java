@@ -0,0 +1,41 @@
+package com.printercloud.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 游标分页结果DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "游标分页结果")
+public class CursorPage<T> {
+
+    /**
+     * 当前页数据
+     */
+    @Schema(description = "当前页数据")
+    private List<T> content;
+
+    /**
+     * 下一页游标，没有更多数据时为空
+     */
+    @Schema(description = "下一页游标，原样回传即可获取下一页，没有更多数据时为空")
+    private String nextCursor;
+
+    /**
+     * 是否还有下一页
+     */
+    @Schema(description = "是否还有下一页", example = "true")
+    private Boolean hasMore;
+
+    /**
+     * 总数，仅在请求 withTotal=true 时返回
+     */
+    @Schema(description = "总数，仅在请求withTotal=true时返回", example = "128")
+    private Long total;
+}
@@ -58,6 +58,12 @@ public class FileUploadResponse {
     @Schema(description = "页数", example = "3")
     private Integer pageCount;
 
+    /**
+     * 页数解析状态
+     */
+    @Schema(description = "页数解析状态：PENDING-解析中，DONE-已完成，FAILED-解析失败", example = "DONE")
+    private String pageCountStatus;
+
     /**
      * 宽度（图片类型）
      */
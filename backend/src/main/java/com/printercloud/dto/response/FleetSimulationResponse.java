@@ -0,0 +1,69 @@
+package com.printercloud.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 路由策略模拟结果DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "路由策略模拟结果")
+public class FleetSimulationResponse {
+
+    @Schema(description = "回放的订单数", example = "500")
+    private Integer orders;
+
+    @Schema(description = "各策略结果")
+    private List<PolicyResult> results;
+
+    @Data
+    @Schema(description = "单个策略的模拟结果")
+    public static class PolicyResult {
+
+        @Schema(description = "路由策略", example = "FASTEST_FINISH")
+        private String policy;
+
+        @Schema(description = "总完成时间：第一单到达至最后一单打印完成（秒）", example = "1860.5")
+        private Double makespanSeconds;
+
+        @Schema(description = "平均排队等待（秒）", example = "12.3")
+        private Double meanWaitSeconds;
+
+        @Schema(description = "P95排队等待（秒）", example = "60.0")
+        private Double p95WaitSeconds;
+
+        @Schema(description = "P99排队等待（秒）", example = "95.0")
+        private Double p99WaitSeconds;
+
+        @Schema(description = "最长排队等待（秒）", example = "120.0")
+        private Double maxWaitSeconds;
+
+        @Schema(description = "没有打印机满足要求的订单数", example = "0")
+        private Integer unroutable;
+
+        @Schema(description = "各打印机使用情况")
+        private List<PrinterUsage> printers;
+    }
+
+    @Data
+    @Schema(description = "打印机使用情况")
+    public static class PrinterUsage {
+
+        @Schema(description = "名称", example = "sim-1")
+        private String name;
+
+        @Schema(description = "作业数", example = "120")
+        private Integer jobs;
+
+        @Schema(description = "页数", example = "860")
+        private Long pages;
+
+        @Schema(description = "忙碌时间占总完成时间的比例", example = "0.82")
+        private Double utilization;
+    }
+}
@@ -0,0 +1,33 @@
+package com.printercloud.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 页数解析结果响应DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "页数解析结果")
+public class PageCountResponse {
+
+    /**
+     * 文件ID
+     */
+    @Schema(description = "文件ID", example = "1")
+    private Long fileId;
+
+    /**
+     * 页数
+     */
+    @Schema(description = "页数", example = "3")
+    private Integer pageCount;
+
+    /**
+     * 页数解析状态
+     */
+    @Schema(description = "页数解析状态：PENDING-解析中，DONE-已完成，FAILED-解析失败", example = "DONE")
+    private String pageCountStatus;
+}
@@ -0,0 +1,45 @@
+package com.printercloud.dto.response;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+/**
+ * 打印机运行状态响应DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "打印机运行状态")
+public class PrinterStatusResponse {
+
+    @Schema(description = "打印机ID", example = "1")
+    private Long id;
+
+    @Schema(description = "打印机名称", example = "一楼黑白A4")
+    private String name;
+
+    @Schema(description = "是否启用", example = "true")
+    private Boolean enabled;
+
+    @Schema(description = "是否在线（连续失败后暂时下线）", example = "true")
+    private Boolean online;
+
+    @Schema(description = "本节点排队作业数（含正在打印）", example = "3")
+    private Integer queuedJobs;
+
+    @Schema(description = "本节点排队页数（含正在打印）", example = "42")
+    private Long queuedPages;
+
+    @Schema(description = "其他节点分配到该打印机的页数", example = "10")
+    private Long externalPages;
+
+    @Schema(description = "路由使用的打印速度（页/分钟）", example = "30.0")
+    private Double pagesPerMinute;
+
+    @Schema(description = "预计排队等待时间（秒）", example = "104")
+    private Long estimatedWaitSeconds;
+
+    @Schema(description = "正在打印的订单号", example = "PRT2412071530121230070001")
+    private String currentOrderNo;
+}
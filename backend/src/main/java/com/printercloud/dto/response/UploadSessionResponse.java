@@ -0,0 +1,62 @@
+package com.printercloud.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 分片上传会话响应DTO
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Schema(description = "分片上传会话响应")
+public class UploadSessionResponse {
+
+    /**
+     * 会话ID
+     */
+    @Schema(description = "会话ID", example = "5f1c2e0a9b8d4c7e")
+    private String sessionId;
+
+    /**
+     * 分片大小
+     */
+    @Schema(description = "分片大小（字节）", example = "5242880")
+    private Integer chunkSize;
+
+    /**
+     * 分片总数
+     */
+    @Schema(description = "分片总数", example = "10")
+    private Integer totalChunks;
+
+    /**
+     * 已接收的分片序号
+     */
+    @Schema(description = "已接收的分片序号")
+    private List<Integer> uploadedChunks;
+
+    /**
+     * 会话状态
+     */
+    @Schema(description = "会话状态", example = "UPLOADING")
+    private String status;
+
+    /**
+     * 合并后的文件ID
+     */
+    @Schema(description = "合并后的文件ID", example = "1")
+    private Long fileId;
+
+    /**
+     * 过期时间
+     */
+    @Schema(description = "过期时间", example = "2024-12-08 14:30:00")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime expireTime;
+}
@@ -0,0 +1,83 @@
+package com.printercloud.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 文件内容实体类（按内容哈希寻址，多个FileInfo共享同一份磁盘文件）
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Entity
+@Table(name = "file_blob", indexes = {
+    @Index(name = "uk_blob_file_hash", columnList = "file_hash", unique = true)
+})
+public class FileBlob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 内容哈希（MD5）
+     */
+    @Column(name = "file_hash", nullable = false, unique = true, length = 64)
+    private String fileHash;
+
+    /**
+     * 存储路径
+     */
+    @Column(name = "storage_path", nullable = false, length = 500)
+    private String storagePath;
+
+    /**
+     * 文件大小（字节）
+     */
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    /**
+     * 引用计数（指向该内容的FileInfo数量）
+     */
+    @Column(name = "ref_count", nullable = false)
+    private Integer refCount = 1;
+
+    /**
+     * 页数，为空表示尚未解析成功
+     */
+    @Column(name = "page_count")
+    private Integer pageCount;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_time", nullable = false, updatable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdTime;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedTime;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdTime = LocalDateTime.now();
+        this.updatedTime = LocalDateTime.now();
+        if (this.refCount == null) {
+            this.refCount = 1;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedTime = LocalDateTime.now();
+    }
+}
@@ -17,7 +17,8 @@ import java.time.LocalDateTime;
 @Table(name = "file_info", indexes = {
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_file_hash", columnList = "file_hash"),
-    @Index(name = "idx_created_time", columnList = "created_time")
+    @Index(name = "idx_created_time", columnList = "created_time"),
+    @Index(name = "idx_file_user_created_id", columnList = "user_id, created_time, id")
 })
 public class FileInfo {
 
@@ -73,12 +74,24 @@ public class FileInfo {
     @Column(name = "file_hash", length = 64)
     private String fileHash;
 
+    /**
+     * 引用的文件内容ID（file_blob），为空表示内容寻址存储之前上传、独占磁盘文件的旧记录
+     */
+    @Column(name = "blob_id")
+    private Long blobId;
+
     /**
      * 页数（文档类型）
      */
     @Column(name = "page_count")
     private Integer pageCount = 0;
 
+    /**
+     * 页数解析状态：PENDING-解析中，DONE-已完成，FAILED-解析失败
+     */
+    @Column(name = "page_count_status", length = 20)
+    private String pageCountStatus = "DONE";
+
     /**
      * 宽度（图片类型）
      */
@@ -121,6 +134,9 @@ public class FileInfo {
         if (this.pageCount == null) {
             this.pageCount = 0;
         }
+        if (this.pageCountStatus == null) {
+            this.pageCountStatus = PageCountStatus.DONE.getCode();
+        }
         if (this.width == null) {
             this.width = 0;
         }
@@ -158,6 +174,31 @@ public class FileInfo {
         }
     }
 
+    /**
+     * 页数解析状态枚举
+     */
+    public enum PageCountStatus {
+        PENDING("PENDING", "解析中"),
+        DONE("DONE", "已完成"),
+        FAILED("FAILED", "解析失败");
+
+        private final String code;
+        private final String description;
+
+        PageCountStatus(String code, String description) {
+            this.code = code;
+            this.description = description;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
     /**
      * 文件类型枚举
      */
@@ -253,6 +294,13 @@ public class FileInfo {
                "DOCX".equals(upperType) || "TXT".equals(upperType);
     }
 
+    /**
+     * 判断页数是否仍在解析中
+     */
+    public boolean isPageCountPending() {
+        return PageCountStatus.PENDING.getCode().equals(this.pageCountStatus);
+    }
+
     /**
      * 判断文件是否正常
      */
@@ -19,7 +19,10 @@ import java.time.LocalDateTime;
     @Index(name = "idx_order_no", columnList = "order_no", unique = true),
     @Index(name = "idx_user_id", columnList = "user_id"),
     @Index(name = "idx_status", columnList = "status"),
-    @Index(name = "idx_created_time", columnList = "created_time")
+    @Index(name = "idx_created_time", columnList = "created_time"),
+    @Index(name = "idx_order_user_created_id", columnList = "user_id, created_time, id"),
+    @Index(name = "idx_order_user_status_created", columnList = "user_id, status, created_time"),
+    @Index(name = "idx_order_status_lease", columnList = "status, lease_expires_at")
 })
 public class Order {
 
@@ -107,6 +110,31 @@ public class Order {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private LocalDateTime printEndTime;
 
+    /**
+     * 分配的打印机ID
+     */
+    @Column(name = "printer_id")
+    private Long printerId;
+
+    /**
+     * 打印租约令牌：认领该订单的调度批次，完成或重试时用于确认租约仍归自己所有
+     */
+    @Column(name = "lease_token", length = 64)
+    private String leaseToken;
+
+    /**
+     * 打印租约到期时间，到期未完成的订单会被其他节点重新认领；重试等待期间表示最早可再次认领的时间
+     */
+    @Column(name = "lease_expires_at")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime leaseExpiresAt;
+
+    /**
+     * 已尝试打印次数
+     */
+    @Column(name = "print_attempts", nullable = false)
+    private Integer printAttempts = 0;
+
     /**
      * 取件时间
      */
@@ -156,6 +184,9 @@ public class Order {
         if (this.duplex == null) {
             this.duplex = "SINGLE";
         }
+        if (this.printAttempts == null) {
+            this.printAttempts = 0;
+        }
     }
 
     @PreUpdate
@@ -0,0 +1,158 @@
+package com.printercloud.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+/**
+ * 价格规则实体类：在价格配置的基础单价之上叠加阶梯价、角色价与时段折扣。
+ * 颜色、单双面、纸张为空表示不限。
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Entity
+@Table(name = "price_rule", indexes = {
+    @Index(name = "idx_price_rule_type_status", columnList = "rule_type, status")
+})
+public class PriceRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 规则类型：TIER-阶梯/角色单价，TIME_DISCOUNT-时段折扣
+     */
+    @Column(name = "rule_type", nullable = false, length = 20)
+    private String ruleType;
+
+    /**
+     * 颜色类型：BW/COLOR，为空不限
+     */
+    @Column(name = "color_type", length = 10)
+    private String colorType;
+
+    /**
+     * 单双面：SINGLE/DOUBLE，为空不限
+     */
+    @Column(name = "duplex", length = 10)
+    private String duplex;
+
+    /**
+     * 纸张规格：A4/A3，为空不限
+     */
+    @Column(name = "paper_size", length = 10)
+    private String paperSize;
+
+    /**
+     * 用户角色（仅阶梯规则）：为空对所有用户生效
+     */
+    @Column(name = "user_role", length = 20)
+    private String userRole;
+
+    /**
+     * 阶梯起始张数（页数×份数），达到该张数起按本规则单价计价
+     */
+    @Column(name = "min_pages")
+    private Integer minPages;
+
+    /**
+     * 阶梯单价
+     */
+    @Column(name = "price_value", precision = 10, scale = 2)
+    private BigDecimal priceValue;
+
+    /**
+     * 折扣率，如0.80表示八折
+     */
+    @Column(name = "discount_rate", precision = 5, scale = 4)
+    private BigDecimal discountRate;
+
+    /**
+     * 折扣开始时间（含）
+     */
+    @Column(name = "start_time")
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime startTime;
+
+    /**
+     * 折扣结束时间（不含），早于开始时间表示跨越午夜，与开始时间相同表示全天
+     */
+    @Column(name = "end_time")
+    @JsonFormat(pattern = "HH:mm")
+    private LocalTime endTime;
+
+    /**
+     * 状态：0-禁用，1-启用
+     */
+    @Column(name = "status")
+    private Integer status = 1;
+
+    /**
+     * 描述
+     */
+    @Column(name = "description", length = 500)
+    private String description;
+
+    @Column(name = "created_time", nullable = false, updatable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdTime;
+
+    @Column(name = "updated_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedTime;
+
+    @Column(name = "updated_by", length = 50)
+    private String updatedBy;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdTime = LocalDateTime.now();
+        this.updatedTime = LocalDateTime.now();
+        if (this.status == null) {
+            this.status = 1;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedTime = LocalDateTime.now();
+    }
+
+    /**
+     * 规则类型枚举
+     */
+    public enum RuleType {
+        TIER("TIER", "阶梯单价"),
+        TIME_DISCOUNT("TIME_DISCOUNT", "时段折扣");
+
+        private final String code;
+        private final String description;
+
+        RuleType(String code, String description) {
+            this.code = code;
+            this.description = description;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 判断是否启用
+     */
+    public boolean isEnabled() {
+        return PriceConfig.Status.ENABLED.getCode().equals(this.status);
+    }
+}
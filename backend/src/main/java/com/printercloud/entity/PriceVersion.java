@@ -0,0 +1,33 @@
+package com.printercloud.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 价格版本号：只有一行，价格配置或规则的每次修改都在同一事务内递增，
+ * 各节点比较版本号判断本地价格表是否过期，不依赖各节点的时钟
+ *
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "price_version")
+public class PriceVersion {
+
+    public static final long SINGLETON_ID = 1L;
+
+    @Id
+    private Long id;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    public PriceVersion(Long id, Long version) {
+        this.id = id;
+        this.version = version;
+    }
+}
@@ -0,0 +1,139 @@
+package com.printercloud.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 打印机实体类
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Entity
+@Table(name = "printer", indexes = {
+    @Index(name = "idx_printer_name", columnList = "name", unique = true)
+})
+public class Printer {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 打印机名称
+     */
+    @Column(name = "name", nullable = false, length = 100)
+    private String name;
+
+    /**
+     * 设备地址，如 ipp://192.168.1.20:631/ipp/print
+     */
+    @Column(name = "device_uri", length = 500)
+    private String deviceUri;
+
+    /**
+     * 是否支持彩色
+     */
+    @Column(name = "color_capable", nullable = false)
+    private Boolean colorCapable = false;
+
+    /**
+     * 是否支持双面
+     */
+    @Column(name = "duplex_capable", nullable = false)
+    private Boolean duplexCapable = false;
+
+    /**
+     * 支持的纸张规格，逗号分隔，如 A4,A3
+     */
+    @Column(name = "paper_sizes", nullable = false, length = 100)
+    private String paperSizes = "A4";
+
+    /**
+     * 额定打印速度（页/分钟）
+     */
+    @Column(name = "rated_ppm", nullable = false)
+    private Integer ratedPpm;
+
+    /**
+     * 实测打印速度（页/分钟），按完成的作业滑动平均，为空时使用额定速度
+     */
+    @Column(name = "measured_ppm")
+    private Double measuredPpm;
+
+    /**
+     * 状态：0-停用，1-启用
+     */
+    @Column(name = "status", nullable = false)
+    private Integer status = 1;
+
+    /**
+     * 描述
+     */
+    @Column(name = "description", length = 500)
+    private String description;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_time", nullable = false, updatable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdTime;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedTime;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdTime = LocalDateTime.now();
+        this.updatedTime = LocalDateTime.now();
+        if (this.status == null) {
+            this.status = 1;
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedTime = LocalDateTime.now();
+    }
+
+    public boolean isEnabled() {
+        return Integer.valueOf(1).equals(this.status);
+    }
+
+    /**
+     * 用于路由的打印速度：优先实测值
+     */
+    public double getEffectivePpm() {
+        return measuredPpm != null && measuredPpm > 0 ? measuredPpm : ratedPpm;
+    }
+
+    /**
+     * 是否满足订单的颜色、纸张与单双面要求
+     */
+    public boolean supports(String colorType, String paperSize, String duplex) {
+        if ("COLOR".equalsIgnoreCase(colorType) && !Boolean.TRUE.equals(colorCapable)) {
+            return false;
+        }
+        if ("DOUBLE".equalsIgnoreCase(duplex) && !Boolean.TRUE.equals(duplexCapable)) {
+            return false;
+        }
+        if (paperSize == null || paperSizes == null) {
+            return paperSize == null;
+        }
+        for (String size : paperSizes.split(",")) {
+            if (size.trim().equalsIgnoreCase(paperSize)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
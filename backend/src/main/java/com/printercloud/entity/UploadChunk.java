@@ -0,0 +1,61 @@
+package com.printercloud.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 已接收分片实体类
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Entity
+@Table(name = "upload_chunk", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_upload_chunk", columnNames = {"session_id", "chunk_index"})
+})
+public class UploadChunk {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 会话ID
+     */
+    @Column(name = "session_id", nullable = false, length = 64)
+    private String sessionId;
+
+    /**
+     * 分片序号（从0开始）
+     */
+    @Column(name = "chunk_index", nullable = false)
+    private Integer chunkIndex;
+
+    /**
+     * 分片大小（字节）
+     */
+    @Column(name = "chunk_size", nullable = false)
+    private Long chunkSize;
+
+    /**
+     * 分片MD5
+     */
+    @Column(name = "chunk_hash", nullable = false, length = 64)
+    private String chunkHash;
+
+    /**
+     * 接收时间
+     */
+    @Column(name = "created_time", nullable = false, updatable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdTime;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdTime = LocalDateTime.now();
+    }
+}
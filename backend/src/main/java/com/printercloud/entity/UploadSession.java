@@ -0,0 +1,163 @@
+package com.printercloud.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.Data;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 分片上传会话实体类
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Data
+@Entity
+@Table(name = "upload_session", indexes = {
+    @Index(name = "uk_upload_session_id", columnList = "session_id", unique = true),
+    @Index(name = "idx_upload_session_expire", columnList = "status,expire_time")
+})
+public class UploadSession {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 会话ID（对外暴露）
+     */
+    @Column(name = "session_id", nullable = false, unique = true, length = 64)
+    private String sessionId;
+
+    /**
+     * 用户ID
+     */
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    /**
+     * 原始文件名
+     */
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    /**
+     * MIME类型
+     */
+    @Column(name = "mime_type", length = 100)
+    private String mimeType;
+
+    /**
+     * 文件总大小（字节）
+     */
+    @Column(name = "file_size", nullable = false)
+    private Long fileSize;
+
+    /**
+     * 客户端声明的整文件MD5（可选）
+     */
+    @Column(name = "file_hash", length = 64)
+    private String fileHash;
+
+    /**
+     * 分片大小（字节）
+     */
+    @Column(name = "chunk_size", nullable = false)
+    private Integer chunkSize;
+
+    /**
+     * 分片总数
+     */
+    @Column(name = "total_chunks", nullable = false)
+    private Integer totalChunks;
+
+    /**
+     * 会话状态
+     */
+    @Column(name = "status", nullable = false, length = 20)
+    private String status = "UPLOADING";
+
+    /**
+     * 合并完成后的文件ID
+     */
+    @Column(name = "file_id")
+    private Long fileId;
+
+    /**
+     * 过期时间
+     */
+    @Column(name = "expire_time", nullable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime expireTime;
+
+    /**
+     * 创建时间
+     */
+    @Column(name = "created_time", nullable = false, updatable = false)
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime createdTime;
+
+    /**
+     * 更新时间
+     */
+    @Column(name = "updated_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private LocalDateTime updatedTime;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdTime = LocalDateTime.now();
+        this.updatedTime = LocalDateTime.now();
+        if (this.status == null) {
+            this.status = Status.UPLOADING.getCode();
+        }
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedTime = LocalDateTime.now();
+    }
+
+    /**
+     * 会话状态枚举
+     */
+    public enum Status {
+        UPLOADING("UPLOADING", "上传中"),
+        ASSEMBLING("ASSEMBLING", "合并中"),
+        COMPLETED("COMPLETED", "已完成");
+
+        private final String code;
+        private final String description;
+
+        Status(String code, String description) {
+            this.code = code;
+            this.description = description;
+        }
+
+        public String getCode() {
+            return code;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 判断会话是否已过期
+     */
+    public boolean isExpired() {
+        return this.expireTime != null && this.expireTime.isBefore(LocalDateTime.now());
+    }
+
+    /**
+     * 获取指定分片的期望大小
+     */
+    public long expectedChunkSize(int index) {
+        if (index < totalChunks - 1) {
+            return chunkSize;
+        }
+        return fileSize - (long) chunkSize * (totalChunks - 1);
+    }
+}
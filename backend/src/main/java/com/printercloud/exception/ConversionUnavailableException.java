@@ -0,0 +1,10 @@
+package com.printercloud.exception;
+
+/**
+ * 文档转换服务熔断或并发已满时快速失败
+ */
+public class ConversionUnavailableException extends RuntimeException {
+    public ConversionUnavailableException(String message) {
+        super(message);
+    }
+}
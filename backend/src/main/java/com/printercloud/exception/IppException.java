@@ -0,0 +1,23 @@
+package com.printercloud.exception;
+
+/**
+ * IPP请求失败：网络错误或打印机返回非成功状态码，statusCode 为 -1 表示未收到IPP响应
+ */
+public class IppException extends RuntimeException {
+
+    private final int statusCode;
+
+    public IppException(String message, int statusCode) {
+        super(message);
+        this.statusCode = statusCode;
+    }
+
+    public IppException(String message, Throwable cause) {
+        super(message, cause);
+        this.statusCode = -1;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+}
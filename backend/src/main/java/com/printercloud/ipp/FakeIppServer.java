@@ -0,0 +1,311 @@
+package com.printercloud.ipp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内的模拟IPP打印机，用于在没有打印机的环境中压测完整的派发链路。
+ * 每个请求路径视为一台打印机，作业按提交顺序串行打印，耗时按份数和文档大小计算；
+ * 作业状态在查询时按时间推算，不占用后台线程。
+ */
+@Slf4j
+public class FakeIppServer {
+
+    private static final int MAX_RETAINED_JOBS = 10000;
+    private static final long RETAIN_FINISHED_MS = 60000;
+
+    private final int port;
+    private final int threads;
+    private final long msPerCopy;
+    private final long msPerMb;
+    private final double failureRate;
+
+    private final AtomicInteger jobIds = new AtomicInteger();
+    private final Map<Integer, FakeJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> busyUntil = new ConcurrentHashMap<>();
+    private final AtomicLong receivedJobs = new AtomicLong();
+    private final AtomicLong receivedBytes = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FakeIppServer(int port, int threads, long msPerCopy, long msPerMb, double failureRate) {
+        this.port = port;
+        this.threads = threads;
+        this.msPerCopy = msPerCopy;
+        this.msPerMb = msPerMb;
+        this.failureRate = failureRate;
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        AtomicInteger seq = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "fake-ipp-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server = HttpServer.create(new InetSocketAddress(port), 128);
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+        log.info("模拟IPP打印机已启动: ipp://localhost:{}/printers/<name>", getPort());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+        }
+    }
+
+    public int getPort() {
+        return server != null ? server.getAddress().getPort() : port;
+    }
+
+    public long getReceivedJobs() {
+        return receivedJobs.get();
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            IppMessage reply;
+            try (InputStream in = exchange.getRequestBody()) {
+                IppMessage request = IppMessage.readFrom(in);
+                reply = dispatch(exchange.getRequestURI().getPath(), request, in);
+                // 未读完的文档数据需要读掉，连接才能复用
+                drain(in);
+            } catch (IOException | RuntimeException e) {
+                reply = response(IppMessage.CLIENT_ERROR_BAD_REQUEST, 0, "无法解析的IPP请求");
+            }
+            byte[] body = reply.toBytes();
+            exchange.getResponseHeaders().set("Content-Type", "application/ipp");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private IppMessage dispatch(String path, IppMessage request, InputStream document) throws IOException {
+        int requestId = request.getRequestId();
+        switch (request.getCode()) {
+            case IppMessage.PRINT_JOB: {
+                FakeJob job = newJob(path, request);
+                schedule(job, drain(document));
+                return jobResponse(requestId, job);
+            }
+            case IppMessage.CREATE_JOB:
+                return jobResponse(requestId, newJob(path, request));
+            case IppMessage.SEND_DOCUMENT: {
+                FakeJob job = findJob(path, request);
+                if (job == null) {
+                    return response(IppMessage.CLIENT_ERROR_NOT_FOUND, requestId, "作业不存在");
+                }
+                long bytes = drain(document);
+                synchronized (job) {
+                    job.bytes += bytes;
+                }
+                Object last = request.find("last-document") != null
+                        ? request.find("last-document").getValues().get(0) : Boolean.TRUE;
+                if (Boolean.TRUE.equals(last)) {
+                    schedule(job, 0);
+                }
+                return jobResponse(requestId, job);
+            }
+            case IppMessage.GET_JOB_ATTRIBUTES: {
+                FakeJob job = findJob(path, request);
+                return job != null ? jobResponse(requestId, job)
+                        : response(IppMessage.CLIENT_ERROR_NOT_FOUND, requestId, "作业不存在");
+            }
+            case IppMessage.CANCEL_JOB: {
+                FakeJob job = findJob(path, request);
+                if (job == null) {
+                    return response(IppMessage.CLIENT_ERROR_NOT_FOUND, requestId, "作业不存在");
+                }
+                synchronized (job) {
+                    if (job.state(System.currentTimeMillis()) < IppMessage.JOB_CANCELED) {
+                        job.canceled = true;
+                    }
+                }
+                return response(IppMessage.SUCCESSFUL_OK, requestId, null);
+            }
+            case IppMessage.GET_PRINTER_ATTRIBUTES:
+                return printerResponse(path, requestId);
+            default:
+                return response(IppMessage.SERVER_ERROR_OPERATION_NOT_SUPPORTED, requestId, "不支持的操作");
+        }
+    }
+
+    private FakeJob newJob(String path, IppMessage request) {
+        Integer copies = request.getInt("copies");
+        FakeJob job = new FakeJob(jobIds.incrementAndGet(), path, copies != null && copies > 0 ? copies : 1);
+        if (jobs.size() >= MAX_RETAINED_JOBS) {
+            prune(System.currentTimeMillis());
+        }
+        jobs.put(job.id, job);
+        receivedJobs.incrementAndGet();
+        return job;
+    }
+
+    /**
+     * 文档接收完毕后排到该打印机队尾
+     */
+    private void schedule(FakeJob job, long bytes) {
+        synchronized (job) {
+            if (job.end >= 0 || job.canceled) {
+                return;
+            }
+            job.bytes += bytes;
+            receivedBytes.addAndGet(job.bytes);
+            long duration = msPerCopy * job.copies + msPerMb * job.bytes / (1024 * 1024);
+            AtomicLong queue = busyUntil.computeIfAbsent(job.path, k -> new AtomicLong());
+            long now = System.currentTimeMillis();
+            long start = queue.getAndAccumulate(duration, (prev, d) -> Math.max(prev, now) + d);
+            job.start = Math.max(start, now);
+            job.end = job.start + duration;
+            job.failed = failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate;
+        }
+    }
+
+    private FakeJob findJob(String path, IppMessage request) {
+        Integer jobId = request.getInt("job-id");
+        FakeJob job = jobId != null ? jobs.get(jobId) : null;
+        return job != null && job.path.equals(path) ? job : null;
+    }
+
+    private void prune(long now) {
+        Iterator<FakeJob> it = jobs.values().iterator();
+        while (it.hasNext()) {
+            FakeJob job = it.next();
+            if (job.state(now) >= IppMessage.JOB_CANCELED && now - Math.max(job.end, job.createdAt) > RETAIN_FINISHED_MS) {
+                it.remove();
+            }
+        }
+    }
+
+    private IppMessage jobResponse(int requestId, FakeJob job) {
+        int state;
+        synchronized (job) {
+            state = job.state(System.currentTimeMillis());
+        }
+        return response(IppMessage.SUCCESSFUL_OK, requestId, null)
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.INTEGER, "job-id", job.id)
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.URI, "job-uri", "ipp://localhost:" + getPort() + job.path + "/" + job.id)
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.ENUM, "job-state", state)
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.KEYWORD, "job-state-reasons", reasons(state));
+    }
+
+    private IppMessage printerResponse(String path, int requestId) {
+        long now = System.currentTimeMillis();
+        int queued = 0;
+        for (FakeJob job : jobs.values()) {
+            if (job.path.equals(path) && job.state(now) < IppMessage.JOB_CANCELED) {
+                queued++;
+            }
+        }
+        return response(IppMessage.SUCCESSFUL_OK, requestId, null)
+                .add(IppMessage.PRINTER_ATTRIBUTES, IppMessage.NAME, "printer-name", path.substring(path.lastIndexOf('/') + 1))
+                .add(IppMessage.PRINTER_ATTRIBUTES, IppMessage.ENUM, "printer-state", queued > 0 ? 4 : 3)
+                .add(IppMessage.PRINTER_ATTRIBUTES, IppMessage.INTEGER, "queued-job-count", queued)
+                .add(IppMessage.PRINTER_ATTRIBUTES, IppMessage.MIME_MEDIA_TYPE, "document-format-supported",
+                        "application/pdf", "image/jpeg", "image/png")
+                .add(IppMessage.PRINTER_ATTRIBUTES, IppMessage.KEYWORD, "sides-supported",
+                        "one-sided", "two-sided-long-edge", "two-sided-short-edge")
+                .add(IppMessage.PRINTER_ATTRIBUTES, IppMessage.KEYWORD, "media-supported",
+                        "iso_a4_210x297mm", "iso_a3_297x420mm");
+    }
+
+    private static IppMessage response(short status, int requestId, String message) {
+        IppMessage reply = new IppMessage(status, requestId)
+                .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.CHARSET, "attributes-charset", "utf-8")
+                .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.NATURAL_LANGUAGE, "attributes-natural-language", "en");
+        if (message != null) {
+            reply.add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.TEXT, "status-message", message);
+        }
+        return reply;
+    }
+
+    private static String reasons(int state) {
+        switch (state) {
+            case IppMessage.JOB_PROCESSING:
+                return "job-printing";
+            case IppMessage.JOB_COMPLETED:
+                return "job-completed-successfully";
+            case IppMessage.JOB_ABORTED:
+                return "aborted-by-system";
+            case IppMessage.JOB_CANCELED:
+                return "job-canceled-by-user";
+            default:
+                return "none";
+        }
+    }
+
+    private static long drain(InputStream in) throws IOException {
+        byte[] buf = new byte[8192];
+        long total = 0;
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            total += n;
+        }
+        return total;
+    }
+
+    private static final class FakeJob {
+        final int id;
+        final String path;
+        final int copies;
+        final long createdAt = System.currentTimeMillis();
+        long bytes;
+        long start = -1;
+        long end = -1;
+        boolean failed;
+        boolean canceled;
+
+        FakeJob(int id, String path, int copies) {
+            this.id = id;
+            this.path = path;
+            this.copies = copies;
+        }
+
+        int state(long now) {
+            if (canceled) {
+                return IppMessage.JOB_CANCELED;
+            }
+            if (end < 0 || now < start) {
+                return IppMessage.JOB_PENDING;
+            }
+            if (now < end) {
+                return IppMessage.JOB_PROCESSING;
+            }
+            return failed ? IppMessage.JOB_ABORTED : IppMessage.JOB_COMPLETED;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.printercloud.ipp;
+
+import com.printercloud.exception.IppException;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IPP/CUPS 客户端：通过 HTTP POST application/ipp 发送请求，文档以流的方式紧跟在消息头之后写出，不整体读入内存。
+ * 使用独立的连接池，避免与 OnlyOffice 客户端争用连接。
+ */
+public class IppClient implements Closeable {
+
+    private static final String CONTENT_TYPE = "application/ipp";
+    private static final int DEFAULT_PORT = 631;
+
+    private final CloseableHttpClient httpClient;
+    private final AtomicInteger requestIds = new AtomicInteger();
+
+    public IppClient(int connectTimeoutMs, int readTimeoutMs, int maxTotal, int maxPerRoute) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(maxTotal);
+        connectionManager.setDefaultMaxPerRoute(maxPerRoute);
+        connectionManager.setValidateAfterInactivity(2000);
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(connectTimeoutMs)
+                .setSocketTimeout(readTimeoutMs)
+                .setConnectionRequestTimeout(connectTimeoutMs)
+                .build();
+
+        this.httpClient = HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .evictIdleConnections(60, TimeUnit.SECONDS)
+                .evictExpiredConnections()
+                .build();
+    }
+
+    /**
+     * 新建带 printer-uri 的请求，调用方继续追加操作属性
+     */
+    public IppMessage newRequest(short operation, String printerUri) {
+        return IppMessage.request(operation, nextRequestId())
+                .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.URI, "printer-uri", printerUri);
+    }
+
+    /**
+     * 发送请求并返回成功的响应，document 为 null 时只发送属性
+     *
+     * @throws IppException 网络错误或打印机返回非成功状态码
+     */
+    public IppMessage send(String printerUri, IppMessage request, File document) {
+        HttpPost post = new HttpPost(toHttpUri(printerUri));
+        post.setEntity(new IppEntity(request.toBytes(), document));
+        try (CloseableHttpResponse response = httpClient.execute(post)) {
+            int httpStatus = response.getStatusLine().getStatusCode();
+            if (httpStatus != 200 || response.getEntity() == null) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new IppException("IPP请求失败: HTTP " + httpStatus + ", " + printerUri, -1);
+            }
+            IppMessage reply;
+            try (InputStream in = response.getEntity().getContent()) {
+                reply = IppMessage.readFrom(in);
+            }
+            if (!reply.isSuccessful()) {
+                String message = reply.getString("status-message");
+                throw new IppException(String.format("IPP请求被拒绝: status=0x%04x%s, %s", reply.getCode() & 0xFFFF,
+                        message != null ? " " + message : "", printerUri), reply.getCode() & 0xFFFF);
+            }
+            return reply;
+        } catch (IOException e) {
+            throw new IppException("IPP请求失败: " + printerUri + ", " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+    }
+
+    private int nextRequestId() {
+        // request-id 必须为正数
+        return (requestIds.incrementAndGet() & Integer.MAX_VALUE) + 1;
+    }
+
+    /**
+     * ipp://host[:port]/path 转换为 http://host:631/path，ipps 对应 https
+     */
+    static URI toHttpUri(String printerUri) {
+        URI uri = URI.create(printerUri);
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase();
+        String httpScheme;
+        switch (scheme) {
+            case "ipp":
+            case "http":
+                httpScheme = "http";
+                break;
+            case "ipps":
+            case "https":
+                httpScheme = "https";
+                break;
+            default:
+                throw new IllegalArgumentException("不支持的打印机地址: " + printerUri);
+        }
+        int port = uri.getPort() > 0 ? uri.getPort()
+                : scheme.startsWith("ipp") ? DEFAULT_PORT : ("https".equals(httpScheme) ? 443 : 80);
+        String path = uri.getRawPath() == null || uri.getRawPath().isEmpty() ? "/" : uri.getRawPath();
+        return URI.create(httpScheme + "://" + uri.getHost() + ":" + port + path);
+    }
+
+    /**
+     * 消息头与文档拼接的请求体，长度已知时按 Content-Length 发送
+     */
+    private static final class IppEntity extends AbstractHttpEntity {
+
+        private final byte[] header;
+        private final File document;
+
+        IppEntity(byte[] header, File document) {
+            this.header = header;
+            this.document = document;
+            setContentType(CONTENT_TYPE);
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return header.length + (document != null ? document.length() : 0);
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            InputStream head = new ByteArrayInputStream(header);
+            return document != null ? new SequenceInputStream(head, Files.newInputStream(document.toPath())) : head;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(header);
+            if (document != null) {
+                Files.copy(document.toPath(), out);
+            }
+            out.flush();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+}
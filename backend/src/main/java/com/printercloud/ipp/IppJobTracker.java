@@ -0,0 +1,179 @@
+package com.printercloud.ipp;
+
+import com.printercloud.exception.IppException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 跟踪已提交的IPP作业直到结束：单个定时器按打印机分组，用少量线程轮询 Get-Job-Attributes，
+ * 不为每个作业占用等待线程。同一打印机上一轮未结束时跳过本轮，避免慢设备堆积请求。
+ */
+@Slf4j
+public class IppJobTracker {
+
+    private static final String[] REQUESTED_ATTRIBUTES = {"job-state", "job-state-reasons"};
+
+    private final IppClient client;
+    private final long jobTimeoutMs;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService pollers;
+
+    /**
+     * printerUri -> 该打印机上跟踪中的作业，条目数以打印机数量为上限，空条目保留复用
+     */
+    private final Map<String, PrinterJobs> printers = new ConcurrentHashMap<>();
+
+    public IppJobTracker(IppClient client, long pollIntervalMs, int pollThreads, long jobTimeoutMs) {
+        this.client = client;
+        this.jobTimeoutMs = jobTimeoutMs;
+        AtomicInteger seq = new AtomicInteger();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "ipp-tracker"));
+        this.pollers = Executors.newFixedThreadPool(pollThreads, r -> daemon(r, "ipp-poll-" + seq.incrementAndGet()));
+        this.timer.scheduleWithFixedDelay(this::tick, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 开始跟踪作业，作业完成时正常结束，被取消、中止或超时时异常结束
+     */
+    public CompletionStage<Void> track(String printerUri, int jobId) {
+        TrackedJob job = new TrackedJob(jobId, System.currentTimeMillis() + jobTimeoutMs);
+        printers.computeIfAbsent(printerUri, k -> new PrinterJobs()).jobs.put(jobId, job);
+        return job.future;
+    }
+
+    public int activeJobs() {
+        int n = 0;
+        for (PrinterJobs p : printers.values()) {
+            n += p.jobs.size();
+        }
+        return n;
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+        pollers.shutdownNow();
+        for (PrinterJobs p : printers.values()) {
+            for (TrackedJob job : p.jobs.values()) {
+                job.future.completeExceptionally(new IllegalStateException("IPP作业跟踪已停止"));
+            }
+        }
+        printers.clear();
+    }
+
+    private void tick() {
+        for (Map.Entry<String, PrinterJobs> entry : printers.entrySet()) {
+            PrinterJobs p = entry.getValue();
+            if (p.jobs.isEmpty() || !p.polling.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                pollers.execute(() -> {
+                    try {
+                        poll(entry.getKey(), p);
+                    } finally {
+                        p.polling.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                p.polling.set(false);
+                return;
+            }
+        }
+    }
+
+    private void poll(String printerUri, PrinterJobs p) {
+        List<TrackedJob> jobs = new ArrayList<>(p.jobs.values());
+        for (TrackedJob job : jobs) {
+            try {
+                IppMessage request = client.newRequest(IppMessage.GET_JOB_ATTRIBUTES, printerUri)
+                        .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.INTEGER, "job-id", job.jobId)
+                        .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.KEYWORD, "requested-attributes",
+                                (Object[]) REQUESTED_ATTRIBUTES);
+                IppMessage reply = client.send(printerUri, request, null);
+                Integer state = reply.getInt("job-state");
+                if (state != null && handleState(printerUri, p, job, state, reply.getString("job-state-reasons"))) {
+                    continue;
+                }
+            } catch (IppException e) {
+                if (e.getStatusCode() == (IppMessage.CLIENT_ERROR_NOT_FOUND & 0xFFFF)) {
+                    finish(p, job, new IppException("打印机上的作业已不存在: job-id=" + job.jobId, e.getStatusCode()));
+                    continue;
+                }
+                log.debug("查询IPP作业状态失败: {} job-id={}, {}", printerUri, job.jobId, e.getMessage());
+            }
+            if (System.currentTimeMillis() > job.deadline) {
+                cancelQuietly(printerUri, job.jobId);
+                finish(p, job, new IppException("IPP作业超时: job-id=" + job.jobId, -1));
+            }
+        }
+    }
+
+    /**
+     * 作业进入终态时结束跟踪并返回 true
+     */
+    private boolean handleState(String printerUri, PrinterJobs p, TrackedJob job, int state, String reasons) {
+        switch (state) {
+            case IppMessage.JOB_COMPLETED:
+                p.jobs.remove(job.jobId);
+                job.future.complete(null);
+                return true;
+            case IppMessage.JOB_CANCELED:
+            case IppMessage.JOB_ABORTED:
+                finish(p, job, new IppException(String.format("IPP作业%s: %s job-id=%d%s",
+                        state == IppMessage.JOB_CANCELED ? "已取消" : "已中止", printerUri, job.jobId,
+                        reasons != null ? " (" + reasons + ")" : ""), -1));
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void finish(PrinterJobs p, TrackedJob job, Throwable error) {
+        p.jobs.remove(job.jobId);
+        job.future.completeExceptionally(error);
+    }
+
+    private void cancelQuietly(String printerUri, int jobId) {
+        try {
+            client.send(printerUri, client.newRequest(IppMessage.CANCEL_JOB, printerUri)
+                    .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.INTEGER, "job-id", jobId), null);
+        } catch (RuntimeException e) {
+            log.debug("取消超时IPP作业失败: {} job-id={}, {}", printerUri, jobId, e.getMessage());
+        }
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    private static final class PrinterJobs {
+        final Map<Integer, TrackedJob> jobs = new ConcurrentHashMap<>();
+        final AtomicBoolean polling = new AtomicBoolean();
+    }
+
+    private static final class TrackedJob {
+        final int jobId;
+        final long deadline;
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        TrackedJob(int jobId, long deadline) {
+            this.jobId = jobId;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.printercloud.ipp;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IPP/1.1 二进制消息（RFC 8010）：请求中 code 为操作码，响应中为状态码。
+ * 只覆盖打印所需的值类型，集合等其他类型按原始字节保留；文档数据不在消息内，紧跟在属性结束标记之后。
+ */
+public final class IppMessage {
+
+    // 操作码
+    public static final short PRINT_JOB = 0x0002;
+    public static final short CREATE_JOB = 0x0005;
+    public static final short SEND_DOCUMENT = 0x0006;
+    public static final short CANCEL_JOB = 0x0008;
+    public static final short GET_JOB_ATTRIBUTES = 0x0009;
+    public static final short GET_PRINTER_ATTRIBUTES = 0x000B;
+
+    // 状态码
+    public static final short SUCCESSFUL_OK = 0x0000;
+    public static final short CLIENT_ERROR_BAD_REQUEST = 0x0400;
+    public static final short CLIENT_ERROR_NOT_FOUND = 0x0406;
+    public static final short SERVER_ERROR_OPERATION_NOT_SUPPORTED = 0x0501;
+
+    // 分组标记
+    public static final byte OPERATION_ATTRIBUTES = 0x01;
+    public static final byte JOB_ATTRIBUTES = 0x02;
+    public static final byte END_OF_ATTRIBUTES = 0x03;
+    public static final byte PRINTER_ATTRIBUTES = 0x04;
+    public static final byte UNSUPPORTED_ATTRIBUTES = 0x05;
+
+    // 值类型
+    public static final byte INTEGER = 0x21;
+    public static final byte BOOLEAN = 0x22;
+    public static final byte ENUM = 0x23;
+    public static final byte TEXT = 0x41;
+    public static final byte NAME = 0x42;
+    public static final byte KEYWORD = 0x44;
+    public static final byte URI = 0x45;
+    public static final byte CHARSET = 0x47;
+    public static final byte NATURAL_LANGUAGE = 0x48;
+    public static final byte MIME_MEDIA_TYPE = 0x49;
+
+    // job-state 取值
+    public static final int JOB_PENDING = 3;
+    public static final int JOB_PENDING_HELD = 4;
+    public static final int JOB_PROCESSING = 5;
+    public static final int JOB_PROCESSING_STOPPED = 6;
+    public static final int JOB_CANCELED = 7;
+    public static final int JOB_ABORTED = 8;
+    public static final int JOB_COMPLETED = 9;
+
+    /**
+     * 单个属性，values 中按值类型存放 Integer、Boolean、String 或 byte[]
+     */
+    public static final class Attribute {
+        private final byte group;
+        private final byte valueTag;
+        private final String name;
+        private final List<Object> values = new ArrayList<>();
+
+        Attribute(byte group, byte valueTag, String name) {
+            this.group = group;
+            this.valueTag = valueTag;
+            this.name = name;
+        }
+
+        public byte getGroup() {
+            return group;
+        }
+
+        public byte getValueTag() {
+            return valueTag;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Object> getValues() {
+            return Collections.unmodifiableList(values);
+        }
+    }
+
+    private final int version;
+    private final short code;
+    private final int requestId;
+    private final List<Attribute> attributes = new ArrayList<>();
+
+    public IppMessage(short code, int requestId) {
+        this(0x0101, code, requestId);
+    }
+
+    private IppMessage(int version, short code, int requestId) {
+        this.version = version;
+        this.code = code;
+        this.requestId = requestId;
+    }
+
+    /**
+     * 新建请求并写入必需的 attributes-charset 与 attributes-natural-language
+     */
+    public static IppMessage request(short operation, int requestId) {
+        return new IppMessage(operation, requestId)
+                .add(OPERATION_ATTRIBUTES, CHARSET, "attributes-charset", "utf-8")
+                .add(OPERATION_ATTRIBUTES, NATURAL_LANGUAGE, "attributes-natural-language", "en");
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    public int getRequestId() {
+        return requestId;
+    }
+
+    public List<Attribute> getAttributes() {
+        return Collections.unmodifiableList(attributes);
+    }
+
+    public boolean isSuccessful() {
+        return (code & 0xFFFF) < 0x0100;
+    }
+
+    public IppMessage add(byte group, byte valueTag, String name, Object... values) {
+        Attribute attribute = new Attribute(group, valueTag, name);
+        Collections.addAll(attribute.values, values);
+        attributes.add(attribute);
+        return this;
+    }
+
+    public Attribute find(String name) {
+        for (Attribute attribute : attributes) {
+            if (attribute.name.equals(name)) {
+                return attribute;
+            }
+        }
+        return null;
+    }
+
+    public Integer getInt(String name) {
+        Attribute attribute = find(name);
+        return attribute != null && !attribute.values.isEmpty() && attribute.values.get(0) instanceof Integer
+                ? (Integer) attribute.values.get(0) : null;
+    }
+
+    public String getString(String name) {
+        Attribute attribute = find(name);
+        return attribute != null && !attribute.values.isEmpty() && attribute.values.get(0) instanceof String
+                ? (String) attribute.values.get(0) : null;
+    }
+
+    public byte[] toBytes() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try {
+            writeTo(bytes);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public void writeTo(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeShort(version);
+        data.writeShort(code);
+        data.writeInt(requestId);
+        byte group = 0;
+        for (Attribute attribute : attributes) {
+            if (attribute.group != group) {
+                group = attribute.group;
+                data.writeByte(group);
+            }
+            for (int i = 0; i < attribute.values.size(); i++) {
+                data.writeByte(attribute.valueTag);
+                byte[] name = i == 0 ? attribute.name.getBytes(StandardCharsets.UTF_8) : new byte[0];
+                data.writeShort(name.length);
+                data.write(name);
+                byte[] value = encodeValue(attribute.valueTag, attribute.values.get(i));
+                data.writeShort(value.length);
+                data.write(value);
+            }
+        }
+        data.writeByte(END_OF_ATTRIBUTES);
+        data.flush();
+    }
+
+    /**
+     * 读取消息头和属性，读到属性结束标记为止，输入流停在文档数据的起始位置
+     */
+    public static IppMessage readFrom(InputStream in) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        IppMessage message = new IppMessage(data.readUnsignedShort(), data.readShort(), data.readInt());
+        byte group = 0;
+        Attribute current = null;
+        while (true) {
+            int tag = data.read();
+            if (tag < 0) {
+                throw new EOFException("IPP消息缺少属性结束标记");
+            }
+            if (tag == END_OF_ATTRIBUTES) {
+                return message;
+            }
+            if (tag < 0x10) {
+                group = (byte) tag;
+                current = null;
+                continue;
+            }
+            byte[] name = new byte[data.readUnsignedShort()];
+            data.readFully(name);
+            byte[] value = new byte[data.readUnsignedShort()];
+            data.readFully(value);
+            if (name.length > 0 || current == null) {
+                current = new Attribute(group, (byte) tag, new String(name, StandardCharsets.UTF_8));
+                message.attributes.add(current);
+            }
+            current.values.add(decodeValue((byte) tag, value));
+        }
+    }
+
+    private static byte[] encodeValue(byte valueTag, Object value) {
+        switch (valueTag) {
+            case INTEGER:
+            case ENUM:
+                int v = (Integer) value;
+                return new byte[]{(byte) (v >>> 24), (byte) (v >>> 16), (byte) (v >>> 8), (byte) v};
+            case BOOLEAN:
+                return new byte[]{(byte) (Boolean.TRUE.equals(value) ? 1 : 0)};
+            default:
+                if (value instanceof byte[]) {
+                    return (byte[]) value;
+                }
+                return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    private static Object decodeValue(byte valueTag, byte[] value) {
+        switch (valueTag) {
+            case INTEGER:
+            case ENUM:
+                if (value.length != 4) {
+                    return value;
+                }
+                return ((value[0] & 0xFF) << 24) | ((value[1] & 0xFF) << 16) | ((value[2] & 0xFF) << 8) | (value[3] & 0xFF);
+            case BOOLEAN:
+                return value.length == 1 && value[0] != 0;
+            default:
+                // 0x40-0x5F 为字符串类型
+                if (valueTag >= 0x40 && valueTag <= 0x5F) {
+                    return new String(value, StandardCharsets.UTF_8);
+                }
+                return value;
+        }
+    }
+}
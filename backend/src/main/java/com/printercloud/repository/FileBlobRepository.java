@@ -0,0 +1,58 @@
+package com.printercloud.repository;
+
+import com.printercloud.entity.FileBlob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 文件内容数据访问接口
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Repository
+public interface FileBlobRepository extends JpaRepository<FileBlob, Long> {
+
+    /**
+     * 根据内容哈希查找
+     */
+    Optional<FileBlob> findByFileHash(String fileHash);
+
+    /**
+     * 引用计数加一，返回受影响行数（0表示内容不存在）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount + 1, b.updatedTime = CURRENT_TIMESTAMP WHERE b.fileHash = :hash")
+    int incrementRefCount(@Param("hash") String hash);
+
+    /**
+     * 引用计数减一；按记录ID更新，不会误减同一内容重新登记后的新记录
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.refCount = b.refCount - 1, b.updatedTime = CURRENT_TIMESTAMP WHERE b.id = :id AND b.refCount > 0")
+    int decrementRefCount(@Param("id") Long id);
+
+    /**
+     * 删除已无引用的内容记录
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM FileBlob b WHERE b.id = :id AND b.refCount <= 0")
+    int deleteIfUnreferenced(@Param("id") Long id);
+
+    /**
+     * 更新页数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileBlob b SET b.pageCount = :pageCount WHERE b.fileHash = :hash")
+    int updatePageCount(@Param("hash") String hash, @Param("pageCount") Integer pageCount);
+}
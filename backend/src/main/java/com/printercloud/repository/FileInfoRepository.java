@@ -4,10 +4,13 @@ import com.printercloud.entity.FileInfo;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -67,6 +70,21 @@ public interface FileInfoRepository extends JpaRepository<FileInfo, Long> {
     @Query("SELECT f FROM FileInfo f WHERE f.userId = :userId AND f.status = 1 ORDER BY f.createdTime DESC")
     Page<FileInfo> findRecentFilesByUserId(@Param("userId") Long userId, Pageable pageable);
 
+    /**
+     * 游标分页首页：按 (createdTime, id) 倒序，由 idx_file_user_created_id 支撑，不做 COUNT
+     */
+    @Query("SELECT f FROM FileInfo f WHERE f.userId = :userId AND f.status = 1 ORDER BY f.createdTime DESC, f.id DESC")
+    List<FileInfo> findFirstByUserIdOrderByKey(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 游标分页后续页：从上一页最后一行 (createdTime, id) 之后继续读取
+     */
+    @Query("SELECT f FROM FileInfo f WHERE f.userId = :userId AND f.status = 1 AND (f.createdTime < :createdTime OR (f.createdTime = :createdTime AND f.id < :id)) ORDER BY f.createdTime DESC, f.id DESC")
+    List<FileInfo> findByUserIdAfterKey(@Param("userId") Long userId,
+                                        @Param("createdTime") LocalDateTime createdTime,
+                                        @Param("id") Long id,
+                                        Pageable pageable);
+
     /**
      * 根据文件名模糊查询
      */
@@ -84,4 +102,35 @@ public interface FileInfoRepository extends JpaRepository<FileInfo, Long> {
      */
     @Query("SELECT f FROM FileInfo f WHERE f.fileSize > :minSize ORDER BY f.fileSize DESC")
     List<FileInfo> findLargeFiles(@Param("minSize") Long minSize);
+
+    /**
+     * 回填同一内容所有待解析文件的页数
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileInfo f SET f.pageCount = :pageCount, f.pageCountStatus = :status, f.updatedTime = CURRENT_TIMESTAMP WHERE f.fileHash = :hash AND f.pageCountStatus = 'PENDING'")
+    int completePendingPageCount(@Param("hash") String hash, @Param("pageCount") Integer pageCount, @Param("status") String status);
+
+    /**
+     * 查找更新时间早于指定时间仍待解析的文件（解析任务随节点重启或崩溃丢失）
+     */
+    @Query("SELECT f FROM FileInfo f WHERE f.pageCountStatus = 'PENDING' AND f.updatedTime < :before ORDER BY f.updatedTime ASC")
+    List<FileInfo> findStalePendingPageCounts(@Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * 认领同一内容的过期待解析文件并刷新更新时间，返回0表示已被其他节点认领或已完成
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileInfo f SET f.updatedTime = :now WHERE f.fileHash = :hash AND f.pageCountStatus = 'PENDING' AND f.updatedTime < :before")
+    int claimStalePendingPageCount(@Param("hash") String hash, @Param("before") LocalDateTime before, @Param("now") LocalDateTime now);
+
+    /**
+     * 为新增 blob_id 列之前登记的文件回填内容ID：文件路径就是某条内容记录的存储路径
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE FileInfo f SET f.blobId = (SELECT b.id FROM FileBlob b WHERE b.storagePath = f.filePath) "
+            + "WHERE f.blobId IS NULL AND f.filePath IN (SELECT b.storagePath FROM FileBlob b)")
+    int backfillBlobIds();
 }
@@ -4,12 +4,15 @@ import com.printercloud.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -74,6 +77,106 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.status = 'PAID' ORDER BY o.createdTime ASC")
     List<Order> findOrdersReadyToPrint();
 
+    /**
+     * 查找可认领的打印订单：已支付且不在重试等待中，或打印中但租约已过期（节点崩溃）。
+     * 先以 status IN 限定范围，使查询可走 idx_order_status_lease，而不是因 OR 条件全表扫描
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.status IN ('PAID', 'PRINTING') AND o.printAttempts < :maxAttempts AND ("
+            + "(o.status = 'PAID' AND (o.leaseExpiresAt IS NULL OR o.leaseExpiresAt < :now)) "
+            + "OR (o.status = 'PRINTING' AND o.leaseExpiresAt < :now)) ORDER BY o.createdTime ASC")
+    List<Long> findClaimablePrintIds(@Param("now") LocalDateTime now,
+                                     @Param("maxAttempts") int maxAttempts,
+                                     Pageable pageable);
+
+    /**
+     * 条件更新认领打印订单，只有仍可认领的行会被更新，多个节点同时认领时每行只会有一个成功
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'PRINTING', o.leaseToken = :token, o.leaseExpiresAt = :until, "
+            + "o.printAttempts = o.printAttempts + 1, o.printStartTime = :now, o.updatedTime = :now "
+            + "WHERE o.id IN :ids AND o.printAttempts < :maxAttempts AND ("
+            + "(o.status = 'PAID' AND (o.leaseExpiresAt IS NULL OR o.leaseExpiresAt < :now)) "
+            + "OR (o.status = 'PRINTING' AND o.leaseExpiresAt < :now))")
+    int claimForPrint(@Param("ids") List<Long> ids,
+                      @Param("token") String token,
+                      @Param("now") LocalDateTime now,
+                      @Param("until") LocalDateTime until,
+                      @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * 根据租约令牌查找本批次认领到的订单
+     */
+    List<Order> findByLeaseToken(String leaseToken);
+
+    /**
+     * 续期仍在处理中的打印租约
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.leaseExpiresAt = :until WHERE o.leaseToken IN :tokens AND o.status = 'PRINTING'")
+    int renewPrintLeases(@Param("tokens") Collection<String> tokens, @Param("until") LocalDateTime until);
+
+    /**
+     * 结束打印租约并写入最终状态；租约已被其他节点接管时不更新
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = :status, o.leaseToken = NULL, o.leaseExpiresAt = NULL, "
+            + "o.printEndTime = :now, o.updatedTime = :now "
+            + "WHERE o.id = :id AND o.leaseToken = :token AND o.status = 'PRINTING'")
+    int completePrintLease(@Param("id") Long id,
+                           @Param("token") String token,
+                           @Param("status") String status,
+                           @Param("now") LocalDateTime now);
+
+    /**
+     * 释放打印租约并放回待打印队列，retryAt 之前不会被再次认领
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'PAID', o.leaseToken = NULL, o.leaseExpiresAt = :retryAt, o.updatedTime = :now "
+            + "WHERE o.id = :id AND o.leaseToken = :token AND o.status = 'PRINTING'")
+    int releasePrintLease(@Param("id") Long id,
+                          @Param("token") String token,
+                          @Param("retryAt") LocalDateTime retryAt,
+                          @Param("now") LocalDateTime now);
+
+    /**
+     * 记录订单分配到的打印机
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.printerId = :printerId WHERE o.id = :id AND o.leaseToken = :token")
+    int assignPrinter(@Param("id") Long id, @Param("token") String token, @Param("printerId") Long printerId);
+
+    /**
+     * 统计各打印机上打印中订单的总页数（页数×份数），返回 [printerId, pages]
+     */
+    @Query("SELECT o.printerId, SUM(o.estimatedPages * o.copies) FROM Order o "
+            + "WHERE o.status = 'PRINTING' AND o.printerId IS NOT NULL GROUP BY o.printerId")
+    List<Object[]> sumPrintingPagesByPrinter();
+
+    /**
+     * 让指定节点此前运行遗留的打印租约立即过期，节点重启后可马上重新认领
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.leaseExpiresAt = :expiredAt WHERE o.status = 'PRINTING' "
+            + "AND o.leaseToken LIKE :nodePattern AND o.leaseToken NOT LIKE :currentRunPattern")
+    int expireNodeLeases(@Param("nodePattern") String nodePattern,
+                         @Param("currentRunPattern") String currentRunPattern,
+                         @Param("expiredAt") LocalDateTime expiredAt);
+
+    /**
+     * 将租约过期且已用尽重试次数的订单标记为打印失败
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Order o SET o.status = 'PRINT_FAILED', o.leaseToken = NULL, o.leaseExpiresAt = NULL, o.updatedTime = :now "
+            + "WHERE o.status = 'PRINTING' AND o.leaseExpiresAt < :now AND o.printAttempts >= :maxAttempts")
+    int failExhaustedPrints(@Param("now") LocalDateTime now, @Param("maxAttempts") int maxAttempts);
+
     /**
      * 查找超时未支付的订单
      */
@@ -119,6 +222,42 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
                                                  @Param("endTime") LocalDateTime endTime,
                                                  Pageable pageable);
 
+    /**
+     * 按创建时间区间 [startTime, endTime) 查询用户订单，由 idx_order_user_created_id 支撑
+     */
+    @Query(value = "SELECT o FROM Order o WHERE o.userId = :userId AND o.createdTime >= :startTime AND o.createdTime < :endTime ORDER BY o.createdTime DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.userId = :userId AND o.createdTime >= :startTime AND o.createdTime < :endTime")
+    Page<Order> findByUserIdInRange(@Param("userId") Long userId,
+                                    @Param("startTime") LocalDateTime startTime,
+                                    @Param("endTime") LocalDateTime endTime,
+                                    Pageable pageable);
+
+    /**
+     * 按状态和创建时间区间 [startTime, endTime) 查询用户订单，由 idx_order_user_status_created 支撑
+     */
+    @Query(value = "SELECT o FROM Order o WHERE o.userId = :userId AND o.status = :status AND o.createdTime >= :startTime AND o.createdTime < :endTime ORDER BY o.createdTime DESC, o.id DESC",
+           countQuery = "SELECT COUNT(o) FROM Order o WHERE o.userId = :userId AND o.status = :status AND o.createdTime >= :startTime AND o.createdTime < :endTime")
+    Page<Order> findByUserIdAndStatusInRange(@Param("userId") Long userId,
+                                             @Param("status") String status,
+                                             @Param("startTime") LocalDateTime startTime,
+                                             @Param("endTime") LocalDateTime endTime,
+                                             Pageable pageable);
+
+    /**
+     * 游标分页首页：按 (createdTime, id) 倒序，由 idx_order_user_created_id 支撑，不做 COUNT
+     */
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId ORDER BY o.createdTime DESC, o.id DESC")
+    List<Order> findFirstByUserIdOrderByKey(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * 游标分页后续页：从上一页最后一行 (createdTime, id) 之后继续读取
+     */
+    @Query("SELECT o FROM Order o WHERE o.userId = :userId AND (o.createdTime < :createdTime OR (o.createdTime = :createdTime AND o.id < :id)) ORDER BY o.createdTime DESC, o.id DESC")
+    List<Order> findByUserIdAfterKey(@Param("userId") Long userId,
+                                     @Param("createdTime") LocalDateTime createdTime,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+
     /**
      * 查找热门打印配置统计
      */
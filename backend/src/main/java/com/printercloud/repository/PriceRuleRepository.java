@@ -0,0 +1,29 @@
+package com.printercloud.repository;
+
+import com.printercloud.entity.PriceRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 价格规则数据访问接口
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Repository
+public interface PriceRuleRepository extends JpaRepository<PriceRule, Long> {
+
+    /**
+     * 查找启用的规则
+     */
+    @Query("SELECT r FROM PriceRule r WHERE r.status = 1 ORDER BY r.id")
+    List<PriceRule> findEnabledRules();
+
+    /**
+     * 按类型查找全部规则
+     */
+    List<PriceRule> findByRuleTypeOrderByIdAsc(String ruleType);
+}
@@ -0,0 +1,32 @@
+package com.printercloud.repository;
+
+import com.printercloud.entity.PriceVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 价格版本号数据访问接口
+ *
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Repository
+public interface PriceVersionRepository extends JpaRepository<PriceVersion, Long> {
+
+    /**
+     * 当前价格版本号，版本行不存在时返回 null
+     */
+    @Query("SELECT v.version FROM PriceVersion v WHERE v.id = 1")
+    Long findCurrentVersion();
+
+    /**
+     * 递增价格版本号，加入调用方的事务，与价格修改一同提交或回滚
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE PriceVersion v SET v.version = v.version + 1 WHERE v.id = 1")
+    int increment();
+}
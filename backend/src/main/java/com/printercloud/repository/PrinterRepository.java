@@ -0,0 +1,40 @@
+package com.printercloud.repository;
+
+import com.printercloud.entity.Printer;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 打印机数据访问接口
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Repository
+public interface PrinterRepository extends JpaRepository<Printer, Long> {
+
+    /**
+     * 根据名称查找打印机
+     */
+    Optional<Printer> findByName(String name);
+
+    /**
+     * 按ID顺序查找全部打印机
+     */
+    List<Printer> findAllByOrderByIdAsc();
+
+    /**
+     * 回写实测打印速度
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Printer p SET p.measuredPpm = :ppm WHERE p.id = :id")
+    int updateMeasuredPpm(@Param("id") Long id, @Param("ppm") Double ppm);
+}
@@ -0,0 +1,45 @@
+package com.printercloud.repository;
+
+import com.printercloud.entity.UploadChunk;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 上传分片数据访问接口
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Repository
+public interface UploadChunkRepository extends JpaRepository<UploadChunk, Long> {
+
+    /**
+     * 查找会话的所有分片
+     */
+    List<UploadChunk> findBySessionIdOrderByChunkIndexAsc(String sessionId);
+
+    /**
+     * 查找指定分片
+     */
+    Optional<UploadChunk> findBySessionIdAndChunkIndex(String sessionId, Integer chunkIndex);
+
+    /**
+     * 统计会话已接收分片数
+     */
+    long countBySessionId(String sessionId);
+
+    /**
+     * 删除会话的所有分片记录
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadChunk c WHERE c.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") String sessionId);
+}
@@ -0,0 +1,63 @@
+package com.printercloud.repository;
+
+import com.printercloud.entity.UploadSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 分片上传会话数据访问接口
+ * 
+ * @author PrinterCloud Team
+ * @since 2024-12-07
+ */
+@Repository
+public interface UploadSessionRepository extends JpaRepository<UploadSession, Long> {
+
+    /**
+     * 根据会话ID和用户ID查找
+     */
+    Optional<UploadSession> findBySessionIdAndUserId(String sessionId, Long userId);
+
+    /**
+     * 查找需要清理的会话：已过期的上传中会话、合并超时（节点崩溃）的合并中会话、超过保留期的已完成会话
+     */
+    @Query("SELECT s FROM UploadSession s WHERE (s.status = 'UPLOADING' AND s.expireTime < :now) "
+            + "OR (s.status = 'ASSEMBLING' AND s.updatedTime < :assemblingBefore) "
+            + "OR (s.status = 'COMPLETED' AND s.updatedTime < :completedBefore)")
+    List<UploadSession> findExpiredSessions(@Param("now") LocalDateTime now,
+                                            @Param("assemblingBefore") LocalDateTime assemblingBefore,
+                                            @Param("completedBefore") LocalDateTime completedBefore);
+
+    /**
+     * 仅在状态未变时删除会话，返回受影响行数；会话已被其他节点开始合并时不删除
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM UploadSession s WHERE s.sessionId = :sessionId AND s.status = :status")
+    int deleteBySessionIdAndStatus(@Param("sessionId") String sessionId, @Param("status") String status);
+
+    /**
+     * 条件更新会话状态，返回受影响行数（用于抢占合并）
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = :to, s.updatedTime = CURRENT_TIMESTAMP WHERE s.sessionId = :sessionId AND s.status = :from")
+    int compareAndSetStatus(@Param("sessionId") String sessionId, @Param("from") String from, @Param("to") String to);
+
+    /**
+     * 文件已保存后记录文件ID并标记为已完成；会话已被清理或回退时不更新
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE UploadSession s SET s.status = 'COMPLETED', s.fileId = :fileId, s.updatedTime = CURRENT_TIMESTAMP "
+            + "WHERE s.sessionId = :sessionId AND s.status IN ('ASSEMBLING', 'COMPLETED')")
+    int markCompleted(@Param("sessionId") String sessionId, @Param("fileId") Long fileId);
+}
@@ -0,0 +1,28 @@
+package com.printercloud.service;
+
+import com.printercloud.dto.request.InitChunkUploadRequest;
+import com.printercloud.dto.response.FileUploadResponse;
+import com.printercloud.dto.response.UploadSessionResponse;
+
+import java.io.InputStream;
+
+public interface ChunkUploadService {
+    UploadSessionResponse init(InitChunkUploadRequest request, Long userId);
+
+    /**
+     * 接收一个分片；chunkHash为客户端计算的分片MD5，提供时与服务端结果比对
+     */
+    UploadSessionResponse uploadChunk(String sessionId, int index, InputStream data, String chunkHash, Long userId);
+
+    UploadSessionResponse status(String sessionId, Long userId);
+
+    /**
+     * 合并全部分片并登记为文件
+     */
+    FileUploadResponse complete(String sessionId, Long userId);
+
+    /**
+     * 清理过期未完成的会话
+     */
+    void cleanupExpiredSessions();
+}
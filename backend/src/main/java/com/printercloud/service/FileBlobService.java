@@ -0,0 +1,24 @@
+package com.printercloud.service;
+
+import com.printercloud.entity.FileBlob;
+
+import java.io.File;
+
+public interface FileBlobService {
+    /**
+     * 登记一份已落盘的上传内容：内容已存在时增加引用并删除临时文件，否则将临时文件移入内容存储
+     */
+    FileBlob acquire(File tempFile, String hash);
+
+    /**
+     * 释放一次引用，最后一个引用释放时删除磁盘文件
+     */
+    void release(String hash);
+
+    void updatePageCount(String hash, int pageCount);
+
+    /**
+     * 上传临时文件目录
+     */
+    File tempDir();
+}
@@ -3,6 +3,9 @@ package com.printercloud.service;
 import java.io.File;
 
 public interface FilePageCounterService {
-    int countPages(File file, String originalName, String contentType);
+    /**
+     * @param fileHash 内容哈希，用于复用已转换的PDF；为空时转换结果不缓存
+     */
+    int countPages(File file, String fileHash, String originalName, String contentType);
 }
 
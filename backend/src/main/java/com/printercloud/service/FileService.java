@@ -1,11 +1,28 @@
 package com.printercloud.service;
 
+import com.printercloud.dto.response.CursorPage;
 import com.printercloud.dto.response.FileUploadResponse;
+import com.printercloud.dto.response.PageCountResponse;
 import com.printercloud.entity.FileInfo;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.File;
+
 public interface FileService {
     FileUploadResponse upload(MultipartFile file, String fileName, Long userId);
+    /**
+     * 登记已完整落盘并计算过MD5的上传文件（临时文件的所有权转移给文件服务）
+     */
+    FileUploadResponse saveUploaded(File tempFile, String fileHash, String fileName, String contentType, Long userId);
+    /**
+     * 游标分页查询用户文件，按上传时间倒序；cursor为空时返回第一页，withTotal为true时额外统计总数
+     */
+    CursorPage<FileUploadResponse> listFilesByCursor(Long userId, String cursor, int size, boolean withTotal);
     boolean delete(Long fileId, Long userId);
     FileInfo info(Long fileId, Long userId);
+
+    /**
+     * 查询页数解析结果（供客户端轮询）
+     */
+    PageCountResponse pageCount(Long fileId, Long userId);
 }
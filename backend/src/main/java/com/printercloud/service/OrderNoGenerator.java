@@ -0,0 +1,12 @@
+package com.printercloud.service;
+
+/**
+ * 订单号生成器：同一节点内单调递增，不同节点之间不重复
+ */
+public interface OrderNoGenerator {
+
+    /**
+     * 生成下一个订单号
+     */
+    String next();
+}
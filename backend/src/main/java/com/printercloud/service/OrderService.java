@@ -1,12 +1,17 @@
 package com.printercloud.service;
 
 import com.printercloud.dto.request.CreateOrderRequest;
+import com.printercloud.dto.response.CursorPage;
 import com.printercloud.dto.response.OrderResponse;
 import org.springframework.data.domain.Page;
 
 public interface OrderService {
     OrderResponse createOrder(Long userId, CreateOrderRequest req);
     Page<OrderResponse> listOrders(Long userId, int page, int pageSize, String status, String startTime, String endTime);
+    /**
+     * 游标分页查询订单，按创建时间倒序；cursor为空时返回第一页，withTotal为true时额外统计总数
+     */
+    CursorPage<OrderResponse> listOrdersByCursor(Long userId, String cursor, int size, boolean withTotal);
     OrderResponse getOrderDetail(Long userId, Long orderId);
     boolean cancelOrder(Long userId, Long orderId);
     boolean updateOrderStatus(Long userId, Long orderId, String status);
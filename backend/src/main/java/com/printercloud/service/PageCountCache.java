@@ -0,0 +1,10 @@
+package com.printercloud.service;
+
+public interface PageCountCache {
+    /**
+     * 按内容哈希与文件类型查询页数，未命中返回null
+     */
+    Integer get(String fileHash, String fileType);
+
+    void put(String fileHash, String fileType, int pageCount);
+}
@@ -0,0 +1,15 @@
+package com.printercloud.service;
+
+import java.io.File;
+
+public interface PageCountTaskService {
+    /**
+     * 判断该文件类型是否需要后台解析页数（PDF/Word），其余类型解析成本很低，直接同步计算
+     */
+    boolean isAsync(String fileName);
+
+    /**
+     * 提交后台页数解析任务，完成后回填同一内容的所有待解析文件；返回false表示队列已满
+     */
+    boolean submit(String fileHash, File file, String fileName, String contentType);
+}
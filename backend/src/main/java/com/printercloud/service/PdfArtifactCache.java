@@ -0,0 +1,32 @@
+package com.printercloud.service;
+
+import java.io.File;
+
+/**
+ * 文档转换得到的PDF缓存，按源文件内容哈希保存在磁盘上，页数计算、打印与预览共用同一次转换
+ */
+public interface PdfArtifactCache {
+
+    /**
+     * 获取并占用源文件对应的PDF，缓存中没有时转换并写入缓存；同一内容并发请求只转换一次。
+     * 占用期间文件不会被淘汰或删除，用完后关闭返回值解除占用；文件归缓存所有，调用方不得删除或修改，
+     * 需要长期持有时自行建立链接或复制
+     */
+    Artifact acquire(String fileHash, File source, String fileExt) throws Exception;
+
+    /**
+     * 源内容已删除时移除对应的PDF，仍被占用时在最后一次解除占用后删除
+     */
+    void evict(String fileHash);
+
+    /**
+     * 被占用的缓存PDF
+     */
+    interface Artifact extends AutoCloseable {
+
+        File getFile();
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.printercloud.service;
+
+/**
+ * 向集群其他节点广播价格配置已变更
+ */
+public interface PriceChangePublisher {
+
+    /**
+     * @param fingerprint 变更后的价格配置指纹，接收方指纹不同时重新加载
+     */
+    void publish(String fingerprint);
+}
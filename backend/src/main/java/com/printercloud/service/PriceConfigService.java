@@ -1,8 +1,12 @@
 package com.printercloud.service;
 
+import com.printercloud.dto.request.BatchQuoteRequest;
+import com.printercloud.dto.request.PriceRuleRequest;
 import com.printercloud.dto.request.UpdatePriceConfigRequest;
+import com.printercloud.dto.response.BatchQuoteResponse;
 import com.printercloud.dto.response.PriceConfigResponse;
 import com.printercloud.entity.PriceConfig;
+import com.printercloud.entity.PriceRule;
 import org.springframework.data.domain.Page;
 
 import java.math.BigDecimal;
@@ -58,8 +62,37 @@ public interface PriceConfigService {
 
     /**
      * 计算打印价格
+     *
+     * @param userId 用户ID，用于匹配角色价格，为空时按普通价格计算
      */
-    BigDecimal calculatePrintPrice(String colorType, String paperSize, String duplex, Integer pages, Integer copies);
+    BigDecimal calculatePrintPrice(String colorType, String paperSize, String duplex, Integer pages, Integer copies, Long userId);
+
+    /**
+     * 打印报价（单价与小计，以分计）
+     *
+     * @param userId 用户ID，用于匹配角色价格，为空时按普通价格计算
+     */
+    PrintQuote quotePrint(String colorType, String paperSize, String duplex, int pages, int copies, Long userId);
+
+    /**
+     * 批量计算打印价格，所有明细使用同一价格快照
+     */
+    BatchQuoteResponse calculateBatchPrice(BatchQuoteRequest request, Long userId);
+
+    /**
+     * 获取全部价格规则
+     */
+    List<PriceRule> getRules();
+
+    /**
+     * 新建或更新价格规则
+     */
+    PriceRule saveRule(PriceRuleRequest request, String updatedBy);
+
+    /**
+     * 删除价格规则
+     */
+    boolean deleteRule(Long id);
 
     /**
      * 初始化默认价格配置
@@ -72,7 +105,7 @@ public interface PriceConfigService {
     List<String> getAllCategories();
 
     /**
-     * 批量更新价格配置
+     * 批量更新价格配置：整体校验后在同一事务内批量写入，任一项不合法时抛出 IllegalArgumentException 且不做修改
      */
     boolean batchUpdateConfigs(List<UpdatePriceConfigRequest> requests, String updatedBy);
 }
@@ -0,0 +1,188 @@
+package com.printercloud.service;
+
+import com.printercloud.common.Money;
+import com.printercloud.entity.PriceRule;
+import com.printercloud.entity.User;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 价格规则编译后的只读判定结构，金额以分为单位。
+ * <ul>
+ *     <li>阶梯单价：每个 (打印组合, 角色) 一组按起始张数升序的数组，二分查找；某角色配置了专属阶梯时只按专属阶梯计价</li>
+ *     <li>时段折扣：每个打印组合一张按分钟索引的折扣表（万分比），多条折扣重叠时取最低折扣率</li>
+ * </ul>
+ * 计价只做数组下标与二分查找，耗时与规则条数基本无关。
+ */
+public final class PriceRuleSet {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    private static final User.Role[] ROLES = User.Role.values();
+
+    /**
+     * 角色下标：0表示不区分角色，其余为角色序号+1
+     */
+    private static final int ROLE_SLOTS = ROLES.length + 1;
+
+    private final int[][] tierStarts;
+    private final long[][] tierFen;
+    private final short[][] discountRates;
+    private final boolean hasRoleTiers;
+
+    private PriceRuleSet(int[][] tierStarts, long[][] tierFen, short[][] discountRates, boolean hasRoleTiers) {
+        this.tierStarts = tierStarts;
+        this.tierFen = tierFen;
+        this.discountRates = discountRates;
+        this.hasRoleTiers = hasRoleTiers;
+    }
+
+    /**
+     * @param baseFen 各打印组合的基础单价（分），下标与 PriceSnapshot 的组合下标一致
+     * @param matcher 判断规则是否适用于某打印组合
+     */
+    static PriceRuleSet compile(long[] baseFen, List<PriceRule> rules, SlotMatcher matcher) {
+        int slots = baseFen.length;
+        int[][] tierStarts = new int[slots * ROLE_SLOTS][];
+        long[][] tierFen = new long[slots * ROLE_SLOTS][];
+        short[][] discountRates = new short[slots][];
+        boolean hasRoleTiers = false;
+
+        short[] noDiscount = new short[MINUTES_PER_DAY];
+        Arrays.fill(noDiscount, (short) Money.RATE_BASE);
+
+        for (int slot = 0; slot < slots; slot++) {
+            List<PriceRule> generic = new ArrayList<>();
+            List<List<PriceRule>> byRole = new ArrayList<>();
+            for (int r = 0; r < ROLES.length; r++) {
+                byRole.add(new ArrayList<>());
+            }
+            short[] discounts = null;
+            for (PriceRule rule : rules) {
+                if (!rule.isEnabled() || !matcher.matches(rule, slot)) {
+                    continue;
+                }
+                if (PriceRule.RuleType.TIER.getCode().equals(rule.getRuleType())) {
+                    int role = roleIndex(rule.getUserRole());
+                    if (role == 0) {
+                        generic.add(rule);
+                    } else {
+                        byRole.get(role - 1).add(rule);
+                        hasRoleTiers = true;
+                    }
+                } else if (PriceRule.RuleType.TIME_DISCOUNT.getCode().equals(rule.getRuleType())) {
+                    if (discounts == null) {
+                        discounts = noDiscount.clone();
+                    }
+                    applyDiscount(discounts, rule);
+                }
+            }
+            discountRates[slot] = discounts != null ? discounts : noDiscount;
+            setTiers(tierStarts, tierFen, slot * ROLE_SLOTS, baseFen[slot], generic);
+            for (int r = 0; r < ROLES.length; r++) {
+                if (!byRole.get(r).isEmpty()) {
+                    setTiers(tierStarts, tierFen, slot * ROLE_SLOTS + r + 1, baseFen[slot], byRole.get(r));
+                }
+            }
+        }
+        return new PriceRuleSet(tierStarts, tierFen, discountRates, hasRoleTiers);
+    }
+
+    /**
+     * 折后单价（分）
+     *
+     * @param slot        打印组合下标
+     * @param role        角色下标，见 {@link #roleIndex(String)}
+     * @param sheets      计价张数（页数×份数），用于匹配阶梯
+     * @param minuteOfDay 当天第几分钟，用于匹配时段折扣
+     */
+    public long unitFen(int slot, int role, long sheets, int minuteOfDay) {
+        int key = slot * ROLE_SLOTS + role;
+        if (tierStarts[key] == null) {
+            key = slot * ROLE_SLOTS;
+        }
+        int[] starts = tierStarts[key];
+        int i = Arrays.binarySearch(starts, (int) Math.min(sheets, Integer.MAX_VALUE));
+        if (i < 0) {
+            i = Math.max(0, -i - 2);
+        }
+        return Money.applyRate(tierFen[key][i], discountRates[slot][minuteOfDay]);
+    }
+
+    /**
+     * 是否存在按角色区分的阶梯，不存在时计价无需查询用户角色
+     */
+    public boolean hasRoleTiers() {
+        return hasRoleTiers;
+    }
+
+    public static int roleIndex(String role) {
+        if (role == null) {
+            return 0;
+        }
+        for (User.Role r : ROLES) {
+            if (r.getCode().equalsIgnoreCase(role)) {
+                return r.ordinal() + 1;
+            }
+        }
+        return 0;
+    }
+
+    public static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * 基础单价作为第1张起的阶梯，规则在同一起始张数上覆盖基础单价；同一起始张数有多条规则时取低价
+     */
+    private static void setTiers(int[][] tierStarts, long[][] tierFen, int key, long baseFen, List<PriceRule> rules) {
+        TreeMap<Integer, Long> tiers = new TreeMap<>();
+        tiers.put(1, baseFen);
+        boolean overridden = false;
+        for (PriceRule rule : rules) {
+            int start = Math.max(1, rule.getMinPages());
+            long fen = Money.toFen(rule.getPriceValue());
+            Long existing = tiers.get(start);
+            if (start == 1 && !overridden) {
+                tiers.put(1, fen);
+                overridden = true;
+            } else {
+                tiers.put(start, existing == null ? fen : Math.min(existing, fen));
+            }
+        }
+        int[] starts = new int[tiers.size()];
+        long[] fens = new long[tiers.size()];
+        int i = 0;
+        for (Map.Entry<Integer, Long> e : tiers.entrySet()) {
+            starts[i] = e.getKey();
+            fens[i] = e.getValue();
+            i++;
+        }
+        tierStarts[key] = starts;
+        tierFen[key] = fens;
+    }
+
+    private static void applyDiscount(short[] rates, PriceRule rule) {
+        short rate = (short) Money.toRate(rule.getDiscountRate());
+        int start = minuteOfDay(rule.getStartTime());
+        int end = minuteOfDay(rule.getEndTime());
+        int length = end > start ? end - start : MINUTES_PER_DAY - start + end;
+        for (int i = 0; i < length; i++) {
+            int minute = (start + i) % MINUTES_PER_DAY;
+            if (rate < rates[minute]) {
+                rates[minute] = rate;
+            }
+        }
+    }
+
+    /**
+     * 判断规则的颜色/单双面/纸张条件是否覆盖某打印组合
+     */
+    interface SlotMatcher {
+        boolean matches(PriceRule rule, int slot);
+    }
+}
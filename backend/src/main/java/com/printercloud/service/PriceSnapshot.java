@@ -0,0 +1,163 @@
+package com.printercloud.service;
+
+import com.printercloud.common.Money;
+import com.printercloud.entity.Order;
+import com.printercloud.entity.PriceConfig;
+import com.printercloud.entity.PriceRule;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 某一时刻全部启用价格配置与价格规则的只读快照。
+ * 打印组合 (颜色, 单双面, 纸张) 按枚举序号映射为组合下标，基础单价与规则按下标编译为 {@link PriceRuleSet}；
+ * 其余配置按配置键查找。
+ */
+public final class PriceSnapshot {
+
+    private static final Order.ColorType[] COLORS = Order.ColorType.values();
+    private static final Order.Duplex[] DUPLEXES = Order.Duplex.values();
+    private static final Order.PaperSize[] SIZES = Order.PaperSize.values();
+
+    private final long version;
+    private final String fingerprint;
+    private final LocalDateTime loadedAt;
+    private final PriceRuleSet rules;
+    private final Map<String, BigDecimal> pricesByKey;
+
+    private PriceSnapshot(long version, String fingerprint, PriceRuleSet rules, Map<String, BigDecimal> pricesByKey) {
+        this.version = version;
+        this.fingerprint = fingerprint;
+        this.loadedAt = LocalDateTime.now();
+        this.rules = rules;
+        this.pricesByKey = pricesByKey;
+    }
+
+    /**
+     * 由启用的价格配置与规则构建快照
+     *
+     * @param fingerprint 加载前读取的配置指纹，用于判断快照是否过期
+     */
+    public static PriceSnapshot of(long version, String fingerprint, List<PriceConfig> enabledConfigs, List<PriceRule> enabledRules) {
+        long[] baseFen = new long[COLORS.length * DUPLEXES.length * SIZES.length];
+        for (Order.ColorType c : COLORS) {
+            for (Order.Duplex d : DUPLEXES) {
+                for (Order.PaperSize s : SIZES) {
+                    baseFen[slot(c.ordinal(), d.ordinal(), s.ordinal())] = Money.toFen(defaultUnitPrice(c.getCode(), d.getCode()));
+                }
+            }
+        }
+        Map<String, BigDecimal> byKey = new HashMap<>();
+        for (PriceConfig config : enabledConfigs) {
+            if (!config.isEnabled() || config.getPriceValue() == null) {
+                continue;
+            }
+            byKey.put(config.getConfigKey(), config.getPriceValue());
+            int slot = printSlot(config.getConfigKey());
+            // 配置为0视为未配置，沿用默认单价
+            if (slot >= 0 && config.getPriceValue().signum() > 0) {
+                baseFen[slot] = Money.toFen(config.getPriceValue());
+            }
+        }
+        PriceRuleSet rules = PriceRuleSet.compile(baseFen, enabledRules, PriceSnapshot::matches);
+        return new PriceSnapshot(version, fingerprint, rules, Collections.unmodifiableMap(byKey));
+    }
+
+    public static PriceSnapshot empty() {
+        return of(0, "", Collections.emptyList(), Collections.emptyList());
+    }
+
+    /**
+     * 未配置打印价格或打印参数无法识别时的默认单价
+     */
+    public static BigDecimal defaultUnitPrice(String colorType, String duplex) {
+        if ("COLOR".equalsIgnoreCase(colorType)) {
+            return "DOUBLE".equalsIgnoreCase(duplex) ? new BigDecimal("1.20") : new BigDecimal("1.50");
+        } else {
+            return "DOUBLE".equalsIgnoreCase(duplex) ? new BigDecimal("0.40") : new BigDecimal("0.50");
+        }
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    public PriceRuleSet getRules() {
+        return rules;
+    }
+
+    /**
+     * 打印组合下标，参数无法识别时返回-1
+     */
+    public int printSlot(String colorType, String duplex, String paperSize) {
+        int c = indexOf(COLORS, colorType);
+        int d = indexOf(DUPLEXES, duplex);
+        int s = indexOf(SIZES, paperSize);
+        return c < 0 || d < 0 || s < 0 ? -1 : slot(c, d, s);
+    }
+
+    /**
+     * 按配置键取价格，未配置时返回null
+     */
+    public BigDecimal price(String configKey) {
+        return pricesByKey.get(configKey);
+    }
+
+    public int size() {
+        return pricesByKey.size();
+    }
+
+    /**
+     * 解析 print.{color}.{duplex}.{size} 形式的配置键
+     */
+    private static int printSlot(String configKey) {
+        if (configKey == null || !configKey.startsWith("print.")) {
+            return -1;
+        }
+        String[] parts = configKey.split("\\.");
+        if (parts.length != 4) {
+            return -1;
+        }
+        int c = indexOf(COLORS, parts[1]);
+        int d = indexOf(DUPLEXES, parts[2]);
+        int s = indexOf(SIZES, parts[3]);
+        return c < 0 || d < 0 || s < 0 ? -1 : slot(c, d, s);
+    }
+
+    private static boolean matches(PriceRule rule, int slot) {
+        int size = slot % SIZES.length;
+        int duplex = slot / SIZES.length % DUPLEXES.length;
+        int color = slot / (SIZES.length * DUPLEXES.length);
+        return (rule.getColorType() == null || indexOf(COLORS, rule.getColorType()) == color)
+                && (rule.getDuplex() == null || indexOf(DUPLEXES, rule.getDuplex()) == duplex)
+                && (rule.getPaperSize() == null || indexOf(SIZES, rule.getPaperSize()) == size);
+    }
+
+    private static int slot(int color, int duplex, int size) {
+        return (color * DUPLEXES.length + duplex) * SIZES.length + size;
+    }
+
+    private static int indexOf(Enum<?>[] values, String name) {
+        if (name == null) {
+            return -1;
+        }
+        for (Enum<?> value : values) {
+            if (value.name().equalsIgnoreCase(name)) {
+                return value.ordinal();
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,27 @@
+package com.printercloud.service;
+
+/**
+ * 内存价格表，计价时读取当前快照，不访问数据库
+ */
+public interface PriceTable {
+
+    /**
+     * 当前价格快照
+     */
+    PriceSnapshot current();
+
+    /**
+     * 从数据库重新加载并替换快照
+     */
+    void reload();
+
+    /**
+     * 在当前事务内递增价格版本号，提交后重新加载并通知其他节点（同一事务内多次调用只执行一次）；无事务时立即执行
+     */
+    void reloadAfterCommit();
+
+    /**
+     * 收到其他节点的变更通知，指纹与本地快照不同时重新加载
+     */
+    void onRemoteChange(String fingerprint);
+}
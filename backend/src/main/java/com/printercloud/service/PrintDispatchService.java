@@ -0,0 +1,18 @@
+package com.printercloud.service;
+
+/**
+ * 打印调度：多节点各自按批认领已支付订单，通过订单上的租约保证同一订单只被一个节点打印，
+ * 节点崩溃后租约到期的订单会被重新认领。
+ */
+public interface PrintDispatchService {
+
+    /**
+     * 认领一批订单并交给打印处理器，返回本次认领的订单数
+     */
+    int dispatchOnce();
+
+    /**
+     * 本节点正在处理的订单数
+     */
+    int inFlight();
+}
@@ -0,0 +1,14 @@
+package com.printercloud.service;
+
+import com.printercloud.entity.Order;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 打印作业处理扩展点：调度器认领订单后交给处理器执行实际打印。
+ * 处理器不应阻塞调用线程，打印完成或失败时通过返回的 CompletionStage 通知调度器。
+ */
+public interface PrintJobHandler {
+
+    CompletionStage<Void> handle(Order order);
+}
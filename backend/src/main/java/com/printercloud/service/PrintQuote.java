@@ -0,0 +1,47 @@
+package com.printercloud.service;
+
+import com.printercloud.common.Money;
+
+import java.math.BigDecimal;
+
+/**
+ * 一次打印报价结果，金额以分为单位；小计恒等于单价乘以张数
+ */
+public final class PrintQuote {
+
+    private final long unitFen;
+    private final long sheets;
+    private final long totalFen;
+    private final long priceVersion;
+
+    public PrintQuote(long unitFen, long sheets, long priceVersion) {
+        this.unitFen = unitFen;
+        this.sheets = sheets;
+        this.totalFen = Money.multiply(unitFen, sheets);
+        this.priceVersion = priceVersion;
+    }
+
+    public long getUnitFen() {
+        return unitFen;
+    }
+
+    public long getSheets() {
+        return sheets;
+    }
+
+    public long getTotalFen() {
+        return totalFen;
+    }
+
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    public BigDecimal getUnitPrice() {
+        return Money.toYuan(unitFen);
+    }
+
+    public BigDecimal getTotalPrice() {
+        return Money.toYuan(totalFen);
+    }
+}
@@ -0,0 +1,29 @@
+package com.printercloud.service;
+
+import com.printercloud.entity.Order;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 打印假脱机：按 读取文件 → 转换 → 规范纸张 → 双面/拼版 的流水线提前准备文档，
+ * 使打印机完成当前作业后可以立即开始下一个
+ */
+public interface PrintSpooler {
+
+    /**
+     * 异步准备订单的打印文档，不阻塞调用方
+     */
+    CompletableFuture<SpooledDocument> spool(Order order);
+
+    /**
+     * 把同一台打印机上多个订单已准备好的PDF合并为一个作业：各订单前插入分隔页，内容按订单份数展开，
+     * 合并结果按1份打印；传入的文档仍由调用方释放
+     */
+    CompletableFuture<SpooledDocument> combine(List<Order> orders, List<SpooledDocument> documents);
+
+    /**
+     * 打印结束或不再需要时释放文档占用的临时文件
+     */
+    void release(SpooledDocument document);
+}
@@ -0,0 +1,15 @@
+package com.printercloud.service;
+
+import com.printercloud.entity.Order;
+import com.printercloud.entity.Printer;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 打印机驱动扩展点：把一个订单及其已准备好的文档提交到指定设备，设备打印完成或失败时通知调用方。
+ * 同一设备上的作业由调用方串行提交。
+ */
+public interface PrinterDriver {
+
+    CompletionStage<Void> print(Printer printer, Order order, SpooledDocument document);
+}
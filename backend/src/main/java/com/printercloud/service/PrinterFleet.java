@@ -0,0 +1,28 @@
+package com.printercloud.service;
+
+import com.printercloud.dto.response.PrinterStatusResponse;
+import com.printercloud.entity.Order;
+
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 打印机集群：为每台打印机维护内存作业队列，按路由策略把订单分配到最合适的设备
+ */
+public interface PrinterFleet {
+
+    /**
+     * 路由并排入设备队列，设备打印完成或失败时通知；没有可用打印机时立即失败
+     */
+    CompletionStage<Void> submit(Order order);
+
+    /**
+     * 从数据库重新加载打印机列表
+     */
+    void reload();
+
+    /**
+     * 各打印机的队列与健康状态
+     */
+    List<PrinterStatusResponse> status();
+}
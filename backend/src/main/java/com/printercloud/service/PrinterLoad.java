@@ -0,0 +1,21 @@
+package com.printercloud.service;
+
+import com.printercloud.entity.Printer;
+
+/**
+ * 路由时看到的打印机负载视图
+ */
+public interface PrinterLoad {
+
+    Printer getPrinter();
+
+    /**
+     * 尚未打完的页数（排队中与正在打印的作业）
+     */
+    long getQueuedPages();
+
+    /**
+     * 打印速度（页/分钟）
+     */
+    double getPagesPerMinute();
+}
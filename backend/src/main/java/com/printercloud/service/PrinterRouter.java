@@ -0,0 +1,47 @@
+package com.printercloud.service;
+
+import java.util.List;
+
+/**
+ * 按路由策略从候选打印机中选出一台；候选应已按能力和可用性过滤。
+ * 轮询策略带有状态，每个调用方应持有自己的实例。
+ */
+public final class PrinterRouter {
+
+    private final RoutingPolicy policy;
+    private int next;
+
+    public PrinterRouter(RoutingPolicy policy) {
+        this.policy = policy;
+    }
+
+    public RoutingPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * 选择打印机，没有候选时返回 null
+     */
+    public synchronized <T extends PrinterLoad> T choose(List<T> candidates, long jobPages) {
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        if (policy == RoutingPolicy.ROUND_ROBIN) {
+            T chosen = candidates.get(Math.floorMod(next, candidates.size()));
+            next++;
+            return chosen;
+        }
+        T best = null;
+        double bestScore = Double.MAX_VALUE;
+        for (T candidate : candidates) {
+            double score = policy == RoutingPolicy.LEAST_QUEUE
+                    ? candidate.getQueuedPages()
+                    : (candidate.getQueuedPages() + jobPages) / Math.max(candidate.getPagesPerMinute(), 0.1);
+            if (score < bestScore) {
+                bestScore = score;
+                best = candidate;
+            }
+        }
+        return best;
+    }
+}
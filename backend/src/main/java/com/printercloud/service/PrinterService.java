@@ -0,0 +1,30 @@
+package com.printercloud.service;
+
+import com.printercloud.dto.request.FleetSimulationRequest;
+import com.printercloud.dto.request.PrinterRequest;
+import com.printercloud.dto.response.FleetSimulationResponse;
+import com.printercloud.entity.Printer;
+
+import java.util.List;
+
+/**
+ * 打印机管理服务接口
+ */
+public interface PrinterService {
+
+    List<Printer> getPrinters();
+
+    /**
+     * 新建或更新打印机，保存后刷新打印机集群
+     */
+    Printer savePrinter(PrinterRequest request);
+
+    boolean togglePrinterStatus(Long id);
+
+    boolean deletePrinter(Long id);
+
+    /**
+     * 用回放的订单流比较路由策略
+     */
+    FleetSimulationResponse simulate(FleetSimulationRequest request);
+}
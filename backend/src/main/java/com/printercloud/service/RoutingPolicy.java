@@ -0,0 +1,22 @@
+package com.printercloud.service;
+
+/**
+ * 打印机路由策略
+ */
+public enum RoutingPolicy {
+
+    /**
+     * 预计完成时间最早：(排队页数 + 本作业页数) / 打印速度，按速度加权的默认策略
+     */
+    FASTEST_FINISH,
+
+    /**
+     * 排队页数最少，不考虑速度差异
+     */
+    LEAST_QUEUE,
+
+    /**
+     * 在满足能力要求的打印机之间轮询
+     */
+    ROUND_ROBIN
+}
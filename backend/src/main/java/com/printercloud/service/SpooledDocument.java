@@ -0,0 +1,43 @@
+package com.printercloud.service;
+
+import java.io.File;
+
+/**
+ * 打印前处理完成、可直接发送给设备的文档；temporary 为 true 时是假脱机目录中的中间文件，打印结束后由假脱机释放
+ */
+public final class SpooledDocument {
+
+    private final File file;
+    private final String format;
+    private final int pages;
+    private final boolean temporary;
+
+    public SpooledDocument(File file, String format, int pages, boolean temporary) {
+        this.file = file;
+        this.format = format;
+        this.pages = pages;
+        this.temporary = temporary;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * MIME类型，如 application/pdf
+     */
+    public String getFormat() {
+        return format;
+    }
+
+    /**
+     * 单份的页数（拼版后为面数）
+     */
+    public int getPages() {
+        return pages;
+    }
+
+    public boolean isTemporary() {
+        return temporary;
+    }
+}
@@ -0,0 +1,11 @@
+package com.printercloud.service;
+
+/**
+ * 提供本节点的订单号节点编号（0-999），同一时刻各节点的编号互不相同
+ */
+public interface WorkerIdProvider {
+
+    int MAX_WORKER_ID = 999;
+
+    int workerId();
+}
@@ -0,0 +1,329 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.common.DigestUtils;
+import com.printercloud.dto.request.InitChunkUploadRequest;
+import com.printercloud.dto.response.FileUploadResponse;
+import com.printercloud.dto.response.UploadSessionResponse;
+import com.printercloud.entity.UploadChunk;
+import com.printercloud.entity.UploadSession;
+import com.printercloud.repository.UploadChunkRepository;
+import com.printercloud.repository.UploadSessionRepository;
+import com.printercloud.service.ChunkUploadService;
+import com.printercloud.service.FileBlobService;
+import com.printercloud.service.FileService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ChunkUploadServiceImpl implements ChunkUploadService {
+
+    private final UploadSessionRepository uploadSessionRepository;
+    private final UploadChunkRepository uploadChunkRepository;
+    private final FileService fileService;
+    private final FileBlobService fileBlobService;
+
+    private static final String CHUNK_DIR = "uploads/chunks";
+
+    /**
+     * 本节点正在合并的会话，清理时跳过
+     */
+    private final Set<String> assembling = ConcurrentHashMap.newKeySet();
+
+    @Value("${file.upload.chunk.size:5242880}")
+    private int chunkSize;
+
+    @Value("${file.upload.chunk.session-ttl-minutes:1440}")
+    private long sessionTtlMinutes;
+
+    /**
+     * 合并中的会话超过该时长未更新视为合并节点已崩溃，可以清理
+     */
+    @Value("${file.upload.chunk.assembling-timeout-minutes:60}")
+    private long assemblingTimeoutMinutes;
+
+    /**
+     * 已完成会话的保留时长，期间客户端可查询合并结果
+     */
+    @Value("${file.upload.chunk.completed-retention-minutes:1440}")
+    private long completedRetentionMinutes;
+
+    @Value("${file.upload.max-file-size:209715200}")
+    private long maxFileSize;
+
+    @Value("${file.upload.buffer-size:65536}")
+    private int bufferSize;
+
+    @Override
+    public UploadSessionResponse init(InitChunkUploadRequest request, Long userId) {
+        if (request.getFileSize() > maxFileSize) {
+            throw new IllegalArgumentException("文件大小超出限制");
+        }
+        UploadSession s = new UploadSession();
+        s.setSessionId(UUID.randomUUID().toString().replace("-", ""));
+        s.setUserId(userId);
+        s.setFileName(request.getFileName());
+        s.setMimeType(request.getMimeType());
+        s.setFileSize(request.getFileSize());
+        s.setFileHash(request.getFileHash() != null ? request.getFileHash().toLowerCase() : null);
+        s.setChunkSize(chunkSize);
+        s.setTotalChunks((int) ((request.getFileSize() + chunkSize - 1) / chunkSize));
+        s.setStatus(UploadSession.Status.UPLOADING.getCode());
+        s.setExpireTime(LocalDateTime.now().plusMinutes(sessionTtlMinutes));
+        uploadSessionRepository.save(s);
+        return toResponse(s);
+    }
+
+    @Override
+    public UploadSessionResponse uploadChunk(String sessionId, int index, InputStream data, String chunkHash, Long userId) {
+        UploadSession s = requireActiveSession(sessionId, userId);
+        if (index < 0 || index >= s.getTotalChunks()) {
+            throw new IllegalArgumentException("分片序号无效");
+        }
+        long expected = s.expectedChunkSize(index);
+
+        File dir = chunkDir(sessionId);
+        File part = new File(dir, index + "." + UUID.randomUUID() + ".tmp");
+        MessageDigest md5 = DigestUtils.md5();
+        long size;
+        try (OutputStream out = Files.newOutputStream(part.toPath())) {
+            size = DigestUtils.copy(data, out, md5, bufferSize, expected);
+        } catch (IOException e) {
+            part.delete();
+            throw new RuntimeException("保存分片失败", e);
+        } catch (IllegalArgumentException e) {
+            part.delete();
+            throw new IllegalArgumentException("分片大小不正确");
+        }
+        String hash = DigestUtils.toHex(md5.digest());
+        if (size != expected) {
+            part.delete();
+            throw new IllegalArgumentException("分片大小不正确: 期望" + expected + "字节，实际" + size + "字节");
+        }
+        if (chunkHash != null && !chunkHash.isEmpty() && !chunkHash.equalsIgnoreCase(hash)) {
+            part.delete();
+            throw new IllegalArgumentException("分片校验失败，请重新上传");
+        }
+
+        try {
+            Files.move(part.toPath(), chunkFile(sessionId, index).toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            part.delete();
+            throw new RuntimeException("保存分片失败", e);
+        }
+
+        UploadChunk chunk = uploadChunkRepository.findBySessionIdAndChunkIndex(sessionId, index).orElseGet(UploadChunk::new);
+        chunk.setSessionId(sessionId);
+        chunk.setChunkIndex(index);
+        chunk.setChunkSize(size);
+        chunk.setChunkHash(hash);
+        try {
+            uploadChunkRepository.save(chunk);
+        } catch (DataIntegrityViolationException e) {
+            // 同一分片被并发重复上传，内容已校验一致，忽略
+            log.debug("分片重复上传: session={}, index={}", sessionId, index);
+        }
+        return toResponse(s);
+    }
+
+    @Override
+    public UploadSessionResponse status(String sessionId, Long userId) {
+        UploadSession s = uploadSessionRepository.findBySessionIdAndUserId(sessionId, userId)
+                .orElseThrow(() -> new IllegalArgumentException("上传会话不存在"));
+        return toResponse(s);
+    }
+
+    @Override
+    public FileUploadResponse complete(String sessionId, Long userId) {
+        UploadSession s = requireActiveSession(sessionId, userId);
+        List<UploadChunk> chunks = uploadChunkRepository.findBySessionIdOrderByChunkIndexAsc(sessionId);
+        if (chunks.size() != s.getTotalChunks()) {
+            throw new IllegalArgumentException("分片未全部上传: " + chunks.size() + "/" + s.getTotalChunks());
+        }
+        if (uploadSessionRepository.compareAndSetStatus(sessionId,
+                UploadSession.Status.UPLOADING.getCode(), UploadSession.Status.ASSEMBLING.getCode()) == 0) {
+            throw new IllegalArgumentException("上传会话正在合并或已完成");
+        }
+
+        assembling.add(sessionId);
+        File assembled = assembledFile(sessionId);
+        FileUploadResponse resp = null;
+        try {
+            String hash = assemble(s, chunks, assembled);
+            if (s.getFileHash() != null && !s.getFileHash().isEmpty() && !s.getFileHash().equals(hash)) {
+                assembled.delete();
+                discard(s, UploadSession.Status.ASSEMBLING.getCode());
+                throw new IllegalArgumentException("文件校验失败，请重新上传");
+            }
+
+            resp = fileService.saveUploaded(assembled, hash, s.getFileName(), s.getMimeType(), userId);
+
+            s.setStatus(UploadSession.Status.COMPLETED.getCode());
+            s.setFileId(resp.getId());
+            uploadSessionRepository.save(s);
+            uploadChunkRepository.deleteBySessionId(sessionId);
+            deleteDir(chunkDir(sessionId));
+            return resp;
+        } catch (RuntimeException e) {
+            if (resp != null && completeAfterSave(sessionId, resp, userId, e)) {
+                return resp;
+            }
+            // 合并或保存失败：删除合并文件，分片仍在，恢复为上传中以便客户端重试
+            assembled.delete();
+            uploadSessionRepository.compareAndSetStatus(sessionId,
+                    UploadSession.Status.ASSEMBLING.getCode(), UploadSession.Status.UPLOADING.getCode());
+            throw e;
+        } finally {
+            assembling.remove(sessionId);
+        }
+    }
+
+    /**
+     * 文件已保存但更新会话或清理分片失败：会话直接记为已完成，分片留给过期清理；
+     * 会话已无法标记时删除刚保存的文件，再由调用方恢复为上传中
+     */
+    private boolean completeAfterSave(String sessionId, FileUploadResponse resp, Long userId, RuntimeException cause) {
+        try {
+            if (uploadSessionRepository.markCompleted(sessionId, resp.getId()) > 0) {
+                log.warn("分片上传文件已保存，会话收尾失败，分片稍后清理: session={}, fileId={}, error={}",
+                        sessionId, resp.getId(), cause.getMessage());
+                return true;
+            }
+        } catch (RuntimeException e) {
+            log.warn("标记上传会话完成失败: session={}, error={}", sessionId, e.getMessage());
+        }
+        try {
+            fileService.delete(resp.getId(), userId);
+        } catch (RuntimeException e) {
+            log.error("回退分片上传时删除已保存文件失败: session={}, fileId={}", sessionId, resp.getId(), e);
+        }
+        return false;
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${file.upload.chunk.cleanup-interval-ms:600000}")
+    public void cleanupExpiredSessions() {
+        LocalDateTime now = LocalDateTime.now();
+        List<UploadSession> expired = uploadSessionRepository.findExpiredSessions(now,
+                now.minusMinutes(assemblingTimeoutMinutes), now.minusMinutes(completedRetentionMinutes));
+        int removed = 0;
+        for (UploadSession s : expired) {
+            if (assembling.contains(s.getSessionId())) {
+                continue;
+            }
+            if (discard(s, s.getStatus())) {
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            log.info("清理分片上传会话: {}个", removed);
+        }
+    }
+
+    /**
+     * 按序号顺序合并分片，逐片核对MD5，同时计算整文件MD5
+     */
+    private String assemble(UploadSession s, List<UploadChunk> chunks, File target) {
+        MessageDigest fileMd5 = DigestUtils.md5();
+        try (OutputStream out = Files.newOutputStream(target.toPath())) {
+            for (UploadChunk c : chunks) {
+                File f = chunkFile(s.getSessionId(), c.getChunkIndex());
+                MessageDigest chunkMd5 = DigestUtils.md5();
+                try (InputStream in = Files.newInputStream(f.toPath())) {
+                    DigestUtils.copy(in, new DigestOutputStream(out, fileMd5), chunkMd5, bufferSize, -1);
+                }
+                if (!DigestUtils.toHex(chunkMd5.digest()).equals(c.getChunkHash())) {
+                    throw new IllegalArgumentException("分片" + c.getChunkIndex() + "已损坏，请重新上传该分片");
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("合并分片失败", e);
+        }
+        return DigestUtils.toHex(fileMd5.digest());
+    }
+
+    private UploadSession requireActiveSession(String sessionId, Long userId) {
+        UploadSession s = uploadSessionRepository.findBySessionIdAndUserId(sessionId, userId)
+                .orElseThrow(() -> new IllegalArgumentException("上传会话不存在"));
+        if (!UploadSession.Status.UPLOADING.getCode().equals(s.getStatus())) {
+            throw new IllegalArgumentException("上传会话正在合并或已完成");
+        }
+        if (s.isExpired()) {
+            throw new IllegalArgumentException("上传会话已过期，请重新上传");
+        }
+        return s;
+    }
+
+    /**
+     * 会话仍处于指定状态时删除会话及其分片和合并残留文件，状态已变化时不处理
+     */
+    private boolean discard(UploadSession s, String status) {
+        if (uploadSessionRepository.deleteBySessionIdAndStatus(s.getSessionId(), status) == 0) {
+            return false;
+        }
+        uploadChunkRepository.deleteBySessionId(s.getSessionId());
+        deleteDir(chunkDir(s.getSessionId()));
+        File assembled = assembledFile(s.getSessionId());
+        if (assembled.exists()) {
+            assembled.delete();
+        }
+        return true;
+    }
+
+    private File assembledFile(String sessionId) {
+        return new File(fileBlobService.tempDir(), sessionId + ".part");
+    }
+
+    private File chunkDir(String sessionId) {
+        File dir = new File(CHUNK_DIR, sessionId);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    private File chunkFile(String sessionId, int index) {
+        return new File(chunkDir(sessionId), index + ".chunk");
+    }
+
+    private void deleteDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    private UploadSessionResponse toResponse(UploadSession s) {
+        UploadSessionResponse resp = new UploadSessionResponse();
+        resp.setSessionId(s.getSessionId());
+        resp.setChunkSize(s.getChunkSize());
+        resp.setTotalChunks(s.getTotalChunks());
+        resp.setStatus(s.getStatus());
+        resp.setFileId(s.getFileId());
+        resp.setExpireTime(s.getExpireTime());
+        resp.setUploadedChunks(uploadChunkRepository.findBySessionIdOrderByChunkIndexAsc(s.getSessionId()).stream()
+                .map(UploadChunk::getChunkIndex)
+                .collect(Collectors.toList()));
+        return resp;
+    }
+}
@@ -0,0 +1,139 @@
+package com.printercloud.service.impl;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * 从DOCX的docProps/app.xml读取Word保存时记录的页数，只读取zip中央目录和两个属性条目，不渲染文档。
+ * 元数据缺失、由不可信的程序生成或可能已被其他程序改写时返回-1，由调用方转换为PDF后计算。
+ * <p>
+ * python-docx、POI 等库改写正文时保留原有的 app.xml 和 core.xml，但会以保存时刻重新写入所有条目；
+ * 而 Office 写入的条目时间固定为 1980-01-01，其他可信程序写入的条目时间不晚于 core.xml 记录的修改时间。
+ * 条目时间与 app.xml 声明的程序、core.xml 记录的修改时间不一致时，说明归档在最后一次保存后被改写，页数不可信。
+ */
+final class DocxPageCountReader {
+
+    private static final String APP_XML = "docProps/app.xml";
+    private static final String CORE_XML = "docProps/core.xml";
+
+    /**
+     * 条目时间固定为 1980-01-01 的程序
+     */
+    private static final String FIXED_TIME_APPLICATION = "Microsoft Office";
+
+    /**
+     * zip条目时间为写入方本地时间，core.xml为UTC，比较时允许的最大时区差
+     */
+    private static final long TIMEZONE_SLACK_MILLIS = 14 * 3600_000L;
+
+    private static final XMLInputFactory XML_FACTORY = newFactory();
+
+    private DocxPageCountReader() {
+    }
+
+    static int countPages(File file, List<String> trustedApplications) {
+        try (ZipFile zip = new ZipFile(file)) {
+            ZipEntry app = zip.getEntry(APP_XML);
+            ZipEntry core = zip.getEntry(CORE_XML);
+            if (app == null || core == null) {
+                return -1;
+            }
+            String[] props;
+            try (InputStream in = zip.getInputStream(app)) {
+                props = readElements(in, "Application", "Pages");
+            }
+            String application = props[0];
+            String pages = props[1];
+            if (application == null || pages == null || !isTrusted(application, trustedApplications)) {
+                return -1;
+            }
+            String modified;
+            try (InputStream in = zip.getInputStream(core)) {
+                modified = readElements(in, "modified")[0];
+            }
+            if (modified == null || rewrittenAfterSave(zip, application, Instant.parse(modified.trim()))) {
+                return -1;
+            }
+            int n = Integer.parseInt(pages.trim());
+            return n > 0 ? n : -1;
+        } catch (IOException | XMLStreamException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 条目时间与声明的程序或最后保存时间不符时视为被其他程序改写过
+     */
+    private static boolean rewrittenAfterSave(ZipFile zip, String application, Instant modified) {
+        boolean fixedTime = application.startsWith(FIXED_TIME_APPLICATION);
+        long latest = modified.toEpochMilli() + TIMEZONE_SLACK_MILLIS;
+        Enumeration<? extends ZipEntry> entries = zip.entries();
+        while (entries.hasMoreElements()) {
+            long time = entries.nextElement().getTime();
+            if (fixedTime ? !isDosEpoch(time) : time > latest) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isDosEpoch(long time) {
+        LocalDateTime local = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+        return local.getYear() == 1980 && local.getDayOfYear() == 1;
+    }
+
+    /**
+     * 按本地名读取各元素第一次出现时的文本，未出现的为null
+     */
+    private static String[] readElements(InputStream in, String... names) throws XMLStreamException {
+        String[] result = new String[names.length];
+        int found = 0;
+        XMLStreamReader reader = XML_FACTORY.createXMLStreamReader(in);
+        try {
+            while (reader.hasNext() && found < names.length) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+                    String local = reader.getLocalName();
+                    for (int i = 0; i < names.length; i++) {
+                        if (result[i] == null && names[i].equals(local)) {
+                            result[i] = reader.getElementText();
+                            found++;
+                            break;
+                        }
+                    }
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return result;
+    }
+
+    private static boolean isTrusted(String application, List<String> trustedApplications) {
+        for (String trusted : trustedApplications) {
+            String t = trusted.trim();
+            if (!t.isEmpty() && application.startsWith(t)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static XMLInputFactory newFactory() {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
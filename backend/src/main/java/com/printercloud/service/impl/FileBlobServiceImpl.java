@@ -0,0 +1,117 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.FileBlob;
+import com.printercloud.repository.FileBlobRepository;
+import com.printercloud.service.FileBlobService;
+import com.printercloud.service.PdfArtifactCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FileBlobServiceImpl implements FileBlobService {
+
+    private final FileBlobRepository fileBlobRepository;
+    private final PdfArtifactCache pdfArtifactCache;
+
+    private static final String BLOB_DIR = "uploads/blobs";
+    private static final String TEMP_DIR = "uploads/tmp";
+
+    /**
+     * 登记内容：已有记录时增加引用，否则把临时文件移入本次登记专用的存储路径再插入记录。
+     * 并发登记同一内容时插入失败的一方改为增加引用并删除自己的文件；若此时记录又已被删除则用自己的文件重新插入
+     */
+    @Override
+    public FileBlob acquire(File tempFile, String hash) {
+        File target = null;
+        while (true) {
+            if (fileBlobRepository.incrementRefCount(hash) > 0) {
+                deleteQuietly(target != null ? target : tempFile);
+                return fileBlobRepository.findByFileHash(hash)
+                        .orElseThrow(() -> new IllegalStateException("文件内容记录丢失: " + hash));
+            }
+            if (target == null) {
+                target = blobPath(hash);
+                moveInto(tempFile, target);
+            }
+            FileBlob blob = new FileBlob();
+            blob.setFileHash(hash);
+            blob.setStoragePath(target.getAbsolutePath());
+            blob.setFileSize(target.length());
+            blob.setRefCount(1);
+            try {
+                return fileBlobRepository.saveAndFlush(blob);
+            } catch (DataIntegrityViolationException e) {
+                log.debug("文件内容已由其他请求登记: {}", hash);
+            }
+        }
+    }
+
+    /**
+     * 释放引用：计数与删除都按记录ID进行，删除的是该记录自己的存储文件，
+     * 同一内容在其他节点重新登记时使用新的存储路径，不会被误删
+     */
+    @Override
+    public void release(String hash) {
+        fileBlobRepository.findByFileHash(hash).ifPresent(blob -> {
+            fileBlobRepository.decrementRefCount(blob.getId());
+            if (fileBlobRepository.deleteIfUnreferenced(blob.getId()) > 0) {
+                deleteQuietly(new File(blob.getStoragePath()));
+                pdfArtifactCache.evict(hash);
+                log.info("文件内容已无引用，删除: {}", hash);
+            }
+        });
+    }
+
+    @Override
+    public void updatePageCount(String hash, int pageCount) {
+        fileBlobRepository.updatePageCount(hash, pageCount);
+    }
+
+    @Override
+    public File tempDir() {
+        File dir = new File(TEMP_DIR);
+        if (!dir.exists()) dir.mkdirs();
+        return dir;
+    }
+
+    /**
+     * 每次登记使用带随机后缀的路径，同一内容删除后重新登记不会与正在删除的旧文件共用路径
+     */
+    private File blobPath(String hash) {
+        String prefix = hash.length() >= 2 ? hash.substring(0, 2) : "00";
+        File dir = new File(BLOB_DIR, prefix);
+        if (!dir.exists()) dir.mkdirs();
+        return new File(dir, hash + "-" + UUID.randomUUID().toString().substring(0, 8));
+    }
+
+    private void moveInto(File source, File target) {
+        Path from = source.toPath();
+        Path to = target.toPath();
+        try {
+            try {
+                Files.move(from, to, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(from, to);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("保存文件失败", e);
+        }
+    }
+
+    private void deleteQuietly(File f) {
+        if (f != null && f.exists() && !f.delete()) {
+            log.warn("删除文件失败: {}", f.getAbsolutePath());
+        }
+    }
+}
@@ -1,35 +1,80 @@
 package com.printercloud.service.impl;
 
+import com.printercloud.exception.ConversionUnavailableException;
 import com.printercloud.exception.PageCountException;
 import com.printercloud.service.FilePageCounterService;
 import com.printercloud.service.OnlyOfficeConvertClient;
-import lombok.RequiredArgsConstructor;
+import com.printercloud.service.PdfArtifactCache;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.pdfbox.io.MemoryUsageSetting;
 import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class FilePageCounterServiceImpl implements FilePageCounterService {
 
     private final OnlyOfficeConvertClient onlyOfficeConvertClient;
+    private final PdfArtifactCache pdfArtifactCache;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 可信任其docProps/app.xml页数的生成程序（按前缀匹配Application）
+     */
+    @Value("#{'${file.page-count.docx.trusted-applications:Microsoft Office Word,WPS Office}'.split(',')}")
+    private List<String> trustedDocxApplications;
+
+    private final AtomicLong docxMetadataHits = new AtomicLong();
+    private final AtomicLong docxMetadataMisses = new AtomicLong();
+
+    public FilePageCounterServiceImpl(OnlyOfficeConvertClient onlyOfficeConvertClient,
+                                      PdfArtifactCache pdfArtifactCache,
+                                      MeterRegistry meterRegistry) {
+        this.onlyOfficeConvertClient = onlyOfficeConvertClient;
+        this.pdfArtifactCache = pdfArtifactCache;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("file.pagecount.docx.metadata.hit.ratio", this, FilePageCounterServiceImpl::docxMetadataHitRatio)
+                .description("DOCX页数直接取自元数据（无需转换）的比例")
+                .register(meterRegistry);
+    }
 
     @Override
-    public int countPages(File file, String originalName, String contentType) {
+    public int countPages(File file, String fileHash, String originalName, String contentType) {
         String name = originalName != null ? originalName.toLowerCase() : "";
         try {
             if (name.endsWith(".pdf")) {
-                try (PDDocument doc = PDDocument.load(file)) {
-                    return doc.getNumberOfPages();
+                return countPdfPages(file);
+            }
+            if (name.endsWith(".docx")) {
+                // 优先使用Word保存时记录的页数，缺失或不可信时才走OnlyOffice转换
+                int pages = DocxPageCountReader.countPages(file, trustedDocxApplications);
+                if (pages > 0) {
+                    docxMetadataHits.incrementAndGet();
+                    meterRegistry.counter("file.pagecount.docx.metadata", "result", "hit").increment();
+                    return pages;
                 }
+                docxMetadataMisses.incrementAndGet();
+                meterRegistry.counter("file.pagecount.docx.metadata", "result", "miss").increment();
             }
             if (name.endsWith(".doc") || name.endsWith(".docx")) {
-                File pdf = onlyOfficeConvertClient.convertToPdf(file, name.endsWith(".docx") ? "docx" : "doc");
-                try (PDDocument doc = PDDocument.load(pdf)) {
-                    return doc.getNumberOfPages();
+                String ext = name.endsWith(".docx") ? "docx" : "doc";
+                if (fileHash != null) {
+                    // 转换结果留在缓存中，供打印与预览复用
+                    try (PdfArtifactCache.Artifact pdf = pdfArtifactCache.acquire(fileHash, file, ext)) {
+                        return countPdfPages(pdf.getFile());
+                    }
+                }
+                File pdf = onlyOfficeConvertClient.convertToPdf(file, ext);
+                try {
+                    return countPdfPages(pdf);
                 } finally {
                     // 删除临时PDF
                     if (pdf != null && pdf.exists()) pdf.delete();
@@ -44,10 +89,39 @@ public class FilePageCounterServiceImpl implements FilePageCounterService {
             throw new PageCountException("不支持的文件类型");
         } catch (PageCountException e) {
             throw e;
+        } catch (ConversionUnavailableException e) {
+            // 转换服务熔断或繁忙时快速失败，页数记为未知
+            log.warn("文档转换不可用，页数待确认: {} -> {}", originalName, e.getMessage());
+            throw new PageCountException("文档转换服务繁忙，页数暂无法解析", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PageCountException("页数解析被中断", e);
         } catch (Exception e) {
             log.warn("页数解析失败: {} -> {}", originalName, e.toString());
             throw new PageCountException("页数解析失败，请重试或上传PDF", e);
         }
     }
+
+    private double docxMetadataHitRatio() {
+        long hits = docxMetadataHits.get();
+        long total = hits + docxMetadataMisses.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /**
+     * 优先只读取交叉引用与页面树根节点的/Count；结构无法识别时回退到PDFBox，并使用临时文件缓冲避免占用堆内存
+     */
+    private int countPdfPages(File pdf) throws IOException {
+        int pages = PdfPageCountReader.countPages(pdf);
+        if (pages > 0) {
+            meterRegistry.counter("file.pagecount.pdf", "path", "fast").increment();
+            return pages;
+        }
+        meterRegistry.counter("file.pagecount.pdf", "path", "fallback").increment();
+        log.debug("PDF结构无法快速解析，回退到PDFBox: {}", pdf.getName());
+        try (PDDocument doc = PDDocument.load(pdf, MemoryUsageSetting.setupTempFileOnly())) {
+            return doc.getNumberOfPages();
+        }
+    }
 }
 
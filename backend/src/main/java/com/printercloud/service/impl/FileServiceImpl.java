@@ -1,20 +1,36 @@
 package com.printercloud.service.impl;
 
+import com.printercloud.common.DigestUtils;
+import com.printercloud.common.KeysetCursor;
+import com.printercloud.dto.response.CursorPage;
 import com.printercloud.dto.response.FileUploadResponse;
+import com.printercloud.dto.response.PageCountResponse;
+import com.printercloud.entity.FileBlob;
 import com.printercloud.entity.FileInfo;
 import com.printercloud.repository.FileInfoRepository;
+import com.printercloud.service.FileBlobService;
 import com.printercloud.service.FileService;
+import com.printercloud.service.PageCountCache;
+import com.printercloud.service.PageCountTaskService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.util.DigestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
+import java.security.MessageDigest;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
@@ -23,8 +39,26 @@ public class FileServiceImpl implements FileService {
 
     private final FileInfoRepository fileInfoRepository;
     private final com.printercloud.service.FilePageCounterService filePageCounterService;
+    private final FileBlobService fileBlobService;
+    private final PageCountTaskService pageCountTaskService;
+    private final PageCountCache pageCountCache;
 
-    private static final String UPLOAD_DIR = "uploads";
+    /**
+     * 上传写盘缓冲区大小（字节），单次上传占用的堆内存与文件大小无关
+     */
+    @Value("${file.upload.buffer-size:65536}")
+    private int uploadBufferSize;
+
+    /**
+     * 升级后为已有记录回填内容ID，删除时据此决定释放内容引用还是删除独占文件
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillBlobIds() {
+        int updated = fileInfoRepository.backfillBlobIds();
+        if (updated > 0) {
+            log.info("回填文件内容ID: {}条", updated);
+        }
+    }
 
     @Override
     public FileUploadResponse upload(MultipartFile file, String fileName, Long userId) {
@@ -32,48 +66,136 @@ public class FileServiceImpl implements FileService {
             throw new IllegalArgumentException("文件不能为空");
         }
         String finalName = (fileName == null || fileName.trim().isEmpty()) ? file.getOriginalFilename() : fileName;
-        String storedName = System.currentTimeMillis() + "_" + finalName;
-
-        File dir = new File(UPLOAD_DIR);
-        if (!dir.exists()) dir.mkdirs();
-        File dest = new File(dir, storedName);
 
-        try (FileOutputStream fos = new FileOutputStream(dest)) {
-            fos.write(file.getBytes());
+        // 流式写入临时文件，同时计算MD5，避免整文件读入内存
+        File temp = new File(fileBlobService.tempDir(), UUID.randomUUID() + ".part");
+        String hash;
+        try (InputStream in = file.getInputStream()) {
+            hash = copyWithDigest(in, temp);
         } catch (IOException e) {
+            if (temp.exists()) temp.delete();
             throw new RuntimeException("保存文件失败", e);
         }
 
-        String hash;
-        try {
-            hash = DigestUtils.md5DigestAsHex(Files.readAllBytes(dest.toPath()));
-        } catch (IOException e) {
-            hash = "";
-        }
+        return saveUploaded(temp, hash, finalName, file.getContentType(), userId);
+    }
+
+    @Override
+    public FileUploadResponse saveUploaded(File tempFile, String hash, String fileName, String contentType, Long userId) {
+        // 相同内容只保存一份，重复上传直接复用已有内容及其页数
+        FileBlob blob = fileBlobService.acquire(tempFile, hash);
+        File stored = new File(blob.getStoragePath());
 
         FileInfo fi = new FileInfo();
         fi.setUserId(userId);
-        fi.setOriginalName(finalName);
-        fi.setStoredName(storedName);
-        fi.setFilePath(dest.getAbsolutePath());
-        fi.setFileSize(dest.length());
-        String type = getTypeFromName(finalName);
+        fi.setOriginalName(fileName);
+        fi.setStoredName(stored.getName());
+        fi.setFilePath(blob.getStoragePath());
+        fi.setFileSize(blob.getFileSize());
+        String type = getTypeFromName(fileName);
         fi.setFileType(type);
-        fi.setMimeType(file.getContentType());
+        fi.setMimeType(contentType);
         fi.setFileHash(hash);
+        fi.setBlobId(blob.getId());
         fi.setCreatedTime(LocalDateTime.now());
         fi.setUpdatedTime(LocalDateTime.now());
-        // 计算页数（解析失败时保存文件但页数为0，交由前端后续手动输入）
+        boolean async = false;
+        Integer cached = blob.getPageCount() != null ? blob.getPageCount() : pageCountCache.get(hash, type);
         int pages;
-        try {
-            pages = filePageCounterService.countPages(dest, finalName, file.getContentType());
-        } catch (com.printercloud.exception.PageCountException e) {
+        if (cached != null) {
+            pages = cached;
+            if (blob.getPageCount() == null) {
+                fileBlobService.updatePageCount(hash, pages);
+            }
+        } else if (pageCountTaskService.isAsync(fileName)) {
+            // PDF/Word页数在后台解析，先以待解析状态返回
             pages = 0;
-            log.warn("页数解析失败，文件仍保存：{}", e.getMessage());
+            async = true;
+            fi.setPageCountStatus(FileInfo.PageCountStatus.PENDING.getCode());
+        } else {
+            // 计算页数（解析失败时保存文件但页数为0，交由前端后续手动输入）
+            try {
+                pages = filePageCounterService.countPages(stored, hash, fileName, contentType);
+                fileBlobService.updatePageCount(hash, pages);
+                pageCountCache.put(hash, type, pages);
+            } catch (com.printercloud.exception.PageCountException e) {
+                pages = 0;
+                fi.setPageCountStatus(FileInfo.PageCountStatus.FAILED.getCode());
+                log.warn("页数解析失败，文件仍保存：{}", e.getMessage());
+            }
         }
         fi.setPageCount(pages);
         fileInfoRepository.save(fi);
+        if (async && !pageCountTaskService.submit(hash, stored, fileName, contentType)) {
+            // 队列已满时按失败保存，返回结果与数据库记录一致
+            fi.setPageCountStatus(FileInfo.PageCountStatus.FAILED.getCode());
+            fileInfoRepository.save(fi);
+        }
+
+        return toResponse(fi, LocalDateTime.now());
+    }
 
+    @Override
+    public CursorPage<FileUploadResponse> listFilesByCursor(Long userId, String cursor, int size, boolean withTotal) {
+        // 多取一行用于判断是否还有下一页
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<FileInfo> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = fileInfoRepository.findFirstByUserIdOrderByKey(userId, limit);
+        } else {
+            KeysetCursor key = KeysetCursor.decode(cursor);
+            rows = fileInfoRepository.findByUserIdAfterKey(userId, key.getCreatedTime(), key.getId(), limit);
+        }
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        CursorPage<FileUploadResponse> result = new CursorPage<>();
+        result.setContent(rows.stream().map(fi -> toResponse(fi, fi.getCreatedTime())).collect(Collectors.toList()));
+        result.setHasMore(hasMore);
+        if (hasMore) {
+            FileInfo last = rows.get(rows.size() - 1);
+            result.setNextCursor(new KeysetCursor(last.getCreatedTime(), last.getId()).encode());
+        }
+        if (withTotal) {
+            result.setTotal(fileInfoRepository.countByUserIdAndStatus(userId, FileInfo.Status.NORMAL.getCode()));
+        }
+        return result;
+    }
+
+    @Override
+    public boolean delete(Long fileId, Long userId) {
+        return fileInfoRepository.findByIdAndUserId(fileId, userId).map(fi -> {
+            fileInfoRepository.deleteById(fi.getId());
+            if (fi.getBlobId() != null) {
+                fileBlobService.release(fi.getFileHash());
+            } else {
+                // 内容寻址存储之前上传的文件，独占磁盘文件
+                File f = new File(fi.getFilePath());
+                if (f.exists()) f.delete();
+            }
+            return true;
+        }).orElse(false);
+    }
+
+    @Override
+    public FileInfo info(Long fileId, Long userId) {
+        return fileInfoRepository.findByIdAndUserId(fileId, userId).orElse(null);
+    }
+
+    @Override
+    public PageCountResponse pageCount(Long fileId, Long userId) {
+        return fileInfoRepository.findByIdAndUserId(fileId, userId).map(fi -> {
+            PageCountResponse resp = new PageCountResponse();
+            resp.setFileId(fi.getId());
+            resp.setPageCount(fi.getPageCount());
+            resp.setPageCountStatus(fi.getPageCountStatus());
+            return resp;
+        }).orElse(null);
+    }
+
+    private FileUploadResponse toResponse(FileInfo fi, LocalDateTime uploadTime) {
         FileUploadResponse resp = new FileUploadResponse();
         resp.setId(fi.getId());
         resp.setOriginalName(fi.getOriginalName());
@@ -82,28 +204,25 @@ public class FileServiceImpl implements FileService {
         resp.setFileType(fi.getFileType());
         resp.setFileTypeIcon(fi.getFileTypeIcon());
         resp.setPageCount(fi.getPageCount());
+        resp.setPageCountStatus(fi.getPageCountStatus());
         resp.setWidth(fi.getWidth());
         resp.setHeight(fi.getHeight());
         resp.setFileHash(fi.getFileHash());
-        resp.setUploadTime(LocalDateTime.now());
+        resp.setUploadTime(uploadTime);
         resp.setIsImage(fi.isImage());
         resp.setIsDocument(fi.isDocument());
         return resp;
     }
 
-    @Override
-    public boolean delete(Long fileId, Long userId) {
-        return fileInfoRepository.findByIdAndUserId(fileId, userId).map(fi -> {
-            File f = new File(fi.getFilePath());
-            if (f.exists()) f.delete();
-            fileInfoRepository.deleteById(fi.getId());
-            return true;
-        }).orElse(false);
-    }
-
-    @Override
-    public FileInfo info(Long fileId, Long userId) {
-        return fileInfoRepository.findByIdAndUserId(fileId, userId).orElse(null);
+    /**
+     * 通过固定大小缓冲区将输入流拷贝到目标文件，并在同一遍中计算MD5
+     */
+    private String copyWithDigest(InputStream in, File dest) throws IOException {
+        MessageDigest md5 = DigestUtils.md5();
+        try (OutputStream out = Files.newOutputStream(dest.toPath())) {
+            DigestUtils.copy(in, out, md5, uploadBufferSize, -1);
+        }
+        return DigestUtils.toHex(md5.digest());
     }
 
     private String getTypeFromName(String name) {
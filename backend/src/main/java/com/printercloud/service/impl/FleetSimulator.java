@@ -0,0 +1,145 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.dto.response.FleetSimulationResponse;
+import com.printercloud.entity.Printer;
+import com.printercloud.service.PrinterLoad;
+import com.printercloud.service.PrinterRouter;
+import com.printercloud.service.RoutingPolicy;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 离散事件模拟：按到达顺序回放订单，用与线上相同的 PrinterRouter 分配设备，
+ * 每台设备按FIFO以固定速度打印，统计总完成时间与排队等待分布。
+ */
+final class FleetSimulator {
+
+    /**
+     * 模拟订单，pages 为页数×份数
+     */
+    static final class SimOrder {
+        final long arrivalMs;
+        final long pages;
+        final String colorType;
+        final String paperSize;
+        final String duplex;
+
+        SimOrder(long arrivalMs, long pages, String colorType, String paperSize, String duplex) {
+            this.arrivalMs = arrivalMs;
+            this.pages = pages;
+            this.colorType = colorType;
+            this.paperSize = paperSize;
+            this.duplex = duplex;
+        }
+    }
+
+    private static final class SimDevice implements PrinterLoad {
+        final Printer printer;
+        final double ppm;
+        double now;
+        double freeAt;
+        double busyMs;
+        int jobs;
+        long pages;
+
+        SimDevice(Printer printer, double ppm) {
+            this.printer = printer;
+            this.ppm = ppm;
+        }
+
+        @Override
+        public Printer getPrinter() {
+            return printer;
+        }
+
+        @Override
+        public long getQueuedPages() {
+            return (long) Math.ceil(Math.max(0, freeAt - now) * ppm / 60000);
+        }
+
+        @Override
+        public double getPagesPerMinute() {
+            return ppm;
+        }
+    }
+
+    private FleetSimulator() {
+    }
+
+    /**
+     * @param orders 需已按到达时间排序
+     */
+    static FleetSimulationResponse.PolicyResult run(List<Printer> printers, List<SimOrder> orders, RoutingPolicy policy) {
+        PrinterRouter router = new PrinterRouter(policy);
+        List<SimDevice> devices = new ArrayList<>();
+        for (Printer printer : printers) {
+            devices.add(new SimDevice(printer, printer.getEffectivePpm()));
+        }
+
+        double[] waits = new double[orders.size()];
+        int routed = 0;
+        int unroutable = 0;
+        double first = orders.isEmpty() ? 0 : orders.get(0).arrivalMs;
+        double lastEnd = first;
+        List<SimDevice> candidates = new ArrayList<>();
+        for (SimOrder order : orders) {
+            candidates.clear();
+            for (SimDevice device : devices) {
+                device.now = order.arrivalMs;
+                if (device.printer.supports(order.colorType, order.paperSize, order.duplex)) {
+                    candidates.add(device);
+                }
+            }
+            SimDevice chosen = router.choose(candidates, order.pages);
+            if (chosen == null) {
+                unroutable++;
+                continue;
+            }
+            double start = Math.max(order.arrivalMs, chosen.freeAt);
+            double duration = order.pages * 60000.0 / chosen.ppm;
+            chosen.freeAt = start + duration;
+            chosen.busyMs += duration;
+            chosen.jobs++;
+            chosen.pages += order.pages;
+            waits[routed++] = start - order.arrivalMs;
+            lastEnd = Math.max(lastEnd, chosen.freeAt);
+        }
+
+        double[] sorted = Arrays.copyOf(waits, routed);
+        Arrays.sort(sorted);
+        double makespan = lastEnd - first;
+        FleetSimulationResponse.PolicyResult result = new FleetSimulationResponse.PolicyResult();
+        result.setPolicy(policy.name());
+        result.setMakespanSeconds(round(makespan / 1000));
+        result.setMeanWaitSeconds(round(Arrays.stream(sorted).average().orElse(0) / 1000));
+        result.setP95WaitSeconds(round(percentile(sorted, 0.95) / 1000));
+        result.setP99WaitSeconds(round(percentile(sorted, 0.99) / 1000));
+        result.setMaxWaitSeconds(round(routed == 0 ? 0 : sorted[routed - 1] / 1000));
+        result.setUnroutable(unroutable);
+        List<FleetSimulationResponse.PrinterUsage> usages = new ArrayList<>();
+        for (SimDevice device : devices) {
+            FleetSimulationResponse.PrinterUsage usage = new FleetSimulationResponse.PrinterUsage();
+            usage.setName(device.printer.getName());
+            usage.setJobs(device.jobs);
+            usage.setPages(device.pages);
+            usage.setUtilization(makespan > 0 ? round(device.busyMs / makespan) : 0.0);
+            usages.add(usage);
+        }
+        result.setPrinters(usages);
+        return result;
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
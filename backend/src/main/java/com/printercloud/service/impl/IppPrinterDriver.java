@@ -0,0 +1,141 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.Order;
+import com.printercloud.entity.Printer;
+import com.printercloud.ipp.IppClient;
+import com.printercloud.ipp.IppJobTracker;
+import com.printercloud.ipp.IppMessage;
+import com.printercloud.service.PrinterDriver;
+import com.printercloud.service.SpooledDocument;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IPP打印机驱动：设备地址取 Printer.deviceUri（ipp:// 或 ipps://），
+ * 以 Print-Job 或 Create-Job + Send-Document 流式发送假脱机准备好的文档，再由 {@link IppJobTracker} 轮询作业状态。
+ * 提交在独立线程池中执行，上传不阻塞调用线程。
+ */
+@Slf4j
+public class IppPrinterDriver implements PrinterDriver {
+
+    private final IppClient client;
+    private final IppJobTracker tracker;
+    private final boolean createJob;
+    private final String userName;
+    private final ExecutorService submitExecutor;
+    private final MeterRegistry meterRegistry;
+
+    public IppPrinterDriver(IppClient client,
+                            IppJobTracker tracker,
+                            MeterRegistry meterRegistry,
+                            int submitThreads,
+                            boolean createJob,
+                            String userName) {
+        this.client = client;
+        this.tracker = tracker;
+        this.meterRegistry = meterRegistry;
+        this.createJob = createJob;
+        this.userName = userName;
+        AtomicInteger seq = new AtomicInteger();
+        this.submitExecutor = Executors.newFixedThreadPool(submitThreads, r -> {
+            Thread t = new Thread(r, "ipp-submit-" + seq.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Gauge.builder("print.ipp.tracked", tracker, IppJobTracker::activeJobs)
+                .description("等待打印机完成的IPP作业数").register(meterRegistry);
+    }
+
+    @Override
+    public CompletionStage<Void> print(Printer printer, Order order, SpooledDocument document) {
+        String printerUri = printer.getDeviceUri();
+        if (printerUri == null || printerUri.trim().isEmpty()) {
+            CompletableFuture<Void> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("打印机未配置设备地址: " + printer.getName()));
+            return failed;
+        }
+        return CompletableFuture.supplyAsync(() -> submit(printerUri.trim(), order, document), submitExecutor)
+                .thenCompose(jobId -> tracker.track(printerUri.trim(), jobId));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        submitExecutor.shutdownNow();
+    }
+
+    private int submit(String printerUri, Order order, SpooledDocument document) {
+        long start = System.nanoTime();
+        String result = "error";
+        try {
+            int jobId;
+            if (createJob) {
+                IppMessage created = client.send(printerUri,
+                        jobRequest(IppMessage.CREATE_JOB, printerUri, order, document.getFormat()), null);
+                jobId = jobId(created);
+                IppMessage send = client.newRequest(IppMessage.SEND_DOCUMENT, printerUri)
+                        .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.INTEGER, "job-id", jobId)
+                        .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.NAME, "requesting-user-name", userName)
+                        .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.MIME_MEDIA_TYPE, "document-format", document.getFormat())
+                        .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.BOOLEAN, "last-document", true);
+                client.send(printerUri, send, document.getFile());
+            } else {
+                IppMessage request = jobRequest(IppMessage.PRINT_JOB, printerUri, order, document.getFormat());
+                jobId = jobId(client.send(printerUri, request, document.getFile()));
+            }
+            result = "ok";
+            log.debug("IPP作业已提交: {} {} job-id={}", order.getOrderNo(), printerUri, jobId);
+            return jobId;
+        } finally {
+            Timer.builder("print.ipp.submit")
+                    .tag("operation", createJob ? "create-job" : "print-job")
+                    .tag("result", result)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * 作业属性：份数、单双面、颜色和纸张按订单映射为IPP关键字
+     */
+    private IppMessage jobRequest(short operation, String printerUri, Order order, String format) {
+        // 操作属性分组必须在作业属性分组之前
+        return client.newRequest(operation, printerUri)
+                .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.NAME, "requesting-user-name", userName)
+                .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.NAME, "job-name", order.getOrderNo())
+                .add(IppMessage.OPERATION_ATTRIBUTES, IppMessage.MIME_MEDIA_TYPE, "document-format", format)
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.INTEGER, "copies", order.getCopies() != null ? order.getCopies() : 1)
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.KEYWORD, "sides", sides(order.getDuplex()))
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.KEYWORD, "print-color-mode", colorMode(order.getColorType()))
+                .add(IppMessage.JOB_ATTRIBUTES, IppMessage.KEYWORD, "media", media(order.getPaperSize()));
+    }
+
+    private static int jobId(IppMessage reply) {
+        Integer jobId = reply.getInt("job-id");
+        if (jobId == null) {
+            throw new IllegalStateException("IPP响应缺少job-id");
+        }
+        return jobId;
+    }
+
+    static String sides(String duplex) {
+        return Order.Duplex.DOUBLE.getCode().equals(duplex) ? "two-sided-long-edge" : "one-sided";
+    }
+
+    static String colorMode(String colorType) {
+        return Order.ColorType.COLOR.getCode().equals(colorType) ? "color" : "monochrome";
+    }
+
+    static String media(String paperSize) {
+        return Order.PaperSize.A3.getCode().equals(paperSize) ? "iso_a3_297x420mm" : "iso_a4_210x297mm";
+    }
+}
@@ -0,0 +1,21 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.Order;
+import com.printercloud.service.PrintJobHandler;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * 仅记录日志并立即视为打印完成，用于未接入打印机的开发环境
+ */
+@Slf4j
+public class LoggingPrintJobHandler implements PrintJobHandler {
+
+    @Override
+    public CompletionStage<Void> handle(Order order) {
+        log.info("模拟打印: orderNo={}, pages={}, copies={}", order.getOrderNo(), order.getEstimatedPages(), order.getCopies());
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -2,60 +2,310 @@ package com.printercloud.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.printercloud.common.CircuitBreaker;
+import com.printercloud.exception.ConversionUnavailableException;
 import com.printercloud.service.OnlyOfficeConvertClient;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.codec.binary.Base64InputStream;
+import org.apache.http.HttpEntity;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.util.LinkedMultiValueMap;
-import org.springframework.util.MultiValueMap;
-import org.springframework.web.client.RestTemplate;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collections;
 import java.util.UUID;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class OnlyOfficeConvertClientImpl implements OnlyOfficeConvertClient {
 
+    /**
+     * 与文档内容有关的错误码（转换失败、文档加密、输入错误），不计入服务健康
+     */
+    private static final int ERROR_CONVERSION = -3;
+    private static final int ERROR_PASSWORD = -5;
+    private static final int ERROR_INPUT = -7;
+
     @Value("${onlyoffice.url:http://onlyoffice:80}")
     private String onlyOfficeUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    /**
+     * 异步模式：提交后轮询转换结果，不在一个请求上等待整个转换过程
+     */
+    @Value("${onlyoffice.convert.async:true}")
+    private boolean asyncMode;
+
+    @Value("${onlyoffice.convert.poll-initial-ms:300}")
+    private long pollInitialMs;
+
+    @Value("${onlyoffice.convert.poll-max-ms:5000}")
+    private long pollMaxMs;
+
+    @Value("${onlyoffice.convert.timeout-ms:120000}")
+    private long convertTimeoutMs;
+
+    @Value("${onlyoffice.convert.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+
+    private final CloseableHttpClient onlyOfficeHttpClient;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore bulkhead;
+    private final CircuitBreaker circuitBreaker;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    public OnlyOfficeConvertClientImpl(CloseableHttpClient onlyOfficeHttpClient,
+                                       MeterRegistry meterRegistry,
+                                       @Value("${onlyoffice.convert.max-concurrent:4}") int maxConcurrent,
+                                       @Value("${onlyoffice.convert.breaker.failure-threshold:5}") int failureThreshold,
+                                       @Value("${onlyoffice.convert.breaker.open-ms:30000}") long openMs) {
+        this.onlyOfficeHttpClient = onlyOfficeHttpClient;
+        this.meterRegistry = meterRegistry;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openMs);
+        Gauge.builder("onlyoffice.convert.inflight", bulkhead, b -> maxConcurrent - b.availablePermits())
+                .description("正在进行的文档转换数")
+                .register(meterRegistry);
+        Gauge.builder("onlyoffice.convert.breaker.state", circuitBreaker, b -> b.getState().ordinal())
+                .description("文档转换熔断器状态：0关闭 1打开 2半开")
+                .register(meterRegistry);
+    }
+
     @Override
     public File convertToPdf(File sourceFile, String fileExt) throws Exception {
-        byte[] bytes = Files.readAllBytes(sourceFile.toPath());
-        String base64 = Base64.getEncoder().encodeToString(bytes);
-        String key = UUID.randomUUID().toString();
+        // 先占并发名额再问熔断器，避免半开探测被并发限制吞掉
+        if (!bulkhead.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+            meterRegistry.counter("onlyoffice.convert.rejected", "reason", "bulkhead").increment();
+            throw new ConversionUnavailableException("文档转换繁忙，请稍后再试");
+        }
+        try {
+            if (!circuitBreaker.tryAcquire()) {
+                meterRegistry.counter("onlyoffice.convert.rejected", "reason", "circuit_open").increment();
+                throw new ConversionUnavailableException("文档转换服务暂不可用");
+            }
+            long start = System.nanoTime();
+            String result = "error";
+            try {
+                File pdf = convert(sourceFile, fileExt);
+                circuitBreaker.onSuccess();
+                result = "success";
+                return pdf;
+            } catch (DocumentConvertException e) {
+                // 文档本身的问题说明服务可用
+                circuitBreaker.onSuccess();
+                throw e;
+            } catch (Exception e) {
+                circuitBreaker.onFailure();
+                throw e;
+            } finally {
+                Timer.builder("onlyoffice.convert.duration")
+                        .description("文档转换耗时")
+                        .tag("mode", asyncMode ? "async" : "sync")
+                        .tag("result", result)
+                        .register(meterRegistry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        } finally {
+            bulkhead.release();
+        }
+    }
 
+    private File convert(File sourceFile, String fileExt) throws Exception {
+        String key = UUID.randomUUID().toString();
         String url = onlyOfficeUrl.replaceAll("/$", "") + "/ConvertService.ashx";
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        headers.set("Accept", "application/json");
-
-        String body = String.format("{\n  \"async\": false,\n  \"filetype\": \"%s\",\n  \"key\": \"%s\",\n  \"outputtype\": \"pdf\",\n  \"title\": \"%s\",\n  \"inputType\": \"base64\",\n  \"file\": \"%s\"\n}",
-                fileExt.toLowerCase(), key, sourceFile.getName(), base64);
-
-        HttpEntity<String> entity = new HttpEntity<>(body, headers);
-        String resp = restTemplate.postForObject(url, entity, String.class);
-        JsonNode json = objectMapper.readTree(resp);
-        if (json == null || json.get("error") == null || json.get("error").asInt() != 0) {
-            int code = json != null && json.get("error") != null ? json.get("error").asInt() : -1;
-            throw new RuntimeException("OnlyOffice convert error code=" + code);
-        }
-        String fileUrl = json.get("fileUrl").asText();
-        byte[] pdfData = restTemplate.getForObject(fileUrl, byte[].class);
+        String head = "{\"async\":" + asyncMode
+                + ",\"filetype\":" + objectMapper.writeValueAsString(fileExt.toLowerCase())
+                + ",\"key\":" + objectMapper.writeValueAsString(key)
+                + ",\"outputtype\":\"pdf\"";
+
+        // 请求体按 前缀JSON + 流式Base64文件内容 + 后缀 写出，不在内存中拼接整个文件
+        String prefix = head
+                + ",\"title\":" + objectMapper.writeValueAsString(sourceFile.getName())
+                + ",\"inputType\":\"base64\""
+                + ",\"file\":\"";
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new Base64FileJsonEntity(prefix, sourceFile, "\"}"));
+        JsonNode json = postJson(post);
+
+        if (asyncMode) {
+            // 同一key再次请求只返回转换进度，无需重新上传文件
+            String pollBody = head + "}";
+            long deadline = System.currentTimeMillis() + convertTimeoutMs;
+            long delay = pollInitialMs;
+            while (!isFinished(json)) {
+                if (System.currentTimeMillis() + delay > deadline) {
+                    throw new IOException("OnlyOffice convert timeout key=" + key);
+                }
+                Thread.sleep(delay);
+                delay = Math.min(delay * 2, pollMaxMs);
+                HttpPost poll = new HttpPost(url);
+                poll.setEntity(new StringEntity(pollBody, ContentType.APPLICATION_JSON));
+                json = postJson(poll);
+            }
+        }
+        if (json.get("fileUrl") == null) {
+            throw new IOException("OnlyOffice convert returned no fileUrl");
+        }
+        return download(json.get("fileUrl").asText());
+    }
+
+    /**
+     * 转换结束（成功）返回true，仍在进行返回false，出错抛异常
+     */
+    private boolean isFinished(JsonNode json) throws IOException {
+        JsonNode error = json.get("error");
+        // error为0表示没有错误
+        if (error != null && error.asInt() != 0) {
+            int code = error.asInt();
+            if (code == ERROR_CONVERSION || code == ERROR_PASSWORD || code == ERROR_INPUT) {
+                throw new DocumentConvertException("OnlyOffice convert error code=" + code);
+            }
+            throw new IOException("OnlyOffice convert error code=" + code);
+        }
+        return json.path("endConvert").asBoolean(false) || json.get("fileUrl") != null;
+    }
+
+    private JsonNode postJson(HttpPost post) throws IOException {
+        post.setHeader("Accept", "application/json");
+        JsonNode json;
+        try (CloseableHttpResponse resp = onlyOfficeHttpClient.execute(post)) {
+            int status = resp.getStatusLine().getStatusCode();
+            if (status != 200 || resp.getEntity() == null) {
+                throw new IOException("OnlyOffice convert http status=" + status);
+            }
+            try (InputStream in = resp.getEntity().getContent()) {
+                json = objectMapper.readTree(in);
+            }
+        }
+        if (json == null || json.isMissingNode()) {
+            throw new IOException("OnlyOffice convert empty response");
+        }
+        if (!asyncMode) {
+            isFinished(json);
+        }
+        return json;
+    }
+
+    /**
+     * 将转换结果直接流式写入临时文件
+     */
+    private File download(String fileUrl) throws IOException {
         File pdf = File.createTempFile("oo-", ".pdf");
-        Files.write(pdf.toPath(), pdfData);
-        return pdf;
+        try (CloseableHttpResponse resp = onlyOfficeHttpClient.execute(new HttpGet(fileUrl))) {
+            int status = resp.getStatusLine().getStatusCode();
+            HttpEntity entity = resp.getEntity();
+            if (status != 200 || entity == null) {
+                throw new IOException("OnlyOffice download http status=" + status);
+            }
+            try (InputStream in = entity.getContent()) {
+                Files.copy(in, pdf.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return pdf;
+        } catch (IOException | RuntimeException e) {
+            pdf.delete();
+            throw e;
+        }
     }
-}
 
+    /**
+     * 以JSON字符串字段内嵌Base64文件内容的请求体，写出时边读文件边编码，内容长度可预先计算
+     */
+    private static class Base64FileJsonEntity extends AbstractHttpEntity {
+        private final byte[] prefix;
+        private final File file;
+        private final byte[] suffix;
+
+        Base64FileJsonEntity(String prefix, File file, String suffix) {
+            this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+            this.file = file;
+            this.suffix = suffix.getBytes(StandardCharsets.UTF_8);
+            setContentType(ContentType.APPLICATION_JSON.toString());
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            long encoded = 4 * ((file.length() + 2) / 3);
+            return prefix.length + encoded + suffix.length;
+        }
+
+        /**
+         * 每次调用都重新打开文件，重试时可重复读取
+         */
+        @Override
+        public InputStream getContent() throws IOException {
+            InputStream base64 = new Base64InputStream(Files.newInputStream(file.toPath()), true, 0, null);
+            return new SequenceInputStream(Collections.enumeration(Arrays.asList(
+                    new ByteArrayInputStream(prefix), base64, new ByteArrayInputStream(suffix))));
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(prefix);
+            try (OutputStream base64 = Base64.getEncoder().wrap(new NonClosingOutputStream(out))) {
+                Files.copy(file.toPath(), base64);
+            }
+            out.write(suffix);
+            out.flush();
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    /**
+     * 文档内容导致的转换失败
+     */
+    private static class DocumentConvertException extends RuntimeException {
+        DocumentConvertException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 关闭Base64编码流时只刷新补位，不关闭底层连接输出流
+     */
+    private static class NonClosingOutputStream extends FilterOutputStream {
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+}
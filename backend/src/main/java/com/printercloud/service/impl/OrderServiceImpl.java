@@ -1,29 +1,47 @@
 package com.printercloud.service.impl;
 
+import com.printercloud.common.KeysetCursor;
 import com.printercloud.dto.request.CreateOrderRequest;
+import com.printercloud.dto.response.CursorPage;
 import com.printercloud.dto.response.OrderResponse;
 import com.printercloud.entity.FileInfo;
 import com.printercloud.entity.Order;
 import com.printercloud.repository.FileInfoRepository;
 import com.printercloud.repository.OrderRepository;
+import com.printercloud.service.OrderNoGenerator;
 import com.printercloud.service.OrderService;
 import com.printercloud.service.PriceConfigService;
+import com.printercloud.service.PrintQuote;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.UUID;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class OrderServiceImpl implements OrderService {
 
+    private static final DateTimeFormatter QUERY_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 0, 0);
+
     private final OrderRepository orderRepository;
     private final FileInfoRepository fileInfoRepository;
     private final PriceConfigService priceConfigService;
+    private final OrderNoGenerator orderNoGenerator;
 
     @Override
     public OrderResponse createOrder(Long userId, CreateOrderRequest req) {
@@ -33,17 +51,20 @@ public class OrderServiceImpl implements OrderService {
             throw new IllegalArgumentException("文件不存在");
         }
         
+        if (req.getEstimatedPages() == null && fi.isPageCountPending()) {
+            throw new IllegalArgumentException("文件页数解析中，请稍后再试");
+        }
         int pages = req.getEstimatedPages() != null ? req.getEstimatedPages() : Math.max(1, fi.getPageCount());
         int copies = req.getPrintConfig().getCopies();
         String colorType = req.getPrintConfig().getColorType();
         String paperSize = req.getPrintConfig().getPaperSize();
         String duplex = req.getPrintConfig().getDuplex();
         
-        BigDecimal total = priceConfigService.calculatePrintPrice(colorType, paperSize, duplex, pages, copies);
-        BigDecimal unit = total.divide(BigDecimal.valueOf(pages)).divide(BigDecimal.valueOf(copies));
+        // 单价与总价直接取自同一次报价，不再由总价反除得到单价
+        PrintQuote quote = priceConfigService.quotePrint(colorType, paperSize, duplex, pages, copies, userId);
 
         Order o = new Order();
-        o.setOrderNo(genOrderNo());
+        o.setOrderNo(orderNoGenerator.next());
         o.setUserId(userId);
         o.setFileId(fi.getId());
         o.setCopies(copies);
@@ -51,8 +72,8 @@ public class OrderServiceImpl implements OrderService {
         o.setPaperSize(paperSize);
         o.setDuplex(duplex);
         o.setEstimatedPages(pages);
-        o.setUnitPrice(unit);
-        o.setTotalAmount(total);
+        o.setUnitPrice(quote.getUnitPrice());
+        o.setTotalAmount(quote.getTotalPrice());
         o.setStatus(Order.Status.PENDING_PAYMENT.getCode());
         o.setCreatedTime(LocalDateTime.now());
         o.setUpdatedTime(LocalDateTime.now());
@@ -63,13 +84,67 @@ public class OrderServiceImpl implements OrderService {
 
     @Override
     public Page<OrderResponse> listOrders(Long userId, int page, int pageSize, String status, String startTime, String endTime) {
+        // 未指定的边界取极值，保证始终是同一形状的索引范围查询
+        LocalDateTime start = parseTime(startTime, false);
+        LocalDateTime end = parseTime(endTime, true);
+        if (start == null) start = MIN_TIME;
+        if (end == null) end = MAX_TIME;
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("开始时间必须早于结束时间");
+        }
+
+        PageRequest pageable = PageRequest.of(page, pageSize);
         Page<Order> p;
         if (status != null && !status.isEmpty()) {
-            p = orderRepository.findByUserIdAndStatus(userId, status, PageRequest.of(page, pageSize));
+            p = orderRepository.findByUserIdAndStatusInRange(userId, status, start, end, pageable);
         } else {
-            p = orderRepository.findByUserId(userId, PageRequest.of(page, pageSize));
+            p = orderRepository.findByUserIdInRange(userId, start, end, pageable);
         }
-        return p.map(o -> toResponse(o, null));
+        return toResponsePage(p);
+    }
+
+    @Override
+    public CursorPage<OrderResponse> listOrdersByCursor(Long userId, String cursor, int size, boolean withTotal) {
+        // 多取一行用于判断是否还有下一页
+        PageRequest limit = PageRequest.of(0, size + 1);
+        List<Order> rows;
+        if (cursor == null || cursor.isEmpty()) {
+            rows = orderRepository.findFirstByUserIdOrderByKey(userId, limit);
+        } else {
+            KeysetCursor key = KeysetCursor.decode(cursor);
+            rows = orderRepository.findByUserIdAfterKey(userId, key.getCreatedTime(), key.getId(), limit);
+        }
+        boolean hasMore = rows.size() > size;
+        if (hasMore) {
+            rows = rows.subList(0, size);
+        }
+
+        CursorPage<OrderResponse> result = new CursorPage<>();
+        result.setContent(toResponsePage(new PageImpl<>(rows)).getContent());
+        result.setHasMore(hasMore);
+        if (hasMore) {
+            Order last = rows.get(rows.size() - 1);
+            result.setNextCursor(new KeysetCursor(last.getCreatedTime(), last.getId()).encode());
+        }
+        if (withTotal) {
+            result.setTotal(orderRepository.countByUserId(userId));
+        }
+        return result;
+    }
+
+    /**
+     * 一次查询取回当前页引用的全部文件，避免逐条查询文件信息
+     */
+    private Page<OrderResponse> toResponsePage(Page<Order> p) {
+        Set<Long> fileIds = p.getContent().stream()
+                .map(Order::getFileId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, FileInfo> files = fileIds.isEmpty()
+                ? Collections.emptyMap()
+                : fileInfoRepository.findAllById(fileIds).stream()
+                        .collect(Collectors.toMap(FileInfo::getId, Function.identity()));
+        return p.map(o -> toResponse(o, files.get(o.getFileId())));
     }
 
     @Override
@@ -103,8 +178,24 @@ public class OrderServiceImpl implements OrderService {
         }).orElse(false);
     }
 
-    private String genOrderNo() {
-        return "PRT" + UUID.randomUUID().toString().replaceAll("-", "").substring(0, 16).toUpperCase();
+    /**
+     * 解析查询时间，支持 yyyy-MM-dd 与 yyyy-MM-dd HH:mm:ss；
+     * 作为结束时间时只有日期表示包含当天，转换为次日零点（区间右开）
+     */
+    private LocalDateTime parseTime(String value, boolean end) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        String v = value.trim();
+        try {
+            if (v.length() == 10) {
+                LocalDate date = LocalDate.parse(v);
+                return end ? date.plusDays(1).atStartOfDay() : date.atStartOfDay();
+            }
+            return LocalDateTime.parse(v, QUERY_TIME_FORMAT);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("时间格式错误，应为yyyy-MM-dd或yyyy-MM-dd HH:mm:ss: " + v);
+        }
     }
 
     private OrderResponse toResponse(Order o, FileInfo fi) {
@@ -124,9 +215,6 @@ public class OrderServiceImpl implements OrderService {
         pc.setUnitPrice(o.getUnitPrice());
         resp.setPrintConfig(pc);
 
-        if (fi == null) {
-            fi = fileInfoRepository.findById(o.getFileId()).orElse(null);
-        }
         if (fi != null) {
             OrderResponse.FileInfoResponse fr = new OrderResponse.FileInfoResponse();
             fr.setId(fi.getId());
@@ -0,0 +1,130 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.service.PageCountCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 页数缓存：本地LRU一级缓存 + 可选的Redis共享二级缓存
+ */
+@Slf4j
+@Service
+public class PageCountCacheImpl implements PageCountCache {
+
+    private static final String REDIS_KEY_PREFIX = "printercloud:pagecount:";
+
+    private final ObjectProvider<StringRedisTemplate> redisTemplateProvider;
+    private final Map<String, Integer> local;
+    private final boolean redisEnabled;
+    private final long redisTtlHours;
+
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter redisHits;
+    private final Counter redisMisses;
+
+    public PageCountCacheImpl(ObjectProvider<StringRedisTemplate> redisTemplateProvider,
+                              MeterRegistry meterRegistry,
+                              @Value("${file.page-count.cache.local-max-entries:10000}") int localMaxEntries,
+                              @Value("${file.page-count.cache.redis.enabled:false}") boolean redisEnabled,
+                              @Value("${file.page-count.cache.redis.ttl-hours:720}") long redisTtlHours) {
+        this.redisTemplateProvider = redisTemplateProvider;
+        this.redisEnabled = redisEnabled;
+        this.redisTtlHours = redisTtlHours;
+        this.local = new LinkedHashMap<String, Integer>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Integer> eldest) {
+                return size() > localMaxEntries;
+            }
+        };
+
+        this.localHits = counter(meterRegistry, "local", "hit");
+        this.localMisses = counter(meterRegistry, "local", "miss");
+        this.redisHits = counter(meterRegistry, "redis", "hit");
+        this.redisMisses = counter(meterRegistry, "redis", "miss");
+        Gauge.builder("file.pagecount.cache.size", this, c -> c.localSize())
+                .description("本地页数缓存条目数")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Integer get(String fileHash, String fileType) {
+        if (fileHash == null || fileHash.isEmpty()) return null;
+        String key = key(fileHash, fileType);
+        Integer pages;
+        synchronized (local) {
+            pages = local.get(key);
+        }
+        if (pages != null) {
+            localHits.increment();
+            return pages;
+        }
+        localMisses.increment();
+
+        if (!redisEnabled) return null;
+        StringRedisTemplate redis = redisTemplateProvider.getIfAvailable();
+        if (redis == null) return null;
+        try {
+            String value = redis.opsForValue().get(REDIS_KEY_PREFIX + key);
+            if (value == null) {
+                redisMisses.increment();
+                return null;
+            }
+            redisHits.increment();
+            pages = Integer.valueOf(value);
+            synchronized (local) {
+                local.put(key, pages);
+            }
+            return pages;
+        } catch (RuntimeException e) {
+            log.debug("读取Redis页数缓存失败: {}", e.getMessage());
+            redisMisses.increment();
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String fileHash, String fileType, int pageCount) {
+        if (fileHash == null || fileHash.isEmpty()) return;
+        String key = key(fileHash, fileType);
+        synchronized (local) {
+            local.put(key, pageCount);
+        }
+        if (!redisEnabled) return;
+        StringRedisTemplate redis = redisTemplateProvider.getIfAvailable();
+        if (redis == null) return;
+        try {
+            redis.opsForValue().set(REDIS_KEY_PREFIX + key, String.valueOf(pageCount), redisTtlHours, TimeUnit.HOURS);
+        } catch (RuntimeException e) {
+            log.debug("写入Redis页数缓存失败: {}", e.getMessage());
+        }
+    }
+
+    private int localSize() {
+        synchronized (local) {
+            return local.size();
+        }
+    }
+
+    private static String key(String fileHash, String fileType) {
+        return fileHash + ":" + (fileType != null ? fileType.toUpperCase() : "");
+    }
+
+    private static Counter counter(MeterRegistry registry, String tier, String result) {
+        return Counter.builder("file.pagecount.cache")
+                .description("页数缓存命中情况")
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(registry);
+    }
+}
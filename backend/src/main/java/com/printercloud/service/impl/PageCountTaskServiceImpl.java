@@ -0,0 +1,188 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.FileInfo;
+import com.printercloud.exception.PageCountException;
+import com.printercloud.repository.FileInfoRepository;
+import com.printercloud.service.FileBlobService;
+import com.printercloud.service.FilePageCounterService;
+import com.printercloud.service.PageCountCache;
+import com.printercloud.service.PageCountTaskService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class PageCountTaskServiceImpl implements PageCountTaskService {
+
+    private final FilePageCounterService filePageCounterService;
+    private final FileBlobService fileBlobService;
+    private final FileInfoRepository fileInfoRepository;
+    private final PageCountCache pageCountCache;
+    private final ThreadPoolTaskExecutor executor;
+    private final MeterRegistry meterRegistry;
+    private final Counter rejectedCounter;
+    private final Counter recoveredCounter;
+
+    /**
+     * 待解析超过该时长视为任务已丢失（节点重启或崩溃），重新提交
+     */
+    @Value("${file.page-count.stale-minutes:10}")
+    private long staleMinutes;
+
+    @Value("${file.page-count.recovery-batch-size:100}")
+    private int recoveryBatchSize;
+
+    /**
+     * 正在排队或解析中的内容哈希，同一内容只解析一次
+     */
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public PageCountTaskServiceImpl(FilePageCounterService filePageCounterService,
+                                    FileBlobService fileBlobService,
+                                    FileInfoRepository fileInfoRepository,
+                                    PageCountCache pageCountCache,
+                                    @Qualifier("pageCountExecutor") ThreadPoolTaskExecutor executor,
+                                    MeterRegistry meterRegistry) {
+        this.filePageCounterService = filePageCounterService;
+        this.fileBlobService = fileBlobService;
+        this.fileInfoRepository = fileInfoRepository;
+        this.pageCountCache = pageCountCache;
+        this.executor = executor;
+        this.meterRegistry = meterRegistry;
+        this.rejectedCounter = Counter.builder("file.pagecount.rejected")
+                .description("页数解析队列已满被拒绝的任务数")
+                .register(meterRegistry);
+        this.recoveredCounter = Counter.builder("file.pagecount.recovered")
+                .description("任务丢失后重新提交的页数解析数")
+                .register(meterRegistry);
+        Gauge.builder("file.pagecount.queue.depth", executor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("等待解析页数的任务数")
+                .register(meterRegistry);
+        Gauge.builder("file.pagecount.workers.active", executor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("正在解析页数的线程数")
+                .register(meterRegistry);
+        Gauge.builder("file.pagecount.workers.utilization", executor,
+                        e -> e.getMaxPoolSize() == 0 ? 0 : (double) e.getActiveCount() / e.getMaxPoolSize())
+                .description("页数解析线程池利用率")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public boolean isAsync(String fileName) {
+        String name = fileName != null ? fileName.toLowerCase() : "";
+        return name.endsWith(".pdf") || name.endsWith(".doc") || name.endsWith(".docx");
+    }
+
+    @Override
+    public boolean submit(String fileHash, File file, String fileName, String contentType) {
+        if (!inFlight.add(fileHash)) {
+            // 同一内容已在解析，完成时会一并回填
+            return true;
+        }
+        try {
+            executor.execute(() -> run(fileHash, file, fileName, contentType));
+            return true;
+        } catch (TaskRejectedException e) {
+            inFlight.remove(fileHash);
+            rejectedCounter.increment();
+            log.warn("页数解析队列已满，放弃解析: {}", fileName);
+            fileInfoRepository.completePendingPageCount(fileHash, 0, FileInfo.PageCountStatus.FAILED.getCode());
+            return false;
+        }
+    }
+
+    /**
+     * 解析任务只在内存中排队，节点重启或崩溃后对应文件会一直停留在待解析状态，无法下单。
+     * 启动时及定时把长时间未完成的待解析文件重新提交；源文件已不存在时标记为失败，下单时改为同步计算
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${file.page-count.recovery-interval-ms:300000}",
+            initialDelayString = "${file.page-count.recovery-interval-ms:300000}")
+    public void recoverStalePending() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime before = now.minusMinutes(staleMinutes);
+            List<FileInfo> stale = fileInfoRepository.findStalePendingPageCounts(before, PageRequest.of(0, recoveryBatchSize));
+            Set<String> seen = new HashSet<>();
+            for (FileInfo fi : stale) {
+                String hash = fi.getFileHash();
+                if (hash == null) {
+                    fi.setPageCountStatus(FileInfo.PageCountStatus.FAILED.getCode());
+                    fileInfoRepository.save(fi);
+                    continue;
+                }
+                if (!seen.add(hash) || inFlight.contains(hash)
+                        || fileInfoRepository.claimStalePendingPageCount(hash, before, now) == 0) {
+                    continue;
+                }
+                File file = new File(fi.getFilePath());
+                if (!file.isFile()) {
+                    log.warn("待解析文件已不存在，标记为解析失败: {}", fi.getFilePath());
+                    fileInfoRepository.completePendingPageCount(hash, 0, FileInfo.PageCountStatus.FAILED.getCode());
+                    continue;
+                }
+                recoveredCounter.increment();
+                submit(hash, file, fi.getOriginalName(), fi.getMimeType());
+            }
+            if (!seen.isEmpty()) {
+                log.info("重新提交长时间未完成的页数解析: {}个内容", seen.size());
+            }
+        } catch (RuntimeException e) {
+            log.warn("恢复待解析页数失败: {}", e.getMessage());
+        }
+    }
+
+    private void run(String fileHash, File file, String fileName, String contentType) {
+        String type = typeTag(fileName);
+        long start = System.nanoTime();
+        int pages = 0;
+        // 未正常完成（包括栈溢出、内存不足等Error）时一律按失败回填，避免记录一直停留在解析中
+        String status = FileInfo.PageCountStatus.FAILED.getCode();
+        try {
+            pages = filePageCounterService.countPages(file, fileHash, fileName, contentType);
+            fileBlobService.updatePageCount(fileHash, pages);
+            pageCountCache.put(fileHash, type, pages);
+            status = FileInfo.PageCountStatus.DONE.getCode();
+        } catch (PageCountException e) {
+            log.warn("页数解析失败，文件仍保存：{}", e.getMessage());
+        } catch (RuntimeException e) {
+            log.error("页数解析异常: {}", fileName, e);
+        } finally {
+            Timer.builder("file.pagecount.duration")
+                    .description("页数解析耗时")
+                    .tag("type", type)
+                    .tag("result", status)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            // 先移出在途集合再回填，保证之后登记的待解析记录要么被本次回填覆盖，要么重新提交
+            inFlight.remove(fileHash);
+            fileInfoRepository.completePendingPageCount(fileHash, pages, status);
+        }
+    }
+
+    private String typeTag(String fileName) {
+        String name = fileName != null ? fileName.toLowerCase() : "";
+        int dot = name.lastIndexOf('.');
+        return dot >= 0 ? name.substring(dot + 1) : "unknown";
+    }
+}
@@ -0,0 +1,277 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.service.OnlyOfficeConvertClient;
+import com.printercloud.service.PdfArtifactCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Slf4j
+@Service
+public class PdfArtifactCacheImpl implements PdfArtifactCache {
+
+    private static final String ARTIFACT_DIR = "uploads/artifacts";
+    private static final String SUFFIX = ".pdf";
+
+    private final OnlyOfficeConvertClient onlyOfficeConvertClient;
+    private final long maxBytes;
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter bytesSavedCounter;
+
+    /**
+     * 内容哈希 -> PDF大小，按访问顺序排列，队首最久未使用
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    /**
+     * 内容哈希 -> 占用次数；被占用的条目不参与淘汰，已移除的条目在最后一次解除占用时删除文件
+     */
+    private final Map<String, Integer> pins = new HashMap<>();
+
+    /**
+     * 正在转换的内容，同一内容的并发请求等待同一次转换
+     */
+    private final Map<String, CompletableFuture<File>> converting = new ConcurrentHashMap<>();
+
+    public PdfArtifactCacheImpl(OnlyOfficeConvertClient onlyOfficeConvertClient,
+                                MeterRegistry meterRegistry,
+                                @Value("${file.artifact.max-size-mb:1024}") long maxSizeMb) {
+        this.onlyOfficeConvertClient = onlyOfficeConvertClient;
+        this.maxBytes = maxSizeMb * 1024 * 1024;
+        this.hitCounter = Counter.builder("file.artifact.cache").tag("result", "hit")
+                .description("转换PDF缓存命中次数").register(meterRegistry);
+        this.missCounter = Counter.builder("file.artifact.cache").tag("result", "miss")
+                .description("转换PDF缓存未命中次数").register(meterRegistry);
+        this.bytesSavedCounter = Counter.builder("file.artifact.bytes.saved")
+                .description("命中缓存免于重新转换的PDF字节数").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("file.artifact.cache.size", this, PdfArtifactCacheImpl::totalBytes)
+                .description("转换PDF缓存占用字节数").baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("file.artifact.cache.entries", this, PdfArtifactCacheImpl::entryCount)
+                .description("转换PDF缓存条目数").register(meterRegistry);
+    }
+
+    /**
+     * 启动时按最后修改时间从目录重建索引，清理上次异常退出留下的临时文件
+     */
+    @PostConstruct
+    public void init() {
+        File dir = new File(ARTIFACT_DIR);
+        if (!dir.exists() && !dir.mkdirs()) {
+            log.warn("无法创建转换PDF缓存目录: {}", dir.getAbsolutePath());
+            return;
+        }
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        synchronized (this) {
+            for (File f : files) {
+                String name = f.getName();
+                if (!name.endsWith(SUFFIX)) {
+                    f.delete();
+                    continue;
+                }
+                String hash = name.substring(0, name.length() - SUFFIX.length());
+                entries.put(hash, f.length());
+                totalBytes += f.length();
+            }
+            evictOverBudget();
+        }
+        log.info("转换PDF缓存已加载 {} 个文件，共 {} 字节", entries.size(), totalBytes);
+    }
+
+    @Override
+    public Artifact acquire(String fileHash, File source, String fileExt) throws Exception {
+        while (true) {
+            Artifact cached = pin(fileHash);
+            if (cached != null) {
+                hitCounter.increment();
+                bytesSavedCounter.increment(cached.getFile().length());
+                return cached;
+            }
+            CompletableFuture<File> mine = new CompletableFuture<>();
+            CompletableFuture<File> existing = converting.putIfAbsent(fileHash, mine);
+            if (existing == null) {
+                return convert(fileHash, source, fileExt, mine);
+            }
+            // 其他线程正在转换同一内容，完成后重新占用；期间被移除时重新转换
+            try {
+                existing.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof Exception ? (Exception) cause : e;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void evict(String fileHash) {
+        Long size = entries.remove(fileHash);
+        if (size == null) {
+            return;
+        }
+        totalBytes -= size;
+        if (!pins.containsKey(fileHash)) {
+            delete(fileHash);
+        }
+    }
+
+    private Artifact convert(String fileHash, File source, String fileExt, CompletableFuture<File> mine) throws Exception {
+        missCounter.increment();
+        try {
+            Artifact pdf = store(fileHash, onlyOfficeConvertClient.convertToPdf(source, fileExt));
+            mine.complete(pdf.getFile());
+            return pdf;
+        } catch (Exception e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            converting.remove(fileHash);
+        }
+    }
+
+    /**
+     * 已缓存时占用并返回，否则返回null
+     */
+    private synchronized Artifact pin(String fileHash) {
+        if (entries.get(fileHash) == null) {
+            return null;
+        }
+        File f = artifactPath(fileHash);
+        if (!f.exists()) {
+            totalBytes -= entries.remove(fileHash);
+            return null;
+        }
+        pins.merge(fileHash, 1, Integer::sum);
+        return new PinnedArtifact(fileHash, f);
+    }
+
+    private synchronized void unpin(String fileHash) {
+        Integer left = pins.computeIfPresent(fileHash, (k, n) -> n > 1 ? n - 1 : null);
+        if (left != null) {
+            return;
+        }
+        if (!entries.containsKey(fileHash)) {
+            // 占用期间已被移除
+            delete(fileHash);
+        } else {
+            evictOverBudget();
+        }
+    }
+
+    /**
+     * 转换结果先移入缓存目录中的临时文件（可能跨文件系统复制），再在同一目录内原子重命名为正式文件名，
+     * 读取方不会看到写了一半的PDF；写入后立即占用，不会被随后的淘汰删除
+     */
+    private Artifact store(String fileHash, File pdf) throws IOException {
+        File target = artifactPath(fileHash);
+        File staging = File.createTempFile(fileHash + "-", ".tmp", target.getParentFile());
+        try {
+            Files.move(pdf.toPath(), staging.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            long size = staging.length();
+            synchronized (this) {
+                Files.move(staging.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                Long old = entries.put(fileHash, size);
+                totalBytes += size - (old != null ? old : 0);
+                pins.merge(fileHash, 1, Integer::sum);
+                evictOverBudget();
+            }
+            return new PinnedArtifact(fileHash, target);
+        } finally {
+            if (pdf.exists()) {
+                pdf.delete();
+            }
+            if (staging.exists()) {
+                staging.delete();
+            }
+        }
+    }
+
+    /**
+     * 超出容量时从最久未使用的条目开始淘汰，被占用的条目跳过；调用方持有锁
+     */
+    private void evictOverBudget() {
+        int evicted = 0;
+        Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> e = it.next();
+            if (pins.containsKey(e.getKey())) {
+                continue;
+            }
+            totalBytes -= e.getValue();
+            it.remove();
+            delete(e.getKey());
+            evicted++;
+        }
+        if (evicted > 0) {
+            log.debug("转换PDF缓存超出容量，淘汰 {} 个文件", evicted);
+        }
+    }
+
+    /**
+     * 在锁内删除，避免与同一内容重新写入的文件交错
+     */
+    private void delete(String fileHash) {
+        File f = artifactPath(fileHash);
+        if (f.exists() && !f.delete()) {
+            log.warn("删除转换PDF缓存文件失败: {}", f.getAbsolutePath());
+        }
+    }
+
+    private synchronized long totalBytes() {
+        return totalBytes;
+    }
+
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+
+    private File artifactPath(String fileHash) {
+        return new File(ARTIFACT_DIR, fileHash + SUFFIX);
+    }
+
+    private final class PinnedArtifact implements Artifact {
+        private final String fileHash;
+        private final File file;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        PinnedArtifact(String fileHash, File file) {
+            this.fileHash = fileHash;
+            this.file = file;
+        }
+
+        @Override
+        public File getFile() {
+            return file;
+        }
+
+        @Override
+        public void close() {
+            if (closed.compareAndSet(false, true)) {
+                unpin(fileHash);
+            }
+        }
+    }
+}
@@ -0,0 +1,283 @@
+package com.printercloud.service.impl;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.multipdf.LayerUtility;
+import org.apache.pdfbox.multipdf.PDFMergerUtility;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.util.Matrix;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Point2D;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 打印前的PDF版面处理：图片转PDF、按纸张等比缩放居中、N合1拼版、双面补白页与多订单合并。
+ * 源页面作为表单对象引用，不重新编码页面内容；大文件使用临时文件缓冲。
+ */
+final class PdfImposer {
+
+    /**
+     * 页面尺寸与纸张相差在该范围内（pt）视为已符合
+     */
+    private static final float FIT_TOLERANCE = 3f;
+
+    private PdfImposer() {
+    }
+
+    static PDRectangle paper(String paperSize) {
+        return "A3".equals(paperSize) ? PDRectangle.A3 : PDRectangle.A4;
+    }
+
+    /**
+     * 图片按 72dpi 生成单页PDF，页面尺寸由后续规范纸张步骤调整
+     */
+    static void imageToPdf(File image, File out) throws IOException {
+        try (PDDocument doc = new PDDocument()) {
+            PDImageXObject img = PDImageXObject.createFromFileByContent(image, doc);
+            PDPage page = new PDPage(new PDRectangle(img.getWidth(), img.getHeight()));
+            doc.addPage(page);
+            try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+                cs.drawImage(img, 0, 0, img.getWidth(), img.getHeight());
+            }
+            doc.save(out);
+        }
+    }
+
+    /**
+     * 每页等比缩放到纸张并居中，横向页面使用横向纸张
+     *
+     * @return 页数；所有页面已符合纸张时不生成 out
+     */
+    static int normalize(File src, PDRectangle paper, File out) throws IOException {
+        try (PDDocument source = load(src)) {
+            if (fits(source, paper)) {
+                return source.getNumberOfPages();
+            }
+            try (PDDocument target = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+                LayerUtility layer = new LayerUtility(target);
+                for (PDPage page : source.getPages()) {
+                    Placed placed = Placed.of(layer, source, page);
+                    PDRectangle sheet = placed.landscape() ? landscape(paper) : paper;
+                    PDPage sheetPage = new PDPage(sheet);
+                    target.addPage(sheetPage);
+                    try (PDPageContentStream cs = new PDPageContentStream(target, sheetPage)) {
+                        placed.draw(cs, 0, 0, sheet.getWidth(), sheet.getHeight());
+                    }
+                }
+                target.save(out);
+                return target.getNumberOfPages();
+            }
+        }
+    }
+
+    /**
+     * N合1拼版（2合1横向左右排列，4合1纵向两行两列），padEven 时页数为奇数补一张白页，保证多份双面打印时每份从新纸开始
+     *
+     * @return 输出的页数；无需处理时返回 -1 且不输出
+     */
+    static int impose(File src, PDRectangle paper, int pagesPerSheet, boolean padEven, File out) throws IOException {
+        try (PDDocument source = load(src)) {
+            int pages = source.getNumberOfPages();
+            if (pagesPerSheet <= 1) {
+                if (!padEven || pages % 2 == 0) {
+                    return -1;
+                }
+                PDRectangle last = source.getPage(pages - 1).getMediaBox();
+                source.addPage(new PDPage(new PDRectangle(last.getWidth(), last.getHeight())));
+                source.save(out);
+                return pages + 1;
+            }
+            int cols = 2;
+            int rows = pagesPerSheet / 2;
+            PDRectangle sheet = rows == 1 ? landscape(paper) : paper;
+            float cellW = sheet.getWidth() / cols;
+            float cellH = sheet.getHeight() / rows;
+            try (PDDocument target = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+                LayerUtility layer = new LayerUtility(target);
+                for (int first = 0; first < pages; first += pagesPerSheet) {
+                    PDPage sheetPage = new PDPage(sheet);
+                    target.addPage(sheetPage);
+                    try (PDPageContentStream cs = new PDPageContentStream(target, sheetPage)) {
+                        for (int i = 0; i < pagesPerSheet && first + i < pages; i++) {
+                            int col = i % cols;
+                            int row = i / cols;
+                            Placed placed = Placed.of(layer, source, source.getPage(first + i));
+                            placed.draw(cs, col * cellW, sheet.getHeight() - (row + 1) * cellH, cellW, cellH);
+                        }
+                    }
+                }
+                if (padEven && target.getNumberOfPages() % 2 != 0) {
+                    target.addPage(new PDPage(sheet));
+                }
+                target.save(out);
+                return target.getNumberOfPages();
+            }
+        }
+    }
+
+    /**
+     * 多个订单合并为一个文档：每个订单前插入一张分隔页，内容按份数重复；
+     * duplex 时分隔页与每份内容都补齐为偶数页，保证各段从新纸开始
+     *
+     * @param labels 分隔页上打印的文字，每项一行，只支持ASCII字符
+     * @return 合并后的页数
+     */
+    static int combine(List<File> parts, List<List<String>> labels, List<Integer> copies, boolean duplex,
+                       PDRectangle paper, File out) throws IOException {
+        PDFMergerUtility merger = new PDFMergerUtility();
+        try (PDDocument target = new PDDocument(MemoryUsageSetting.setupTempFileOnly())) {
+            for (int i = 0; i < parts.size(); i++) {
+                addSeparator(target, paper, labels.get(i));
+                if (duplex) {
+                    target.addPage(new PDPage(paper));
+                }
+                try (PDDocument part = load(parts.get(i))) {
+                    for (int c = 0; c < copies.get(i); c++) {
+                        merger.appendDocument(target, part);
+                        if (duplex && part.getNumberOfPages() % 2 != 0) {
+                            target.addPage(new PDPage(paper));
+                        }
+                    }
+                }
+            }
+            target.save(out);
+            return target.getNumberOfPages();
+        }
+    }
+
+    private static void addSeparator(PDDocument doc, PDRectangle paper, List<String> lines) throws IOException {
+        PDPage page = new PDPage(paper);
+        doc.addPage(page);
+        try (PDPageContentStream cs = new PDPageContentStream(doc, page)) {
+            float margin = 56;
+            // 顶部粗条便于在出纸堆中识别分隔页
+            cs.addRect(margin, paper.getHeight() - margin - 24, paper.getWidth() - 2 * margin, 24);
+            cs.fill();
+            cs.beginText();
+            cs.setFont(PDType1Font.HELVETICA_BOLD, 18);
+            cs.setLeading(28);
+            cs.newLineAtOffset(margin, paper.getHeight() - margin - 64);
+            for (String line : lines) {
+                cs.showText(line);
+                cs.newLine();
+            }
+            cs.endText();
+        }
+    }
+
+    private static boolean fits(PDDocument doc, PDRectangle paper) {
+        for (PDPage page : doc.getPages()) {
+            PDRectangle box = page.getCropBox();
+            float w = box.getWidth();
+            float h = box.getHeight();
+            boolean portrait = near(w, paper.getWidth()) && near(h, paper.getHeight());
+            boolean rotated = near(w, paper.getHeight()) && near(h, paper.getWidth());
+            if (!portrait && !rotated) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean near(float a, float b) {
+        return Math.abs(a - b) <= FIT_TOLERANCE;
+    }
+
+    private static PDRectangle landscape(PDRectangle paper) {
+        return new PDRectangle(paper.getHeight(), paper.getWidth());
+    }
+
+    private static PDDocument load(File pdf) throws IOException {
+        return PDDocument.load(pdf, MemoryUsageSetting.setupTempFileOnly());
+    }
+
+    /**
+     * 导入为表单对象的源页面，页面旋转由绘制时的变换处理
+     */
+    private static final class Placed {
+        final PDFormXObject form;
+        final int rotation;
+        final float minX;
+        final float minY;
+        final float width;
+        final float height;
+
+        private Placed(PDFormXObject form, int rotation) {
+            this.form = form;
+            this.rotation = rotation;
+            // 表单矩阵作用于包围盒后得到内容在表单外部坐标中的实际范围
+            PDRectangle bbox = form.getBBox();
+            AffineTransform m = form.getMatrix().createAffineTransform();
+            float[] xs = new float[4];
+            float[] ys = new float[4];
+            float[][] corners = {{bbox.getLowerLeftX(), bbox.getLowerLeftY()}, {bbox.getUpperRightX(), bbox.getLowerLeftY()},
+                    {bbox.getLowerLeftX(), bbox.getUpperRightY()}, {bbox.getUpperRightX(), bbox.getUpperRightY()}};
+            for (int i = 0; i < 4; i++) {
+                Point2D p = m.transform(new Point2D.Float(corners[i][0], corners[i][1]), null);
+                xs[i] = (float) p.getX();
+                ys[i] = (float) p.getY();
+            }
+            this.minX = Math.min(Math.min(xs[0], xs[1]), Math.min(xs[2], xs[3]));
+            this.minY = Math.min(Math.min(ys[0], ys[1]), Math.min(ys[2], ys[3]));
+            this.width = Math.max(Math.max(xs[0], xs[1]), Math.max(xs[2], xs[3])) - minX;
+            this.height = Math.max(Math.max(ys[0], ys[1]), Math.max(ys[2], ys[3])) - minY;
+        }
+
+        static Placed of(LayerUtility layer, PDDocument source, PDPage page) throws IOException {
+            int rotation = ((page.getRotation() % 360) + 360) % 360;
+            // 旋转交由绘制变换处理，导入前清除源页面的 /Rotate
+            page.setRotation(0);
+            return new Placed(layer.importPageAsForm(source, page), rotation);
+        }
+
+        boolean quarterTurn() {
+            return rotation == 90 || rotation == 270;
+        }
+
+        boolean landscape() {
+            return quarterTurn() ? height > width : width > height;
+        }
+
+        /**
+         * 按显示方向等比缩放后居中绘制到指定区域
+         */
+        void draw(PDPageContentStream cs, float x, float y, float w, float h) throws IOException {
+            float visibleW = quarterTurn() ? height : width;
+            float visibleH = quarterTurn() ? width : height;
+            float scale = Math.min(w / visibleW, h / visibleH);
+            AffineTransform at = new AffineTransform();
+            at.translate(x + (w - visibleW * scale) / 2, y + (h - visibleH * scale) / 2);
+            at.scale(scale, scale);
+            // /Rotate 为顺时针显示角度
+            switch (rotation) {
+                case 90:
+                    at.translate(0, width);
+                    at.rotate(-Math.PI / 2);
+                    break;
+                case 180:
+                    at.translate(width, height);
+                    at.rotate(Math.PI);
+                    break;
+                case 270:
+                    at.translate(height, 0);
+                    at.rotate(Math.PI / 2);
+                    break;
+                default:
+                    break;
+            }
+            at.translate(-minX, -minY);
+            cs.saveGraphicsState();
+            cs.transform(new Matrix(at));
+            cs.drawForm(form);
+            cs.restoreGraphicsState();
+        }
+    }
+}
@@ -0,0 +1,834 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.exception.PageCountException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * 轻量PDF页数读取：只读取文件尾部的startxref、交叉引用表（或交叉引用流）以及页面树根节点的/Count，
+ * 通过随机访问通道按需读取，不加载整个文档。结构无法识别时返回-1，由调用方回退到PDFBox。
+ */
+final class PdfPageCountReader implements Closeable {
+
+    private static final int TAIL_SIZE = 8192;
+    private static final int MAX_XREF_SECTIONS = 64;
+    private static final int MAX_RESOLVE_DEPTH = 16;
+    private static final int MAX_STREAM_LENGTH = 64 * 1024 * 1024;
+    private static final int XREF_ENTRY_SIZE = 20;
+    /**
+     * 数组与字典的最大嵌套层数，超过时视为恶意构造的文件，避免递归解析栈溢出
+     */
+    private static final int MAX_NESTING_DEPTH = 128;
+
+    private final FileChannel channel;
+    private final long size;
+    private final ChannelSource source;
+    private final List<XrefSection> sections = new ArrayList<>();
+    private final Map<Integer, ObjectStream> objectStreams = new HashMap<>();
+    private Object rootRef;
+
+    private PdfPageCountReader(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        this.size = channel.size();
+        this.source = new ChannelSource(channel, size);
+    }
+
+    /**
+     * 读取PDF页数，无法通过轻量方式解析时返回-1
+     *
+     * @throws PageCountException 对象嵌套超过限制，不再回退到PDFBox
+     */
+    static int countPages(File file) {
+        try (PdfPageCountReader reader = new PdfPageCountReader(file)) {
+            return reader.count();
+        } catch (PageCountException e) {
+            throw e;
+        } catch (IOException | RuntimeException e) {
+            return -1;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int count() throws IOException {
+        loadXref(findStartXref());
+        if (rootRef == null) {
+            return -1;
+        }
+        Object catalog = resolve(rootRef, 0);
+        if (!(catalog instanceof Map)) {
+            return -1;
+        }
+        Object pages = resolve(((Map<?, ?>) catalog).get("/Pages"), 0);
+        if (!(pages instanceof Map)) {
+            return -1;
+        }
+        Object count = resolve(((Map<?, ?>) pages).get("/Count"), 0);
+        if (!(count instanceof Long)) {
+            return -1;
+        }
+        long n = (Long) count;
+        return n > 0 && n <= Integer.MAX_VALUE ? (int) n : -1;
+    }
+
+    // ---------------------------------------------------------------- 交叉引用
+
+    private long findStartXref() throws IOException {
+        int len = (int) Math.min(size, TAIL_SIZE);
+        byte[] tail = new byte[len];
+        readFully(size - len, tail);
+        String s = new String(tail, StandardCharsets.ISO_8859_1);
+        int idx = s.lastIndexOf("startxref");
+        if (idx < 0) {
+            throw new IllegalStateException("startxref not found");
+        }
+        source.seek(size - len + idx + "startxref".length());
+        return readLong(source);
+    }
+
+    private void loadXref(long startOffset) throws IOException {
+        List<Long> pending = new ArrayList<>();
+        Set<Long> visited = new HashSet<>();
+        pending.add(startOffset);
+        while (!pending.isEmpty()) {
+            long offset = pending.remove(0);
+            if (!visited.add(offset) || visited.size() > MAX_XREF_SECTIONS) {
+                continue;
+            }
+            if (offset < 0 || offset >= size) {
+                throw new IllegalStateException("bad xref offset");
+            }
+            source.seek(offset);
+            skipWhitespace(source);
+            Map<?, ?> trailer;
+            if (source.peek() == 'x') {
+                if (!"xref".equals(readToken(source))) {
+                    throw new IllegalStateException("xref keyword expected");
+                }
+                trailer = readXrefTable();
+            } else {
+                trailer = readXrefStream();
+            }
+            if (rootRef == null) {
+                rootRef = trailer.get("/Root");
+            }
+            // 混合引用文件：/XRefStm 优先于 /Prev
+            Object xrefStm = trailer.get("/XRefStm");
+            Object prev = trailer.get("/Prev");
+            if (prev instanceof Long) {
+                pending.add(0, (Long) prev);
+            }
+            if (xrefStm instanceof Long) {
+                pending.add(0, (Long) xrefStm);
+            }
+        }
+    }
+
+    private Map<?, ?> readXrefTable() throws IOException {
+        TableSection section = new TableSection();
+        while (true) {
+            skipWhitespace(source);
+            int c = source.peek();
+            if (c >= '0' && c <= '9') {
+                long first = readLong(source);
+                long count = readLong(source);
+                skipWhitespace(source);
+                long entriesStart = source.position();
+                section.add((int) first, (int) count, entriesStart);
+                source.seek(entriesStart + count * XREF_ENTRY_SIZE);
+            } else {
+                break;
+            }
+        }
+        if (!"trailer".equals(readToken(source))) {
+            throw new IllegalStateException("trailer expected");
+        }
+        Object trailer = parseObject(source);
+        if (!(trailer instanceof Map)) {
+            throw new IllegalStateException("trailer dictionary expected");
+        }
+        sections.add(section);
+        return (Map<?, ?>) trailer;
+    }
+
+    private Map<?, ?> readXrefStream() throws IOException {
+        readLong(source);
+        readLong(source);
+        if (!"obj".equals(readToken(source))) {
+            throw new IllegalStateException("obj expected");
+        }
+        Object dictObj = parseObject(source);
+        if (!(dictObj instanceof Map) || !"/XRef".equals(((Map<?, ?>) dictObj).get("/Type"))) {
+            throw new IllegalStateException("xref stream expected");
+        }
+        Map<?, ?> dict = (Map<?, ?>) dictObj;
+        byte[] data = readStream(dict, source);
+
+        List<?> w = (List<?>) dict.get("/W");
+        int[] widths = new int[3];
+        for (int i = 0; i < 3; i++) {
+            widths[i] = ((Long) w.get(i)).intValue();
+        }
+        List<Integer> index = new ArrayList<>();
+        Object indexObj = dict.get("/Index");
+        if (indexObj instanceof List) {
+            for (Object o : (List<?>) indexObj) {
+                index.add(((Long) o).intValue());
+            }
+        } else {
+            index.add(0);
+            index.add(((Long) dict.get("/Size")).intValue());
+        }
+        sections.add(new StreamSection(data, widths, index));
+        return dict;
+    }
+
+    private long[] lookup(int objNum) throws IOException {
+        for (XrefSection section : sections) {
+            long[] entry = section.lookup(objNum);
+            if (entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    // ---------------------------------------------------------------- 对象解析
+
+    private Object resolve(Object value, int depth) throws IOException {
+        while (value instanceof Ref) {
+            if (depth++ > MAX_RESOLVE_DEPTH) {
+                throw new IllegalStateException("reference chain too deep");
+            }
+            value = loadObject((Ref) value, depth);
+        }
+        return value;
+    }
+
+    private Object loadObject(Ref ref, int depth) throws IOException {
+        long[] entry = lookup(ref.num);
+        if (entry == null || entry[0] == 0) {
+            throw new IllegalStateException("object not found: " + ref.num);
+        }
+        if (entry[0] == 2) {
+            ObjectStream os = objectStream((int) entry[1], depth);
+            return os.get(ref.num);
+        }
+        source.seek(entry[1]);
+        long num = readLong(source);
+        readLong(source);
+        if (num != ref.num || !"obj".equals(readToken(source))) {
+            throw new IllegalStateException("object header mismatch: " + ref.num);
+        }
+        return parseObject(source);
+    }
+
+    private ObjectStream objectStream(int streamNum, int depth) throws IOException {
+        ObjectStream cached = objectStreams.get(streamNum);
+        if (cached != null) {
+            return cached;
+        }
+        long[] entry = lookup(streamNum);
+        if (entry == null || entry[0] != 1) {
+            throw new IllegalStateException("object stream not found: " + streamNum);
+        }
+        source.seek(entry[1]);
+        readLong(source);
+        readLong(source);
+        if (!"obj".equals(readToken(source))) {
+            throw new IllegalStateException("obj expected");
+        }
+        Object dictObj = parseObject(source);
+        if (!(dictObj instanceof Map)) {
+            throw new IllegalStateException("object stream dictionary expected");
+        }
+        Map<?, ?> dict = (Map<?, ?>) dictObj;
+        long streamStart = afterStreamKeyword(source);
+        Object lengthObj = dict.get("/Length");
+        if (lengthObj instanceof Ref) {
+            Map<Object, Object> copy = new LinkedHashMap<>(dict);
+            copy.put("/Length", resolve(lengthObj, depth));
+            dict = copy;
+        }
+        byte[] data = decode(dict, readRaw(streamStart, dict));
+        ObjectStream os = new ObjectStream(data, ((Long) dict.get("/N")).intValue(), ((Long) dict.get("/First")).intValue());
+        objectStreams.put(streamNum, os);
+        return os;
+    }
+
+    private byte[] readStream(Map<?, ?> dict, Source src) throws IOException {
+        long start = afterStreamKeyword(src);
+        return decode(dict, readRaw(start, dict));
+    }
+
+    private long afterStreamKeyword(Source src) throws IOException {
+        skipWhitespace(src);
+        if (!"stream".equals(readToken(src))) {
+            throw new IllegalStateException("stream expected");
+        }
+        int c = src.read();
+        if (c == '\r') {
+            if (src.peek() == '\n') {
+                src.read();
+            }
+        } else if (c != '\n') {
+            throw new IllegalStateException("EOL expected after stream");
+        }
+        return src.position();
+    }
+
+    private byte[] readRaw(long start, Map<?, ?> dict) throws IOException {
+        Object lengthObj = dict.get("/Length");
+        if (!(lengthObj instanceof Long)) {
+            throw new IllegalStateException("direct /Length expected");
+        }
+        long length = (Long) lengthObj;
+        if (length < 0 || length > MAX_STREAM_LENGTH || start + length > size) {
+            throw new IllegalStateException("bad stream length");
+        }
+        byte[] raw = new byte[(int) length];
+        readFully(start, raw);
+        return raw;
+    }
+
+    private byte[] decode(Map<?, ?> dict, byte[] raw) {
+        Object filter = dict.get("/Filter");
+        if (filter instanceof List) {
+            List<?> filters = (List<?>) filter;
+            if (filters.isEmpty()) {
+                filter = null;
+            } else if (filters.size() == 1) {
+                filter = filters.get(0);
+            } else {
+                throw new IllegalStateException("filter chain not supported");
+            }
+        }
+        if (filter == null) {
+            return raw;
+        }
+        if (!"/FlateDecode".equals(filter)) {
+            throw new IllegalStateException("unsupported filter: " + filter);
+        }
+        byte[] inflated = inflate(raw);
+        Object parms = dict.get("/DecodeParms");
+        if (parms instanceof List) {
+            parms = ((List<?>) parms).isEmpty() ? null : ((List<?>) parms).get(0);
+        }
+        if (parms instanceof Map) {
+            Map<?, ?> p = (Map<?, ?>) parms;
+            int predictor = intValue(p.get("/Predictor"), 1);
+            if (predictor >= 10) {
+                int columns = intValue(p.get("/Columns"), 1);
+                int colors = intValue(p.get("/Colors"), 1);
+                int bpc = intValue(p.get("/BitsPerComponent"), 8);
+                return unpredictPng(inflated, (columns * colors * bpc + 7) / 8, Math.max(1, (colors * bpc + 7) / 8));
+            } else if (predictor != 1) {
+                throw new IllegalStateException("unsupported predictor: " + predictor);
+            }
+        }
+        return inflated;
+    }
+
+    private static byte[] inflate(byte[] raw) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(raw);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length * 3));
+            byte[] buf = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(buf);
+                if (n == 0) {
+                    if (inflater.needsInput() || inflater.needsDictionary()) {
+                        break;
+                    }
+                }
+                out.write(buf, 0, n);
+                if (out.size() > MAX_STREAM_LENGTH) {
+                    throw new IllegalStateException("stream too large");
+                }
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("bad flate data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] unpredictPng(byte[] data, int rowLength, int bpp) {
+        int rows = data.length / (rowLength + 1);
+        byte[] out = new byte[rows * rowLength];
+        byte[] prev = new byte[rowLength];
+        for (int r = 0; r < rows; r++) {
+            int in = r * (rowLength + 1);
+            int type = data[in] & 0xff;
+            int outStart = r * rowLength;
+            for (int i = 0; i < rowLength; i++) {
+                int x = data[in + 1 + i] & 0xff;
+                int a = i >= bpp ? out[outStart + i - bpp] & 0xff : 0;
+                int b = prev[i] & 0xff;
+                int c = i >= bpp ? prev[i - bpp] & 0xff : 0;
+                int v;
+                switch (type) {
+                    case 0: v = x; break;
+                    case 1: v = x + a; break;
+                    case 2: v = x + b; break;
+                    case 3: v = x + ((a + b) >>> 1); break;
+                    case 4: v = x + paeth(a, b, c); break;
+                    default: throw new IllegalStateException("bad png predictor: " + type);
+                }
+                out[outStart + i] = (byte) v;
+            }
+            System.arraycopy(out, outStart, prev, 0, rowLength);
+        }
+        return out;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc) return a;
+        return pb <= pc ? b : c;
+    }
+
+    private static int intValue(Object o, int def) {
+        return o instanceof Long ? ((Long) o).intValue() : def;
+    }
+
+    private void readFully(long position, byte[] dst) throws IOException {
+        ByteBuffer buf = ByteBuffer.wrap(dst);
+        long pos = position;
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, pos);
+            if (n < 0) {
+                throw new IOException("unexpected end of file");
+            }
+            pos += n;
+        }
+    }
+
+    // ---------------------------------------------------------------- 词法
+
+    private static boolean isWhitespace(int c) {
+        return c == 0 || c == 9 || c == 10 || c == 12 || c == 13 || c == 32;
+    }
+
+    private static boolean isDelimiter(int c) {
+        return c == '(' || c == ')' || c == '<' || c == '>' || c == '[' || c == ']'
+                || c == '{' || c == '}' || c == '/' || c == '%';
+    }
+
+    private static void skipWhitespace(Source src) throws IOException {
+        while (true) {
+            int c = src.peek();
+            if (c == '%') {
+                while (c != -1 && c != '\n' && c != '\r') {
+                    src.read();
+                    c = src.peek();
+                }
+            } else if (c != -1 && isWhitespace(c)) {
+                src.read();
+            } else {
+                return;
+            }
+        }
+    }
+
+    private static String readToken(Source src) throws IOException {
+        skipWhitespace(src);
+        StringBuilder sb = new StringBuilder();
+        int c = src.peek();
+        while (c != -1 && !isWhitespace(c) && !isDelimiter(c)) {
+            sb.append((char) src.read());
+            c = src.peek();
+        }
+        return sb.toString();
+    }
+
+    private static long readLong(Source src) throws IOException {
+        String token = readToken(src);
+        if (token.isEmpty()) {
+            throw new IllegalStateException("number expected");
+        }
+        return Long.parseLong(token);
+    }
+
+    private static Object parseObject(Source src) throws IOException {
+        return parseObject(src, 0);
+    }
+
+    private static Object parseObject(Source src, int depth) throws IOException {
+        skipWhitespace(src);
+        int c = src.peek();
+        if (c == -1) {
+            throw new IllegalStateException("unexpected end of data");
+        }
+        if (c == '<') {
+            src.read();
+            if (src.peek() == '<') {
+                src.read();
+                return parseDictionary(src, checkDepth(depth + 1));
+            }
+            while ((c = src.read()) != '>') {
+                if (c == -1) throw new IllegalStateException("unterminated hex string");
+            }
+            return new byte[0];
+        }
+        if (c == '[') {
+            src.read();
+            checkDepth(depth + 1);
+            List<Object> list = new ArrayList<>();
+            while (true) {
+                skipWhitespace(src);
+                if (src.peek() == ']') {
+                    src.read();
+                    return list;
+                }
+                list.add(parseObject(src, depth + 1));
+            }
+        }
+        if (c == '/') {
+            src.read();
+            return "/" + readToken(src);
+        }
+        if (c == '(') {
+            skipLiteralString(src);
+            return new byte[0];
+        }
+        if ((c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.') {
+            String token = readToken(src);
+            if (token.indexOf('.') >= 0) {
+                return Double.valueOf(token);
+            }
+            long first = Long.parseLong(token);
+            long mark = src.position();
+            skipWhitespace(src);
+            int d = src.peek();
+            if (first >= 0 && d >= '0' && d <= '9') {
+                String second = readToken(src);
+                skipWhitespace(src);
+                if (src.peek() == 'R' && isDigits(second)) {
+                    src.read();
+                    int after = src.peek();
+                    if (after == -1 || isWhitespace(after) || isDelimiter(after)) {
+                        return new Ref((int) first);
+                    }
+                }
+            }
+            src.seek(mark);
+            return first;
+        }
+        if (c == ')' || c == '>' || c == ']' || c == '{' || c == '}') {
+            throw new IllegalStateException("unexpected delimiter");
+        }
+        String keyword = readToken(src);
+        if ("null".equals(keyword)) {
+            return null;
+        }
+        if ("true".equals(keyword) || "false".equals(keyword)) {
+            return Boolean.valueOf(keyword);
+        }
+        throw new IllegalStateException("unexpected keyword: " + keyword);
+    }
+
+    private static int checkDepth(int depth) {
+        if (depth > MAX_NESTING_DEPTH) {
+            throw new PageCountException("PDF对象嵌套层数超过" + MAX_NESTING_DEPTH);
+        }
+        return depth;
+    }
+
+    private static Map<Object, Object> parseDictionary(Source src, int depth) throws IOException {
+        Map<Object, Object> dict = new LinkedHashMap<>();
+        while (true) {
+            skipWhitespace(src);
+            int c = src.peek();
+            if (c == '>') {
+                src.read();
+                if (src.read() != '>') {
+                    throw new IllegalStateException("'>>' expected");
+                }
+                return dict;
+            }
+            Object key = parseObject(src, depth);
+            if (!(key instanceof String)) {
+                throw new IllegalStateException("name key expected");
+            }
+            dict.put(key, parseObject(src, depth));
+        }
+    }
+
+    private static void skipLiteralString(Source src) throws IOException {
+        src.read();
+        int depth = 1;
+        while (depth > 0) {
+            int c = src.read();
+            if (c == -1) {
+                throw new IllegalStateException("unterminated string");
+            }
+            if (c == '\\') {
+                src.read();
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isDigits(String s) {
+        if (s.isEmpty()) return false;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) < '0' || s.charAt(i) > '9') return false;
+        }
+        return true;
+    }
+
+    // ---------------------------------------------------------------- 数据结构
+
+    private static final class Ref {
+        final int num;
+
+        Ref(int num) {
+            this.num = num;
+        }
+    }
+
+    private interface XrefSection {
+        /**
+         * 返回 {类型, 字段2, 字段3}，对象不在本节时返回null
+         */
+        long[] lookup(int objNum) throws IOException;
+    }
+
+    /**
+     * 传统交叉引用表，每个条目固定20字节，按需定位读取
+     */
+    private final class TableSection implements XrefSection {
+        private final List<long[]> subsections = new ArrayList<>();
+
+        void add(int first, int count, long entriesStart) {
+            subsections.add(new long[]{first, count, entriesStart});
+        }
+
+        @Override
+        public long[] lookup(int objNum) throws IOException {
+            for (long[] sub : subsections) {
+                if (objNum >= sub[0] && objNum < sub[0] + sub[1]) {
+                    byte[] entry = new byte[XREF_ENTRY_SIZE];
+                    readFully(sub[2] + (objNum - sub[0]) * XREF_ENTRY_SIZE, entry);
+                    ArraySource s = new ArraySource(entry);
+                    long offset = readLong(s);
+                    long gen = readLong(s);
+                    String type = readToken(s);
+                    if ("n".equals(type)) {
+                        return new long[]{1, offset, gen};
+                    }
+                    if ("f".equals(type)) {
+                        return new long[]{0, offset, gen};
+                    }
+                    throw new IllegalStateException("bad xref entry");
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 交叉引用流（PDF 1.5+），解码后的二进制条目
+     */
+    private static final class StreamSection implements XrefSection {
+        private final byte[] data;
+        private final int[] widths;
+        private final List<Integer> index;
+        private final int rowLength;
+
+        StreamSection(byte[] data, int[] widths, List<Integer> index) {
+            this.data = data;
+            this.widths = widths;
+            this.index = index;
+            this.rowLength = widths[0] + widths[1] + widths[2];
+        }
+
+        @Override
+        public long[] lookup(int objNum) {
+            int row = 0;
+            for (int i = 0; i + 1 < index.size(); i += 2) {
+                int first = index.get(i);
+                int count = index.get(i + 1);
+                if (objNum >= first && objNum < first + count) {
+                    int pos = (row + objNum - first) * rowLength;
+                    if (pos + rowLength > data.length) {
+                        throw new IllegalStateException("xref stream truncated");
+                    }
+                    long type = widths[0] == 0 ? 1 : field(pos, widths[0]);
+                    long f2 = field(pos + widths[0], widths[1]);
+                    long f3 = field(pos + widths[0] + widths[1], widths[2]);
+                    return new long[]{type, f2, f3};
+                }
+                row += count;
+            }
+            return null;
+        }
+
+        private long field(int pos, int width) {
+            long v = 0;
+            for (int i = 0; i < width; i++) {
+                v = (v << 8) | (data[pos + i] & 0xff);
+            }
+            return v;
+        }
+    }
+
+    /**
+     * 对象流（PDF 1.5+ 压缩对象）
+     */
+    private static final class ObjectStream {
+        private final byte[] data;
+        private final Map<Integer, Integer> offsets = new HashMap<>();
+        private final int first;
+
+        ObjectStream(byte[] data, int n, int first) throws IOException {
+            this.data = data;
+            this.first = first;
+            ArraySource header = new ArraySource(data);
+            for (int i = 0; i < n; i++) {
+                int num = (int) readLong(header);
+                int off = (int) readLong(header);
+                offsets.put(num, off);
+            }
+        }
+
+        Object get(int objNum) throws IOException {
+            Integer off = offsets.get(objNum);
+            if (off == null) {
+                throw new IllegalStateException("object not in stream: " + objNum);
+            }
+            ArraySource s = new ArraySource(data);
+            s.seek(first + off);
+            return parseObject(s);
+        }
+    }
+
+    private abstract static class Source {
+        abstract int read() throws IOException;
+
+        abstract int peek() throws IOException;
+
+        abstract long position();
+
+        abstract void seek(long pos) throws IOException;
+    }
+
+    private static final class ArraySource extends Source {
+        private final byte[] data;
+        private int pos;
+
+        ArraySource(byte[] data) {
+            this.data = data;
+        }
+
+        @Override
+        int read() {
+            return pos < data.length ? data[pos++] & 0xff : -1;
+        }
+
+        @Override
+        int peek() {
+            return pos < data.length ? data[pos] & 0xff : -1;
+        }
+
+        @Override
+        long position() {
+            return pos;
+        }
+
+        @Override
+        void seek(long p) {
+            pos = (int) p;
+        }
+    }
+
+    /**
+     * 带小窗口缓冲的文件通道读取器，按位置随机访问
+     */
+    private static final class ChannelSource extends Source {
+        private final FileChannel channel;
+        private final long size;
+        private final ByteBuffer buffer = ByteBuffer.allocate(8192);
+        private long bufferStart = -1;
+        private int bufferLength;
+        private long pos;
+
+        ChannelSource(FileChannel channel, long size) {
+            this.channel = channel;
+            this.size = size;
+        }
+
+        @Override
+        int read() throws IOException {
+            int c = peek();
+            if (c != -1) {
+                pos++;
+            }
+            return c;
+        }
+
+        @Override
+        int peek() throws IOException {
+            if (pos >= size) {
+                return -1;
+            }
+            if (bufferStart < 0 || pos < bufferStart || pos >= bufferStart + bufferLength) {
+                fill();
+            }
+            return buffer.get((int) (pos - bufferStart)) & 0xff;
+        }
+
+        private void fill() throws IOException {
+            buffer.clear();
+            int n = 0;
+            while (buffer.hasRemaining()) {
+                int r = channel.read(buffer, pos + n);
+                if (r < 0) break;
+                n += r;
+            }
+            bufferStart = pos;
+            bufferLength = n;
+            if (n == 0) {
+                throw new IOException("unexpected end of file");
+            }
+        }
+
+        @Override
+        long position() {
+            return pos;
+        }
+
+        @Override
+        void seek(long p) {
+            pos = p;
+        }
+    }
+}
@@ -1,12 +1,26 @@
 package com.printercloud.service.impl;
 
+import com.printercloud.common.Money;
+import com.printercloud.dto.request.BatchQuoteRequest;
+import com.printercloud.dto.request.PriceRuleRequest;
 import com.printercloud.dto.request.UpdatePriceConfigRequest;
+import com.printercloud.dto.response.BatchQuoteResponse;
 import com.printercloud.dto.response.PriceConfigResponse;
+import com.printercloud.entity.Order;
 import com.printercloud.entity.PriceConfig;
+import com.printercloud.entity.PriceRule;
+import com.printercloud.entity.User;
 import com.printercloud.repository.PriceConfigRepository;
+import com.printercloud.repository.PriceRuleRepository;
+import com.printercloud.repository.UserRepository;
 import com.printercloud.service.PriceConfigService;
+import com.printercloud.service.PriceRuleSet;
+import com.printercloud.service.PriceSnapshot;
+import com.printercloud.service.PriceTable;
+import com.printercloud.service.PrintQuote;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
@@ -16,8 +30,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
 import java.math.BigDecimal;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -32,6 +52,12 @@ import java.util.stream.Collectors;
 public class PriceConfigServiceImpl implements PriceConfigService {
 
     private final PriceConfigRepository priceConfigRepository;
+    private final PriceRuleRepository priceRuleRepository;
+    private final UserRepository userRepository;
+    private final PriceTable priceTable;
+
+    @Value("${price.batch.max-items:10000}")
+    private int batchMaxItems;
 
     @Override
     public List<PriceConfigResponse> getAllEnabledConfigs() {
@@ -86,23 +112,10 @@ public class PriceConfigServiceImpl implements PriceConfigService {
         }
 
         PriceConfig config = configOpt.get();
-        config.setConfigName(request.getConfigName());
-        config.setPriceValue(request.getPriceValue());
-        if (request.getUnit() != null) {
-            config.setUnit(request.getUnit());
-        }
-        if (request.getDescription() != null) {
-            config.setDescription(request.getDescription());
-        }
-        if (request.getStatus() != null) {
-            config.setStatus(request.getStatus());
-        }
-        if (request.getSortOrder() != null) {
-            config.setSortOrder(request.getSortOrder());
-        }
-        config.setUpdatedBy(updatedBy);
+        applyUpdate(config, request, updatedBy);
 
         config = priceConfigRepository.save(config);
+        priceTable.reloadAfterCommit();
         log.info("价格配置更新成功: configKey={}, updatedBy={}", config.getConfigKey(), updatedBy);
         
         return convertToResponse(config);
@@ -120,6 +133,7 @@ public class PriceConfigServiceImpl implements PriceConfigService {
         config.setStatus(config.getStatus() == 1 ? 0 : 1);
         config.setUpdatedBy(updatedBy);
         priceConfigRepository.save(config);
+        priceTable.reloadAfterCommit();
 
         log.info("价格配置状态切换成功: configKey={}, status={}, updatedBy={}", 
                 config.getConfigKey(), config.getStatus(), updatedBy);
@@ -128,28 +142,171 @@ public class PriceConfigServiceImpl implements PriceConfigService {
 
     @Override
     public BigDecimal getPriceByKey(String configKey) {
-        Optional<PriceConfig> configOpt = priceConfigRepository.findByConfigKey(configKey);
-        if (configOpt.isPresent() && configOpt.get().isEnabled()) {
-            return configOpt.get().getPriceValue();
+        BigDecimal price = priceTable.current().price(configKey);
+        return price != null ? price : BigDecimal.ZERO;
+    }
+
+    @Override
+    public BigDecimal calculatePrintPrice(String colorType, String paperSize, String duplex, Integer pages, Integer copies, Long userId) {
+        return quotePrint(colorType, paperSize, duplex, pages, copies, userId).getTotalPrice();
+    }
+
+    @Override
+    public PrintQuote quotePrint(String colorType, String paperSize, String duplex, int pages, int copies, Long userId) {
+        PriceSnapshot snapshot = priceTable.current();
+        long sheets = (long) pages * copies;
+        int minute = PriceRuleSet.minuteOfDay(LocalTime.now());
+        long unitFen = unitFen(snapshot, colorType, paperSize, duplex, resolveRole(snapshot, userId), sheets, minute);
+        return new PrintQuote(unitFen, sheets, snapshot.getVersion());
+    }
+
+    @Override
+    public BatchQuoteResponse calculateBatchPrice(BatchQuoteRequest request, Long userId) {
+        List<BatchQuoteRequest.Item> items = request.getItems();
+        if (items.size() > batchMaxItems) {
+            throw new IllegalArgumentException("报价明细不能超过" + batchMaxItems + "项");
+        }
+        // 整个批次只取一次快照与时间，报价期间价格更新不会造成前后不一致
+        PriceSnapshot snapshot = priceTable.current();
+        int role = resolveRole(snapshot, userId);
+        int minute = PriceRuleSet.minuteOfDay(LocalTime.now());
+        List<BatchQuoteResponse.Line> lines = new ArrayList<>(items.size());
+        long totalFen = 0;
+        for (int i = 0; i < items.size(); i++) {
+            BatchQuoteRequest.Item item = items.get(i);
+            validateQuoteItem(i, item);
+            long sheets = (long) item.getPages() * item.getCopies();
+            long unitFen = unitFen(snapshot, item.getColorType(), item.getPaperSize(), item.getDuplex(), role, sheets, minute);
+            long priceFen = Money.multiply(unitFen, sheets);
+            BatchQuoteResponse.Line line = new BatchQuoteResponse.Line();
+            line.setUnitPrice(Money.toYuan(unitFen));
+            line.setPrice(Money.toYuan(priceFen));
+            lines.add(line);
+            totalFen = Math.addExact(totalFen, priceFen);
+        }
+        BatchQuoteResponse response = new BatchQuoteResponse();
+        response.setPriceVersion(snapshot.getVersion());
+        response.setItems(lines);
+        response.setTotalPrice(Money.toYuan(totalFen));
+        return response;
+    }
+
+    private void validateQuoteItem(int index, BatchQuoteRequest.Item item) {
+        if (item == null || item.getColorType() == null || item.getPaperSize() == null || item.getDuplex() == null) {
+            throw new IllegalArgumentException("第" + (index + 1) + "项打印配置不完整");
+        }
+        if (item.getPages() == null || item.getPages() < 1 || item.getCopies() == null || item.getCopies() < 1) {
+            throw new IllegalArgumentException("第" + (index + 1) + "项页数和份数必须大于0");
+        }
+    }
+
+    /**
+     * 按价格快照计算折后单价（分）；打印参数无法识别时使用默认价格
+     */
+    private long unitFen(PriceSnapshot snapshot, String colorType, String paperSize, String duplex,
+                         int role, long sheets, int minuteOfDay) {
+        int slot = snapshot.printSlot(colorType, duplex, paperSize);
+        if (slot < 0) {
+            return Money.toFen(PriceSnapshot.defaultUnitPrice(colorType, duplex));
+        }
+        return snapshot.getRules().unitFen(slot, role, sheets, minuteOfDay);
+    }
+
+    /**
+     * 只有配置了角色价格时才查询用户角色
+     */
+    private int resolveRole(PriceSnapshot snapshot, Long userId) {
+        if (userId == null || !snapshot.getRules().hasRoleTiers()) {
+            return 0;
         }
-        return BigDecimal.ZERO;
+        return userRepository.findById(userId)
+                .map(user -> PriceRuleSet.roleIndex(user.getRole()))
+                .orElse(0);
     }
 
     @Override
-    public BigDecimal calculatePrintPrice(String colorType, String paperSize, String duplex, Integer pages, Integer copies) {
-        // 构建配置键
-        String configKey = String.format("print.%s.%s.%s", 
-                colorType.toLowerCase(), 
-                duplex.toLowerCase(), 
-                paperSize.toLowerCase());
-        
-        BigDecimal unitPrice = getPriceByKey(configKey);
-        if (unitPrice.compareTo(BigDecimal.ZERO) == 0) {
-            // 如果没有找到具体配置，使用默认价格
-            unitPrice = getDefaultPrice(colorType, duplex);
+    public List<PriceRule> getRules() {
+        return priceRuleRepository.findAll(Sort.by("ruleType", "id"));
+    }
+
+    @Override
+    @Transactional
+    public PriceRule saveRule(PriceRuleRequest request, String updatedBy) {
+        PriceRule rule = request.getId() != null
+                ? priceRuleRepository.findById(request.getId()).orElseThrow(() -> new IllegalArgumentException("价格规则不存在"))
+                : new PriceRule();
+        rule.setRuleType(request.getRuleType().trim().toUpperCase());
+        rule.setColorType(normalizeCode(request.getColorType(), Order.ColorType.values(), "颜色类型"));
+        rule.setDuplex(normalizeCode(request.getDuplex(), Order.Duplex.values(), "单双面"));
+        rule.setPaperSize(normalizeCode(request.getPaperSize(), Order.PaperSize.values(), "纸张规格"));
+        rule.setUserRole(normalizeCode(request.getUserRole(), User.Role.values(), "用户角色"));
+        rule.setMinPages(request.getMinPages());
+        rule.setPriceValue(request.getPriceValue());
+        rule.setDiscountRate(request.getDiscountRate());
+        rule.setStartTime(request.getStartTime());
+        rule.setEndTime(request.getEndTime());
+        if (request.getStatus() != null) {
+            rule.setStatus(request.getStatus());
         }
-        
-        return unitPrice.multiply(BigDecimal.valueOf(pages)).multiply(BigDecimal.valueOf(copies));
+        rule.setDescription(request.getDescription());
+        rule.setUpdatedBy(updatedBy);
+        validateRule(rule);
+
+        rule = priceRuleRepository.save(rule);
+        priceTable.reloadAfterCommit();
+        log.info("价格规则保存成功: id={}, type={}, updatedBy={}", rule.getId(), rule.getRuleType(), updatedBy);
+        return rule;
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteRule(Long id) {
+        if (!priceRuleRepository.existsById(id)) {
+            return false;
+        }
+        priceRuleRepository.deleteById(id);
+        priceTable.reloadAfterCommit();
+        log.info("价格规则已删除: id={}", id);
+        return true;
+    }
+
+    private void validateRule(PriceRule rule) {
+        if (PriceRule.RuleType.TIER.getCode().equals(rule.getRuleType())) {
+            if (rule.getMinPages() == null || rule.getMinPages() < 1) {
+                throw new IllegalArgumentException("阶梯起始张数必须大于0");
+            }
+            if (rule.getPriceValue() == null || rule.getPriceValue().signum() <= 0) {
+                throw new IllegalArgumentException("阶梯单价必须大于0");
+            }
+        } else if (PriceRule.RuleType.TIME_DISCOUNT.getCode().equals(rule.getRuleType())) {
+            if (rule.getDiscountRate() == null || rule.getDiscountRate().signum() <= 0
+                    || rule.getDiscountRate().compareTo(BigDecimal.ONE) > 0) {
+                throw new IllegalArgumentException("折扣率必须在0到1之间");
+            }
+            if (rule.getStartTime() == null || rule.getEndTime() == null) {
+                throw new IllegalArgumentException("折扣时段不能为空");
+            }
+            if (rule.getUserRole() != null) {
+                throw new IllegalArgumentException("时段折扣不区分用户角色");
+            }
+        } else {
+            throw new IllegalArgumentException("不支持的规则类型: " + rule.getRuleType());
+        }
+    }
+
+    /**
+     * 校验并统一为枚举代码，空值表示不限
+     */
+    private String normalizeCode(String value, Enum<?>[] values, String field) {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+        for (Enum<?> e : values) {
+            if (e.name().equalsIgnoreCase(value.trim())) {
+                return e.name();
+            }
+        }
+        throw new IllegalArgumentException(field + "无效: " + value);
     }
 
     @Override
@@ -175,6 +332,8 @@ public class PriceConfigServiceImpl implements PriceConfigService {
         createDefaultConfig(PriceConfig.ConfigKey.COLOR_SINGLE_A3, "A3彩色单面打印", "PRINT", new BigDecimal("3.00"), "元/页", "A3纸张彩色单面打印价格", 7);
         createDefaultConfig(PriceConfig.ConfigKey.COLOR_DOUBLE_A3, "A3彩色双面打印", "PRINT", new BigDecimal("2.40"), "元/页", "A3纸张彩色双面打印价格", 8);
         
+        // 递增版本号，已启动的其他节点据此加载默认配置
+        priceTable.reloadAfterCommit();
         log.info("默认价格配置初始化完成");
     }
 
@@ -186,15 +345,68 @@ public class PriceConfigServiceImpl implements PriceConfigService {
     @Override
     @Transactional
     public boolean batchUpdateConfigs(List<UpdatePriceConfigRequest> requests, String updatedBy) {
-        try {
-            for (UpdatePriceConfigRequest request : requests) {
-                updateConfig(request, updatedBy);
-            }
+        if (requests == null || requests.isEmpty()) {
             return true;
-        } catch (Exception e) {
-            log.error("批量更新价格配置失败: {}", e.getMessage(), e);
-            return false;
         }
+        // 先整体校验，任一项不合法则不做任何修改
+        Map<Long, UpdatePriceConfigRequest> byId = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            UpdatePriceConfigRequest request = requests.get(i);
+            validateUpdate(i, request);
+            if (byId.put(request.getId(), request) != null) {
+                throw new IllegalArgumentException("价格配置重复: id=" + request.getId());
+            }
+        }
+
+        List<PriceConfig> configs = priceConfigRepository.findAllById(byId.keySet());
+        if (configs.size() != byId.size()) {
+            Set<Long> missing = new LinkedHashSet<>(byId.keySet());
+            configs.forEach(config -> missing.remove(config.getId()));
+            throw new IllegalArgumentException("价格配置不存在: id=" + missing);
+        }
+        for (PriceConfig config : configs) {
+            applyUpdate(config, byId.get(config.getId()), updatedBy);
+        }
+        // 同一事务内批量写入，提交后只重新加载一次价格表
+        priceConfigRepository.saveAll(configs);
+        priceTable.reloadAfterCommit();
+
+        log.info("批量更新价格配置成功: count={}, updatedBy={}", configs.size(), updatedBy);
+        return true;
+    }
+
+    private void validateUpdate(int index, UpdatePriceConfigRequest request) {
+        String prefix = "第" + (index + 1) + "项";
+        if (request == null || request.getId() == null) {
+            throw new IllegalArgumentException(prefix + "配置ID不能为空");
+        }
+        if (request.getConfigName() == null || request.getConfigName().trim().isEmpty()) {
+            throw new IllegalArgumentException(prefix + "配置名称不能为空");
+        }
+        if (request.getPriceValue() == null || request.getPriceValue().compareTo(new BigDecimal("0.01")) < 0) {
+            throw new IllegalArgumentException(prefix + "价格值必须大于0");
+        }
+        if (request.getStatus() != null && request.getStatus() != 0 && request.getStatus() != 1) {
+            throw new IllegalArgumentException(prefix + "状态无效");
+        }
+    }
+
+    private void applyUpdate(PriceConfig config, UpdatePriceConfigRequest request, String updatedBy) {
+        config.setConfigName(request.getConfigName());
+        config.setPriceValue(request.getPriceValue());
+        if (request.getUnit() != null) {
+            config.setUnit(request.getUnit());
+        }
+        if (request.getDescription() != null) {
+            config.setDescription(request.getDescription());
+        }
+        if (request.getStatus() != null) {
+            config.setStatus(request.getStatus());
+        }
+        if (request.getSortOrder() != null) {
+            config.setSortOrder(request.getSortOrder());
+        }
+        config.setUpdatedBy(updatedBy);
     }
 
     /**
@@ -217,17 +429,6 @@ public class PriceConfigServiceImpl implements PriceConfigService {
         priceConfigRepository.save(config);
     }
 
-    /**
-     * 获取默认价格
-     */
-    private BigDecimal getDefaultPrice(String colorType, String duplex) {
-        if ("COLOR".equalsIgnoreCase(colorType)) {
-            return "DOUBLE".equalsIgnoreCase(duplex) ? new BigDecimal("1.20") : new BigDecimal("1.50");
-        } else {
-            return "DOUBLE".equalsIgnoreCase(duplex) ? new BigDecimal("0.40") : new BigDecimal("0.50");
-        }
-    }
-
     /**
      * 转换为响应DTO
      */
@@ -0,0 +1,150 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.PriceVersion;
+import com.printercloud.repository.PriceConfigRepository;
+import com.printercloud.repository.PriceRuleRepository;
+import com.printercloud.repository.PriceVersionRepository;
+import com.printercloud.service.PriceChangePublisher;
+import com.printercloud.service.PriceSnapshot;
+import com.printercloud.service.PriceTable;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Slf4j
+@Service
+public class PriceTableImpl implements PriceTable {
+
+    /**
+     * 事务资源键，标记本事务已登记提交后重新加载
+     */
+    private static final Object RELOAD_KEY = new Object();
+
+    private final PriceConfigRepository priceConfigRepository;
+    private final PriceRuleRepository priceRuleRepository;
+    private final PriceVersionRepository priceVersionRepository;
+    private final PriceChangePublisher priceChangePublisher;
+    private final MeterRegistry meterRegistry;
+    private final AtomicReference<PriceSnapshot> snapshot = new AtomicReference<>(PriceSnapshot.empty());
+
+    public PriceTableImpl(PriceConfigRepository priceConfigRepository,
+                          PriceRuleRepository priceRuleRepository,
+                          PriceVersionRepository priceVersionRepository,
+                          PriceChangePublisher priceChangePublisher,
+                          MeterRegistry meterRegistry) {
+        this.priceConfigRepository = priceConfigRepository;
+        this.priceRuleRepository = priceRuleRepository;
+        this.priceVersionRepository = priceVersionRepository;
+        this.priceChangePublisher = priceChangePublisher;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("price.table.version", snapshot, s -> s.get().getVersion())
+                .description("当前价格快照版本")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        ensureVersionRow();
+        reload();
+    }
+
+    @Override
+    public PriceSnapshot current() {
+        return snapshot.get();
+    }
+
+    @Override
+    public synchronized void reload() {
+        // 先取版本号再读配置：两者之间若有变更，快照指纹偏旧，下次检查会再加载一次
+        String fingerprint = loadFingerprint();
+        PriceSnapshot next = PriceSnapshot.of(snapshot.get().getVersion() + 1, fingerprint,
+                priceConfigRepository.findEnabledConfigs(), priceRuleRepository.findEnabledRules());
+        snapshot.set(next);
+        log.info("价格表已加载: version={}, 配置数={}", next.getVersion(), next.size());
+    }
+
+    @Override
+    public void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            priceVersionRepository.increment();
+            reloadAndPublish();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(RELOAD_KEY)) {
+            return;
+        }
+        // 版本号与价格修改在同一事务内递增，回滚时一并撤销
+        priceVersionRepository.increment();
+        TransactionSynchronizationManager.bindResource(RELOAD_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reloadAndPublish();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(RELOAD_KEY);
+            }
+        });
+    }
+
+    @Override
+    public void onRemoteChange(String fingerprint) {
+        if (fingerprint.equals(snapshot.get().getFingerprint())) {
+            return;
+        }
+        meterRegistry.counter("price.table.reload", "source", "remote").increment();
+        reload();
+    }
+
+    /**
+     * 兜底：定时比对数据库版本号，广播消息丢失或Redis不可用时也能在一个周期内追上
+     */
+    @Scheduled(fixedDelayString = "${price.sync.check-interval-ms:30000}",
+            initialDelayString = "${price.sync.check-interval-ms:30000}")
+    public void checkForChanges() {
+        try {
+            if (!loadFingerprint().equals(snapshot.get().getFingerprint())) {
+                meterRegistry.counter("price.table.reload", "source", "check").increment();
+                reload();
+            }
+        } catch (RuntimeException e) {
+            log.warn("价格版本检查失败: {}", e.getMessage());
+        }
+    }
+
+    private void reloadAndPublish() {
+        meterRegistry.counter("price.table.reload", "source", "local").increment();
+        reload();
+        priceChangePublisher.publish(snapshot.get().getFingerprint());
+    }
+
+    /**
+     * 快照指纹取价格版本号，版本号只随价格修改的事务递增，与各节点时钟无关
+     */
+    private String loadFingerprint() {
+        Long version = priceVersionRepository.findCurrentVersion();
+        return "v" + (version != null ? version : 0);
+    }
+
+    private void ensureVersionRow() {
+        if (priceVersionRepository.existsById(PriceVersion.SINGLETON_ID)) {
+            return;
+        }
+        try {
+            priceVersionRepository.saveAndFlush(new PriceVersion(PriceVersion.SINGLETON_ID, 0L));
+        } catch (DataIntegrityViolationException e) {
+            // 其他节点同时创建了版本行
+            log.debug("价格版本行已由其他节点创建");
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.Order;
+import com.printercloud.repository.OrderRepository;
+import com.printercloud.service.PrintDispatchService;
+import com.printercloud.service.PrintJobHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于租约列的打印调度：
+ * 1. 按创建时间取一批候选订单ID（窗口为批量的若干倍并打乱，降低多节点争抢同一批行）；
+ * 2. 条件UPDATE写入本批次令牌和租约到期时间，只有仍可认领的行会成功；
+ * 3. 按令牌读回认领到的订单交给 PrintJobHandler，处理期间定时续期租约；
+ * 4. 完成后凭令牌写入最终状态，失败则放回队列等待重试，超过最大次数标记为打印失败。
+ */
+@Slf4j
+@Service
+public class PrintDispatchServiceImpl implements PrintDispatchService {
+
+    private static final String TOKEN_SEPARATOR = ":";
+
+    private final String nodeId;
+    private final boolean stableNodeId;
+
+    /**
+     * 本次运行的令牌前缀：节点ID + 启动标识，保证重启前后的令牌不会相同
+     */
+    private final String tokenPrefix;
+
+    private final OrderRepository orderRepository;
+    private final PrintJobHandler printJobHandler;
+
+    private final boolean enabled;
+    private final int batchSize;
+    private final int candidateFactor;
+    private final int maxInFlight;
+    private final long leaseSeconds;
+    private final int maxAttempts;
+    private final long retryDelayMs;
+
+    /**
+     * orderId -> 租约令牌
+     */
+    private final Map<Long, String> inFlight = new ConcurrentHashMap<>();
+    private volatile boolean stopped;
+    private long batchSeq;
+
+    private final Counter claimedCounter;
+    private final Counter contentionCounter;
+    private final Timer claimTimer;
+    private final Timer jobTimer;
+    private final MeterRegistry meterRegistry;
+
+    public PrintDispatchServiceImpl(OrderRepository orderRepository,
+                                    PrintJobHandler printJobHandler,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${print.dispatch.node-id:}") String nodeId,
+                                    @Value("${print.dispatch.enabled:false}") boolean enabled,
+                                    @Value("${print.dispatch.batch-size:20}") int batchSize,
+                                    @Value("${print.dispatch.candidate-factor:3}") int candidateFactor,
+                                    @Value("${print.dispatch.max-in-flight:100}") int maxInFlight,
+                                    @Value("${print.dispatch.lease-seconds:300}") long leaseSeconds,
+                                    @Value("${print.dispatch.max-attempts:3}") int maxAttempts,
+                                    @Value("${print.dispatch.retry-delay-ms:30000}") long retryDelayMs) {
+        this.orderRepository = orderRepository;
+        this.printJobHandler = printJobHandler;
+        this.meterRegistry = meterRegistry;
+        this.stableNodeId = nodeId != null && !nodeId.trim().isEmpty();
+        this.nodeId = stableNodeId ? nodeId.trim() : UUID.randomUUID().toString();
+        this.tokenPrefix = this.nodeId + TOKEN_SEPARATOR + Long.toString(System.currentTimeMillis(), 36) + TOKEN_SEPARATOR;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.candidateFactor = Math.max(1, candidateFactor);
+        this.maxInFlight = maxInFlight;
+        this.leaseSeconds = leaseSeconds;
+        this.maxAttempts = maxAttempts;
+        this.retryDelayMs = retryDelayMs;
+
+        this.claimedCounter = Counter.builder("print.dispatch.claimed").register(meterRegistry);
+        this.contentionCounter = Counter.builder("print.dispatch.contention")
+                .description("候选订单已被其他节点认领的次数").register(meterRegistry);
+        this.claimTimer = Timer.builder("print.dispatch.claim.latency").register(meterRegistry);
+        this.jobTimer = Timer.builder("print.dispatch.job.duration").register(meterRegistry);
+        meterRegistry.gauge("print.dispatch.inflight", inFlight, Map::size);
+    }
+
+    /**
+     * 配置了固定节点ID时，重启后让上次运行遗留的租约立即过期，由认领流程重新排入打印机队列
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverOwnLeases() {
+        if (!enabled || !stableNodeId) {
+            return;
+        }
+        try {
+            int recovered = orderRepository.expireNodeLeases(nodeId + TOKEN_SEPARATOR + "%", tokenPrefix + "%",
+                    LocalDateTime.now().minusSeconds(1));
+            if (recovered > 0) {
+                log.info("节点{}重启，重新排队上次未完成的{}个打印订单", nodeId, recovered);
+            }
+        } catch (RuntimeException e) {
+            log.warn("恢复本节点打印租约失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时认领：一批认满且仍有处理能力时继续认领下一批
+     */
+    @Scheduled(fixedDelayString = "${print.dispatch.poll-interval-ms:1000}")
+    public void poll() {
+        if (!enabled || stopped) {
+            return;
+        }
+        try {
+            while (!stopped && dispatchOnce() >= batchSize) {
+                // 继续认领
+            }
+        } catch (RuntimeException e) {
+            log.warn("打印调度认领失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public int dispatchOnce() {
+        int limit = Math.min(batchSize, maxInFlight - inFlight.size());
+        if (limit <= 0) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> candidates = orderRepository.findClaimablePrintIds(now, maxAttempts,
+                PageRequest.of(0, limit * candidateFactor));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = new ArrayList<>(candidates);
+        Collections.shuffle(ids);
+        if (ids.size() > limit) {
+            ids = ids.subList(0, limit);
+        }
+
+        String token = nextToken();
+        int claimed = orderRepository.claimForPrint(ids, token, now, now.plusSeconds(leaseSeconds), maxAttempts);
+        List<Order> orders = claimed > 0 ? orderRepository.findByLeaseToken(token) : Collections.emptyList();
+        claimTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        claimedCounter.increment(claimed);
+        contentionCounter.increment(ids.size() - claimed);
+
+        for (Order order : orders) {
+            start(order, token);
+        }
+        return claimed;
+    }
+
+    @Override
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * 续期本节点处理中订单的租约，并清理崩溃后已用尽重试次数的订单
+     */
+    @Scheduled(fixedDelayString = "${print.dispatch.renew-interval-ms:60000}")
+    public void renewLeases() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (!inFlight.isEmpty()) {
+                orderRepository.renewPrintLeases(new HashSet<>(inFlight.values()), now.plusSeconds(leaseSeconds));
+            }
+            int failed = orderRepository.failExhaustedPrints(now, maxAttempts);
+            if (failed > 0) {
+                log.warn("{}个订单租约过期且重试次数已用尽，标记为打印失败", failed);
+                jobCounter("failed").increment(failed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("续期打印租约失败: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        // 不再认领新订单，未完成订单的租约到期后由其他节点接管
+        stopped = true;
+    }
+
+    private void start(Order order, String token) {
+        inFlight.put(order.getId(), token);
+        long begin = System.nanoTime();
+        try {
+            printJobHandler.handle(order).whenComplete((v, error) -> {
+                jobTimer.record(System.nanoTime() - begin, TimeUnit.NANOSECONDS);
+                finish(order, token, error);
+            });
+        } catch (RuntimeException e) {
+            finish(order, token, e);
+        }
+    }
+
+    private void finish(Order order, String token, Throwable error) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int updated;
+            String result;
+            if (error == null) {
+                updated = orderRepository.completePrintLease(order.getId(), token, Order.Status.READY_PICKUP.getCode(), now);
+                result = "printed";
+            } else if (order.getPrintAttempts() >= maxAttempts) {
+                updated = orderRepository.completePrintLease(order.getId(), token, Order.Status.PRINT_FAILED.getCode(), now);
+                result = "failed";
+                log.warn("订单打印失败且重试次数已用尽: orderNo={}, error={}", order.getOrderNo(), error.getMessage());
+            } else {
+                updated = orderRepository.releasePrintLease(order.getId(), token, now.plusNanos(retryDelayMs * 1_000_000L), now);
+                result = "retry";
+                log.warn("订单打印失败，稍后重试: orderNo={}, error={}", order.getOrderNo(), error.getMessage());
+            }
+            if (updated == 0) {
+                // 租约已过期并被其他节点接管，以接管方的结果为准
+                result = "lost";
+                log.warn("订单打印租约已丢失: orderNo={}", order.getOrderNo());
+            }
+            jobCounter(result).increment();
+        } catch (RuntimeException e) {
+            // 状态未写回时租约到期后会被重新认领
+            log.error("写回打印结果失败: orderNo={}", order.getOrderNo(), e);
+        } finally {
+            inFlight.remove(order.getId());
+        }
+    }
+
+    private synchronized String nextToken() {
+        return tokenPrefix + (++batchSeq);
+    }
+
+    private Counter jobCounter(String result) {
+        return Counter.builder("print.dispatch.jobs").tag("result", result).register(meterRegistry);
+    }
+}
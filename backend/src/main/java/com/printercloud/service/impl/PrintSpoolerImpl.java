@@ -0,0 +1,433 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.FileInfo;
+import com.printercloud.entity.Order;
+import com.printercloud.repository.FileInfoRepository;
+import com.printercloud.service.PdfArtifactCache;
+import com.printercloud.service.PrintSpooler;
+import com.printercloud.service.SpooledDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 打印假脱机流水线：fetch（读取订单文件）→ convert（DOC/DOCX经OnlyOffice、图片转PDF）→ normalize（按纸张缩放）
+ * → impose（N合1与双面补页），每个阶段独立的固定线程池与有界队列。
+ * - 入口不阻塞，进入流水线的作业数由打印机集群按每台设备的预取深度控制；
+ * - 下一阶段队列已满时，上一阶段的工作线程阻塞等待，积压不会在阶段之间无限增长；
+ * - 每个阶段暴露队列深度、处理中数量、排队时间与处理时间，用于定位最慢的阶段；
+ * - 小订单合并打印在独立的 combine 阶段执行。
+ */
+@Slf4j
+@Service
+public class PrintSpoolerImpl implements PrintSpooler {
+
+    private static final String SPOOL_DIR = "uploads/spool";
+    private static final String PDF = "application/pdf";
+
+    private final FileInfoRepository fileInfoRepository;
+    private final PdfArtifactCache pdfArtifactCache;
+    private final MeterRegistry meterRegistry;
+    private final int pagesPerSheet;
+    /**
+     * 本节点的假脱机目录：配置了固定节点ID时为 uploads/spool/<节点ID>，否则每次启动使用新的目录
+     */
+    private final File spoolDir;
+    private final boolean stableNodeId;
+    private final long staleMillis;
+
+    private final Stage fetchStage;
+    private final Stage combineStage;
+    private final AtomicInteger spooled = new AtomicInteger();
+
+    public PrintSpoolerImpl(FileInfoRepository fileInfoRepository,
+                            PdfArtifactCache pdfArtifactCache,
+                            MeterRegistry meterRegistry,
+                            @Value("${print.spool.pages-per-sheet:1}") int pagesPerSheet,
+                            @Value("${print.spool.queue-capacity:16}") int queueCapacity,
+                            @Value("${print.spool.fetch-threads:2}") int fetchThreads,
+                            @Value("${print.spool.convert-threads:2}") int convertThreads,
+                            @Value("${print.spool.normalize-threads:2}") int normalizeThreads,
+                            @Value("${print.spool.impose-threads:2}") int imposeThreads,
+                            @Value("${print.spool.combine-threads:1}") int combineThreads,
+                            @Value("${print.dispatch.node-id:}") String nodeId,
+                            @Value("${print.spool.stale-hours:24}") long staleHours) {
+        if (pagesPerSheet != 1 && pagesPerSheet != 2 && pagesPerSheet != 4) {
+            throw new IllegalArgumentException("print.spool.pages-per-sheet 只支持 1、2、4");
+        }
+        this.fileInfoRepository = fileInfoRepository;
+        this.pdfArtifactCache = pdfArtifactCache;
+        this.meterRegistry = meterRegistry;
+        this.pagesPerSheet = pagesPerSheet;
+        this.stableNodeId = nodeId != null && !nodeId.trim().isEmpty();
+        this.spoolDir = new File(SPOOL_DIR, stableNodeId ? nodeId.trim()
+                : "run-" + UUID.randomUUID().toString().replace("-", ""));
+        this.staleMillis = TimeUnit.HOURS.toMillis(staleHours);
+        Stage impose = new Stage("impose", imposeThreads, queueCapacity, this::impose, null);
+        Stage normalize = new Stage("normalize", normalizeThreads, queueCapacity, this::normalize, impose);
+        Stage convert = new Stage("convert", convertThreads, queueCapacity, this::convert, normalize);
+        this.fetchStage = new Stage("fetch", fetchThreads, 0, this::fetch, convert);
+        this.combineStage = new Stage("combine", combineThreads, 0, this::combine, null);
+        Gauge.builder("print.spool.documents", spooled, AtomicInteger::get)
+                .description("已准备完成、尚未释放的文档数").register(meterRegistry);
+    }
+
+    /**
+     * 清理遗留的中间文件。假脱机目录可能由多个节点共享，只清空本节点自己的目录；
+     * 其他节点（或本节点以往运行）的目录只删除超过 stale-hours 未修改的文件，不影响正在打印的节点
+     */
+    @PostConstruct
+    public void init() {
+        if (stableNodeId) {
+            deleteFiles(spoolDir, Long.MAX_VALUE);
+        }
+        if (!spoolDir.exists() && !spoolDir.mkdirs()) {
+            log.warn("无法创建假脱机目录: {}", spoolDir.getAbsolutePath());
+            return;
+        }
+        long before = System.currentTimeMillis() - staleMillis;
+        File[] entries = new File(SPOOL_DIR).listFiles();
+        if (entries == null) {
+            return;
+        }
+        for (File f : entries) {
+            if (f.equals(spoolDir)) {
+                continue;
+            }
+            if (f.isDirectory()) {
+                deleteFiles(f, before);
+                if (f.lastModified() < before) {
+                    // 目录非空时删除失败，保留
+                    f.delete();
+                }
+            } else if (f.lastModified() < before) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * 删除目录下修改时间早于 before 的文件
+     */
+    private static void deleteFiles(File dir, long before) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File f : files) {
+            if (f.isFile() && f.lastModified() < before) {
+                f.delete();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        for (Stage stage = fetchStage; stage != null; stage = stage.next) {
+            stage.executor.shutdownNow();
+        }
+        combineStage.executor.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<SpooledDocument> spool(Order order) {
+        Work work = new Work(order);
+        fetchStage.accept(work);
+        return work.result;
+    }
+
+    @Override
+    public CompletableFuture<SpooledDocument> combine(List<Order> orders, List<SpooledDocument> documents) {
+        Work work = new Work(orders.get(0));
+        work.batch = orders;
+        work.parts = documents;
+        combineStage.accept(work);
+        return work.result;
+    }
+
+    @Override
+    public void release(SpooledDocument document) {
+        if (document == null) {
+            return;
+        }
+        spooled.decrementAndGet();
+        discard(document);
+    }
+
+    private void fetch(Work work) {
+        Order order = work.order;
+        FileInfo fileInfo = fileInfoRepository.findById(order.getFileId())
+                .orElseThrow(() -> new IllegalStateException("订单文件不存在: " + order.getOrderNo()));
+        File source = new File(fileInfo.getFilePath());
+        if (!source.isFile()) {
+            throw new IllegalStateException("订单文件已丢失: " + fileInfo.getFilePath());
+        }
+        work.fileType = fileInfo.getFileType() != null ? fileInfo.getFileType().toUpperCase() : "";
+        work.fileHash = fileInfo.getFileHash();
+        work.document = new SpooledDocument(source, "TXT".equals(work.fileType) ? "text/plain" : PDF,
+                "TXT".equals(work.fileType) ? order.getEstimatedPages() : 0, false);
+    }
+
+    private void convert(Work work) throws Exception {
+        File source = work.document.getFile();
+        switch (work.fileType) {
+            case "DOC":
+            case "DOCX":
+                // 缓存文件可能在打印前被淘汰，占用期间链接到假脱机目录，之后由假脱机自行持有
+                File linked = newSpoolFile(work.order);
+                try (PdfArtifactCache.Artifact pdf = pdfArtifactCache.acquire(work.fileHash, source, work.fileType.toLowerCase())) {
+                    linkOrCopy(pdf.getFile(), linked);
+                } catch (Exception e) {
+                    linked.delete();
+                    throw e;
+                }
+                work.document = new SpooledDocument(linked, PDF, 0, true);
+                return;
+            case "JPG":
+            case "JPEG":
+            case "PNG":
+                File out = newSpoolFile(work.order);
+                try {
+                    PdfImposer.imageToPdf(source, out);
+                } catch (IOException | RuntimeException e) {
+                    out.delete();
+                    throw e;
+                }
+                work.document = new SpooledDocument(out, PDF, 1, true);
+                return;
+            default:
+                skipped("convert");
+        }
+    }
+
+    private void normalize(Work work) throws IOException {
+        Order order = work.order;
+        SpooledDocument doc = work.document;
+        if (!PDF.equals(doc.getFormat())) {
+            skipped("normalize");
+            return;
+        }
+        File out = newSpoolFile(order);
+        try {
+            int pages = PdfImposer.normalize(doc.getFile(), PdfImposer.paper(order.getPaperSize()), out);
+            if (!out.isFile()) {
+                skipped("normalize");
+                work.document = new SpooledDocument(doc.getFile(), PDF, pages, doc.isTemporary());
+                return;
+            }
+            discard(doc);
+            work.document = new SpooledDocument(out, PDF, pages, true);
+        } catch (IOException | RuntimeException e) {
+            out.delete();
+            throw e;
+        }
+    }
+
+    private void impose(Work work) throws IOException {
+        Order order = work.order;
+        SpooledDocument doc = work.document;
+        boolean padEven = Order.Duplex.DOUBLE.getCode().equals(order.getDuplex()) && order.getCopies() > 1;
+        if (!PDF.equals(doc.getFormat()) || (pagesPerSheet == 1 && (!padEven || doc.getPages() % 2 == 0))) {
+            skipped("impose");
+            return;
+        }
+        File out = newSpoolFile(order);
+        try {
+            int pages = PdfImposer.impose(doc.getFile(), PdfImposer.paper(order.getPaperSize()), pagesPerSheet, padEven, out);
+            if (pages < 0) {
+                skipped("impose");
+                return;
+            }
+            discard(doc);
+            work.document = new SpooledDocument(out, PDF, pages, true);
+        } catch (IOException | RuntimeException e) {
+            out.delete();
+            throw e;
+        }
+    }
+
+    private void combine(Work work) throws IOException {
+        List<File> files = new ArrayList<>();
+        List<List<String>> labels = new ArrayList<>();
+        List<Integer> copies = new ArrayList<>();
+        for (int i = 0; i < work.batch.size(); i++) {
+            Order order = work.batch.get(i);
+            SpooledDocument part = work.parts.get(i);
+            if (!PDF.equals(part.getFormat())) {
+                throw new IllegalStateException("只能合并PDF文档: " + order.getOrderNo());
+            }
+            int n = order.getCopies() != null ? Math.max(1, order.getCopies()) : 1;
+            files.add(part.getFile());
+            copies.add(n);
+            labels.add(Arrays.asList(
+                    "ORDER " + order.getOrderNo(),
+                    "COPIES " + n + "    PAGES " + part.getPages(),
+                    order.getPaperSize() + "  " + order.getColorType() + "  " + order.getDuplex(),
+                    "BATCH " + (i + 1) + "/" + work.batch.size()));
+        }
+        Order first = work.order;
+        File out = newSpoolFile(first);
+        try {
+            int pages = PdfImposer.combine(files, labels, copies, Order.Duplex.DOUBLE.getCode().equals(first.getDuplex()),
+                    PdfImposer.paper(first.getPaperSize()), out);
+            work.document = new SpooledDocument(out, PDF, pages, true);
+        } catch (IOException | RuntimeException e) {
+            out.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * 优先建立硬链接，不支持时（如跨文件系统）复制
+     */
+    private static void linkOrCopy(File source, File target) throws IOException {
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private File newSpoolFile(Order order) {
+        // 目录可能被其他节点按过期清理删除，使用前确保存在
+        if (!spoolDir.isDirectory()) {
+            spoolDir.mkdirs();
+        }
+        return new File(spoolDir, order.getOrderNo() + "-" + UUID.randomUUID().toString().substring(0, 8) + ".pdf");
+    }
+
+    private void discard(SpooledDocument doc) {
+        if (doc.isTemporary() && doc.getFile().exists() && !doc.getFile().delete()) {
+            log.warn("删除假脱机文件失败: {}", doc.getFile().getAbsolutePath());
+        }
+    }
+
+    private void skipped(String stage) {
+        Counter.builder("print.spool.skipped").tag("stage", stage)
+                .description("无需处理直接传给下一阶段的文档数").register(meterRegistry).increment();
+    }
+
+    @FunctionalInterface
+    private interface StageTask {
+        void run(Work work) throws Exception;
+    }
+
+    /**
+     * 流经流水线的一个订单（合并时为同一批订单），各阶段依次替换 document
+     */
+    private static final class Work {
+        final Order order;
+        final CompletableFuture<SpooledDocument> result = new CompletableFuture<>();
+        String fileType;
+        String fileHash;
+        SpooledDocument document;
+        List<Order> batch;
+        List<SpooledDocument> parts;
+
+        Work(Order order) {
+            this.order = order;
+        }
+    }
+
+    /**
+     * 流水线中的一个阶段，处理完成后由本阶段的工作线程交给下一阶段：
+     * capacity 为 0 时队列不限长（入口阶段），否则队列满时交付方阻塞
+     */
+    private final class Stage {
+        final StageTask task;
+        final Stage next;
+        final ThreadPoolExecutor executor;
+        final Timer waitTimer;
+        final Timer serviceTimer;
+
+        Stage(String name, int threads, int capacity, StageTask task, Stage next) {
+            this.task = task;
+            this.next = next;
+            BlockingQueue<Runnable> queue = capacity > 0 ? new ArrayBlockingQueue<>(capacity) : new LinkedBlockingQueue<>();
+            AtomicInteger seq = new AtomicInteger();
+            this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, queue, r -> {
+                Thread t = new Thread(r, "spool-" + name + "-" + seq.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            }, (r, pool) -> {
+                if (pool.isShutdown()) {
+                    throw new RejectedExecutionException("假脱机已停止");
+                }
+                try {
+                    // 固定线程数且线程已预启动，直接放入队列即可被取走执行
+                    pool.getQueue().put(r);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("等待假脱机队列时被中断", e);
+                }
+            });
+            this.executor.prestartAllCoreThreads();
+            this.waitTimer = Timer.builder("print.spool.wait").tag("stage", name)
+                    .description("文档在阶段队列中的等待时间").register(meterRegistry);
+            this.serviceTimer = Timer.builder("print.spool.service").tag("stage", name)
+                    .description("阶段处理时间").register(meterRegistry);
+            Gauge.builder("print.spool.queue", queue, BlockingQueue::size).tag("stage", name)
+                    .description("阶段队列深度").register(meterRegistry);
+            Gauge.builder("print.spool.active", executor, ThreadPoolExecutor::getActiveCount).tag("stage", name)
+                    .description("阶段处理中的文档数").register(meterRegistry);
+        }
+
+        void accept(Work work) {
+            long enqueuedAt = System.nanoTime();
+            try {
+                executor.execute(() -> process(work, enqueuedAt));
+            } catch (RejectedExecutionException e) {
+                fail(work, e);
+            }
+        }
+
+        private void process(Work work, long enqueuedAt) {
+            long start = System.nanoTime();
+            waitTimer.record(start - enqueuedAt, TimeUnit.NANOSECONDS);
+            try {
+                task.run(work);
+            } catch (Throwable e) {
+                fail(work, e);
+                return;
+            } finally {
+                serviceTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+            if (next != null) {
+                next.accept(work);
+            } else {
+                spooled.incrementAndGet();
+                work.result.complete(work.document);
+            }
+        }
+
+        private void fail(Work work, Throwable error) {
+            if (work.document != null) {
+                discard(work.document);
+            }
+            work.result.completeExceptionally(error);
+        }
+    }
+}
@@ -0,0 +1,655 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.dto.response.PrinterStatusResponse;
+import com.printercloud.entity.Order;
+import com.printercloud.entity.Printer;
+import com.printercloud.repository.OrderRepository;
+import com.printercloud.repository.PrinterRepository;
+import com.printercloud.service.PrintSpooler;
+import com.printercloud.service.PrinterDriver;
+import com.printercloud.service.PrinterFleet;
+import com.printercloud.service.PrinterLoad;
+import com.printercloud.service.PrinterRouter;
+import com.printercloud.service.RoutingPolicy;
+import com.printercloud.service.SpooledDocument;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 打印机集群实现：
+ * - 每台打印机一个内存FIFO队列，同一时刻只向设备提交一个作业，驱动异步完成后再提交下一个；
+ * - 路由时只考虑已启用、在线且满足颜色/纸张/单双面要求的设备，订单已分配过且该设备仍可用时优先保持原设备；
+ * - 队列深度 = 本节点排队页数 + 其他节点分配到该设备的页数（定时从数据库汇总），启动时同样从数据库重建；
+ * - 打印速度按完成作业的实测值滑动平均，并定时回写数据库；
+ * - 设备连续失败达到阈值后暂时下线，队列中尚未开始的作业直接改派到其他可用设备，不计入打印重试次数，没有可用设备时才失败；
+ * - 每台设备队首的若干个作业提前交给假脱机准备文档，设备完成当前作业后直接发送下一个；
+ * - 开启合并后，同一设备上纸张、颜色、单双面相同的小作业合并为一个带分隔页的作业提交，各订单仍分别完成。
+ */
+@Slf4j
+@Service
+public class PrinterFleetImpl implements PrinterFleet {
+
+    /**
+     * 实测速度的滑动平均权重
+     */
+    private static final double PPM_ALPHA = 0.3;
+
+    private final PrinterRepository printerRepository;
+    private final OrderRepository orderRepository;
+    private final PrinterDriver printerDriver;
+    private final PrintSpooler printSpooler;
+    private final MeterRegistry meterRegistry;
+    private final PrinterRouter router;
+    private final int failureThreshold;
+    private final long offlineCooldownMs;
+    private final int lookahead;
+    private final boolean coalesceEnabled;
+    private final int coalesceMaxPages;
+    private final int coalesceMaxBatch;
+    private final long coalesceWindowMs;
+    private final ScheduledExecutorService coalesceTimer;
+
+    private final Map<Long, Device> devices = new ConcurrentHashMap<>();
+    private final Counter unroutableCounter;
+    private final Counter failoverCounter;
+
+    public PrinterFleetImpl(PrinterRepository printerRepository,
+                            OrderRepository orderRepository,
+                            PrinterDriver printerDriver,
+                            PrintSpooler printSpooler,
+                            MeterRegistry meterRegistry,
+                            @Value("${print.fleet.routing-policy:FASTEST_FINISH}") RoutingPolicy routingPolicy,
+                            @Value("${print.fleet.failure-threshold:3}") int failureThreshold,
+                            @Value("${print.fleet.offline-cooldown-ms:60000}") long offlineCooldownMs,
+                            @Value("${print.spool.lookahead:3}") int lookahead,
+                            @Value("${print.fleet.coalesce.enabled:false}") boolean coalesceEnabled,
+                            @Value("${print.fleet.coalesce.max-pages:3}") int coalesceMaxPages,
+                            @Value("${print.fleet.coalesce.max-batch-size:10}") int coalesceMaxBatch,
+                            @Value("${print.fleet.coalesce.wait-window-ms:2000}") long coalesceWindowMs) {
+        this.printerRepository = printerRepository;
+        this.orderRepository = orderRepository;
+        this.printerDriver = printerDriver;
+        this.printSpooler = printSpooler;
+        this.meterRegistry = meterRegistry;
+        this.router = new PrinterRouter(routingPolicy);
+        this.failureThreshold = failureThreshold;
+        this.offlineCooldownMs = offlineCooldownMs;
+        this.lookahead = lookahead;
+        this.coalesceEnabled = coalesceEnabled;
+        this.coalesceMaxPages = coalesceMaxPages;
+        this.coalesceMaxBatch = coalesceMaxBatch;
+        this.coalesceWindowMs = coalesceWindowMs;
+        this.coalesceTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "fleet-coalesce");
+            t.setDaemon(true);
+            return t;
+        });
+        this.unroutableCounter = Counter.builder("print.fleet.unroutable").register(meterRegistry);
+        this.failoverCounter = Counter.builder("print.fleet.failover")
+                .description("设备下线时改派的排队作业数").register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reload();
+        syncLoad();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coalesceTimer.shutdownNow();
+    }
+
+    @Override
+    public CompletionStage<Void> submit(Order order) {
+        Job job = new Job(order, jobPages(order));
+        try {
+            if (!enqueue(job)) {
+                unroutableCounter.increment();
+                return failed(new IllegalStateException("没有满足要求的可用打印机"));
+            }
+        } catch (RuntimeException e) {
+            return failed(e);
+        }
+        return job.result;
+    }
+
+    /**
+     * 把作业排入路由选中的设备队列，没有可用设备时返回false；租约已失效时抛出异常，作业不会打印
+     */
+    private boolean enqueue(Job job) {
+        Order order = job.order;
+        Device device;
+        synchronized (this) {
+            device = route(order, job.pages);
+            if (device == null) {
+                return false;
+            }
+            // 先计入负载，避免同一批订单在入队前都选中同一台设备
+            synchronized (device) {
+                device.localPages += job.pages;
+            }
+        }
+        Long printerId = device.printer.getId();
+        if (!printerId.equals(order.getPrinterId())) {
+            int updated;
+            try {
+                updated = orderRepository.assignPrinter(order.getId(), order.getLeaseToken(), printerId);
+            } catch (RuntimeException e) {
+                synchronized (device) {
+                    device.localPages -= job.pages;
+                }
+                throw e;
+            }
+            if (updated == 0) {
+                // 租约已被其他节点接管，本节点不能再打印该订单
+                synchronized (device) {
+                    device.localPages -= job.pages;
+                }
+                throw new IllegalStateException("打印租约已失效: " + order.getOrderNo());
+            }
+            order.setPrinterId(printerId);
+        }
+        synchronized (device) {
+            device.queue.addLast(job);
+        }
+        prefetch(device);
+        Counter.builder("print.fleet.routed").tag("printer", device.printer.getName()).register(meterRegistry).increment();
+        startNext(device);
+        return true;
+    }
+
+    @Override
+    public synchronized void reload() {
+        Map<Long, Printer> latest = new HashMap<>();
+        for (Printer printer : printerRepository.findAllByOrderByIdAsc()) {
+            latest.put(printer.getId(), printer);
+        }
+        for (Printer printer : latest.values()) {
+            Device device = devices.get(printer.getId());
+            if (device == null) {
+                devices.put(printer.getId(), newDevice(printer));
+            } else {
+                // 实测速度以内存中的滑动平均为准
+                device.printer = printer;
+            }
+        }
+        for (Device device : devices.values()) {
+            if (!latest.containsKey(device.printer.getId())) {
+                device.removed = true;
+            }
+        }
+        devices.values().removeIf(d -> d.removed && d.isIdle());
+        log.info("打印机列表已加载: {}台", latest.size());
+    }
+
+    /**
+     * 汇总其他节点分配到各设备的页数，并回写实测打印速度
+     */
+    @Scheduled(fixedDelayString = "${print.fleet.load-sync-interval-ms:5000}")
+    public void syncLoad() {
+        try {
+            Map<Long, Long> printing = new HashMap<>();
+            for (Object[] row : orderRepository.sumPrintingPagesByPrinter()) {
+                printing.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            for (Device device : devices.values()) {
+                long total = printing.getOrDefault(device.printer.getId(), 0L);
+                synchronized (device) {
+                    device.externalPages = Math.max(0, total - device.localPages);
+                }
+                Double measured = device.measuredPpm;
+                if (measured != null && !measured.equals(device.persistedPpm)) {
+                    printerRepository.updateMeasuredPpm(device.printer.getId(), measured);
+                    device.persistedPpm = measured;
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("同步打印机负载失败: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<PrinterStatusResponse> status() {
+        List<PrinterStatusResponse> result = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (Device device : devices.values()) {
+            PrinterStatusResponse resp = new PrinterStatusResponse();
+            synchronized (device) {
+                resp.setId(device.printer.getId());
+                resp.setName(device.printer.getName());
+                resp.setEnabled(device.printer.isEnabled() && !device.removed);
+                resp.setOnline(device.isOnline(now));
+                resp.setQueuedJobs(device.queue.size() + (device.running != null ? device.running.size() : 0));
+                resp.setQueuedPages(device.localPages);
+                resp.setExternalPages(device.externalPages);
+                resp.setPagesPerMinute(device.getPagesPerMinute());
+                double ppm = device.getPagesPerMinute();
+                resp.setEstimatedWaitSeconds(ppm > 0 ? (long) (device.getQueuedPages() * 60 / ppm) : null);
+                resp.setCurrentOrderNo(device.running != null ? device.running.get(0).order.getOrderNo() : null);
+            }
+            result.add(resp);
+        }
+        result.sort((a, b) -> a.getId().compareTo(b.getId()));
+        return result;
+    }
+
+    private Device route(Order order, long pages) {
+        long now = System.currentTimeMillis();
+        List<Device> candidates = new ArrayList<>();
+        for (Device device : devices.values()) {
+            if (device.removed || !device.printer.isEnabled() || !device.isOnline(now)) {
+                continue;
+            }
+            if (!device.printer.supports(order.getColorType(), order.getPaperSize(), order.getDuplex())) {
+                continue;
+            }
+            // 重新认领的订单仍可用原设备时保持不变，维持设备队列顺序
+            if (device.printer.getId().equals(order.getPrinterId())) {
+                return device;
+            }
+            candidates.add(device);
+        }
+        return router.choose(candidates, pages);
+    }
+
+    private void startNext(Device device) {
+        List<Job> batch;
+        synchronized (device) {
+            if (device.running != null || device.queue.isEmpty()) {
+                return;
+            }
+            batch = takeNext(device);
+            if (batch == null) {
+                return;
+            }
+            device.running = batch;
+            long now = System.nanoTime();
+            for (Job job : batch) {
+                job.startedAt = now;
+                if (job.document == null) {
+                    job.document = printSpooler.spool(job.order);
+                }
+            }
+        }
+        for (Job job : batch) {
+            device.waitTimer.record(job.startedAt - job.enqueuedAt, TimeUnit.NANOSECONDS);
+        }
+        prefetch(device);
+        if (batch.size() > 1) {
+            startBatch(device, batch);
+            return;
+        }
+        Job job = batch.get(0);
+        job.document.whenComplete((document, spoolError) -> {
+            if (spoolError != null) {
+                // 文档准备失败与设备无关，不计入设备连续失败
+                onJobDone(device, batch, 0, unwrap(spoolError), false);
+                return;
+            }
+            print(device, batch, job.order, document);
+        });
+    }
+
+    /**
+     * 取出下一个要打印的作业：队首是小作业时挑出队列中与它兼容的小作业一起合并打印。
+     * 未凑满一批且队首等待未超过合并窗口时，先打印不参与合并的作业，没有则到窗口结束时再取，返回 null
+     */
+    private List<Job> takeNext(Device device) {
+        Job head = device.queue.peekFirst();
+        if (!coalesceEnabled || !coalescible(head)) {
+            return Collections.singletonList(device.queue.pollFirst());
+        }
+        List<Job> batch = new ArrayList<>();
+        for (Job job : device.queue) {
+            if (batch.size() >= coalesceMaxBatch) {
+                break;
+            }
+            if (coalescible(job) && compatible(head.order, job.order)) {
+                batch.add(job);
+            }
+        }
+        long waitedMs = (System.nanoTime() - head.enqueuedAt) / 1_000_000;
+        if (batch.size() < coalesceMaxBatch && waitedMs < coalesceWindowMs) {
+            for (Iterator<Job> it = device.queue.iterator(); it.hasNext(); ) {
+                Job job = it.next();
+                if (!coalescible(job)) {
+                    it.remove();
+                    return Collections.singletonList(job);
+                }
+            }
+            if (!device.wakeScheduled) {
+                device.wakeScheduled = true;
+                coalesceTimer.schedule(() -> {
+                    synchronized (device) {
+                        device.wakeScheduled = false;
+                    }
+                    startNext(device);
+                }, coalesceWindowMs - waitedMs, TimeUnit.MILLISECONDS);
+            }
+            return null;
+        }
+        device.queue.removeAll(batch);
+        return batch;
+    }
+
+    /**
+     * 各订单的文档准备好后合并为一个作业：准备失败的订单单独失败，其余放回队首；合并失败时放回队首并改为逐个打印
+     */
+    private void startBatch(Device device, List<Job> batch) {
+        CompletableFuture<?>[] documents = new CompletableFuture<?>[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            documents[i] = batch.get(i).document;
+        }
+        CompletableFuture.allOf(documents).whenComplete((v, ignored) -> {
+            List<Job> ready = new ArrayList<>();
+            List<Job> failedJobs = new ArrayList<>();
+            for (Job job : batch) {
+                (job.document.isCompletedExceptionally() ? failedJobs : ready).add(job);
+            }
+            if (!failedJobs.isEmpty()) {
+                requeue(device, ready, false);
+                for (Job job : failedJobs) {
+                    synchronized (device) {
+                        device.localPages -= job.pages;
+                    }
+                    job.result.completeExceptionally(unwrap(job.document.handle((d, e) -> e).join()));
+                }
+                startNext(device);
+                return;
+            }
+            List<Order> orders = new ArrayList<>();
+            List<SpooledDocument> parts = new ArrayList<>();
+            for (Job job : batch) {
+                orders.add(job.order);
+                parts.add(job.document.join());
+            }
+            printSpooler.combine(orders, parts).whenComplete((combined, combineError) -> {
+                if (combineError != null) {
+                    log.warn("合并打印失败，改为逐个打印: {}", unwrap(combineError).getMessage());
+                    requeue(device, batch, true);
+                    startNext(device);
+                    return;
+                }
+                for (SpooledDocument part : parts) {
+                    printSpooler.release(part);
+                }
+                device.batchSize.record(batch.size());
+                print(device, batch, batchOrder(batch, combined), combined);
+            });
+        });
+    }
+
+    private void print(Device device, List<Job> jobs, Order order, SpooledDocument document) {
+        // 合并打印时为合并后文档的页数，而不是各订单页数之和
+        long printedPages = jobPages(order);
+        long now = System.nanoTime();
+        device.stallTimer.record(now - jobs.get(0).startedAt, TimeUnit.NANOSECONDS);
+        for (Job job : jobs) {
+            job.printStartedAt = now;
+        }
+        try {
+            printerDriver.print(device.printer, order, document).whenComplete((v, error) -> {
+                printSpooler.release(document);
+                onJobDone(device, jobs, printedPages, error, true);
+            });
+        } catch (RuntimeException e) {
+            printSpooler.release(document);
+            onJobDone(device, jobs, printedPages, e, true);
+        }
+    }
+
+    /**
+     * 未开始打印的作业按原顺序放回队首，已准备的文档保留
+     */
+    private void requeue(Device device, List<Job> jobs, boolean single) {
+        synchronized (device) {
+            device.running = null;
+            for (int i = jobs.size() - 1; i >= 0; i--) {
+                Job job = jobs.get(i);
+                job.single |= single;
+                device.queue.addFirst(job);
+            }
+        }
+    }
+
+    /**
+     * 队首 lookahead 个排队作业提前开始准备文档，正在打印的作业不计入
+     */
+    private void prefetch(Device device) {
+        synchronized (device) {
+            int ahead = 0;
+            for (Job job : device.queue) {
+                if (ahead++ >= lookahead) {
+                    break;
+                }
+                if (job.document == null) {
+                    job.document = printSpooler.spool(job.order);
+                }
+            }
+        }
+    }
+
+    /**
+     * printedPages 为实际送到设备的页数，用于更新实测速度
+     */
+    private void onJobDone(Device device, List<Job> jobs, long printedPages, Throwable error, boolean deviceFault) {
+        List<Job> rerouted = new ArrayList<>();
+        long pages = 0;
+        for (Job job : jobs) {
+            pages += job.pages;
+        }
+        synchronized (device) {
+            device.running = null;
+            device.localPages -= pages;
+            if (error == null) {
+                device.consecutiveFailures = 0;
+                double minutes = (System.nanoTime() - jobs.get(0).printStartedAt) / 60e9;
+                if (minutes > 0 && printedPages > 0) {
+                    double observed = printedPages / minutes;
+                    device.measuredPpm = device.measuredPpm == null
+                            ? observed
+                            : device.measuredPpm * (1 - PPM_ALPHA) + observed * PPM_ALPHA;
+                }
+            } else if (deviceFault && ++device.consecutiveFailures >= failureThreshold) {
+                device.offlineUntil = System.currentTimeMillis() + offlineCooldownMs;
+                log.warn("打印机{}连续失败{}次，暂停{}ms，排队中的{}个作业改派", device.printer.getName(),
+                        device.consecutiveFailures, offlineCooldownMs, device.queue.size());
+                rerouted.addAll(device.queue);
+                device.queue.clear();
+                for (Job queued : rerouted) {
+                    device.localPages -= queued.pages;
+                }
+            }
+        }
+        for (Job job : jobs) {
+            if (error == null) {
+                job.result.complete(null);
+            } else {
+                job.result.completeExceptionally(error);
+            }
+        }
+        for (Job queued : rerouted) {
+            failover(device, queued);
+        }
+        if (device.removed && device.isIdle()) {
+            devices.remove(device.printer.getId(), device);
+        } else {
+            startNext(device);
+        }
+    }
+
+    /**
+     * 下线设备上排队的作业改派到其他可用设备，作业结果不变，调度器不会计为一次失败；
+     * 已准备的文档与设备无关，随作业一起转移。没有可用设备时作业失败，由调度器稍后重试
+     */
+    private void failover(Device from, Job job) {
+        RuntimeException error = null;
+        try {
+            if (enqueue(job)) {
+                failoverCounter.increment();
+                return;
+            }
+        } catch (RuntimeException e) {
+            error = e;
+        }
+        log.warn("打印机{}下线，订单{}没有可改派的设备", from.printer.getName(), job.order.getOrderNo());
+        if (job.document != null) {
+            job.document.thenAccept(printSpooler::release);
+        }
+        job.result.completeExceptionally(error != null ? error
+                : new IllegalStateException("打印机已下线: " + from.printer.getName()));
+    }
+
+    private Device newDevice(Printer printer) {
+        Device device = new Device(printer);
+        device.measuredPpm = printer.getMeasuredPpm();
+        device.persistedPpm = printer.getMeasuredPpm();
+        String name = printer.getName();
+        Gauge.builder("print.fleet.queue.pages", device, Device::getQueuedPages).tag("printer", name).register(meterRegistry);
+        Gauge.builder("print.fleet.queue.jobs", device, d -> d.queue.size() + (d.running != null ? d.running.size() : 0))
+                .tag("printer", name).register(meterRegistry);
+        Gauge.builder("print.fleet.ppm", device, Device::getPagesPerMinute).tag("printer", name).register(meterRegistry);
+        device.waitTimer = Timer.builder("print.fleet.wait").tag("printer", name).register(meterRegistry);
+        device.stallTimer = Timer.builder("print.fleet.stall").tag("printer", name)
+                .description("设备空闲等待文档准备的时间").register(meterRegistry);
+        device.batchSize = DistributionSummary.builder("print.fleet.batch.size").tag("printer", name)
+                .description("合并打印的每批订单数").register(meterRegistry);
+        return device;
+    }
+
+    private static CompletableFuture<Void> failed(Throwable error) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        future.completeExceptionally(error);
+        return future;
+    }
+
+    private boolean coalescible(Job job) {
+        return !job.single && job.pages <= coalesceMaxPages;
+    }
+
+    private static boolean compatible(Order a, Order b) {
+        return Objects.equals(a.getPaperSize(), b.getPaperSize())
+                && Objects.equals(a.getColorType(), b.getColorType())
+                && Objects.equals(a.getDuplex(), b.getDuplex());
+    }
+
+    /**
+     * 合并作业交给驱动时使用的订单描述，不持久化：份数为1，页数为合并后文档的页数
+     */
+    private static Order batchOrder(List<Job> batch, SpooledDocument combined) {
+        Order first = batch.get(0).order;
+        Order order = new Order();
+        order.setOrderNo(first.getOrderNo() + "+" + (batch.size() - 1));
+        order.setUserId(first.getUserId());
+        order.setPrinterId(first.getPrinterId());
+        order.setColorType(first.getColorType());
+        order.setPaperSize(first.getPaperSize());
+        order.setDuplex(first.getDuplex());
+        order.setCopies(1);
+        order.setEstimatedPages(combined.getPages());
+        return order;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private static long jobPages(Order order) {
+        return (long) Math.max(1, order.getEstimatedPages()) * Math.max(1, order.getCopies());
+    }
+
+    /**
+     * 单台设备的运行状态，字段由设备自身的锁保护
+     */
+    private static final class Device implements PrinterLoad {
+        volatile Printer printer;
+        final Deque<Job> queue = new ArrayDeque<>();
+        List<Job> running;
+        long localPages;
+        volatile long externalPages;
+        volatile Double measuredPpm;
+        Double persistedPpm;
+        int consecutiveFailures;
+        volatile long offlineUntil;
+        volatile boolean removed;
+        Timer waitTimer;
+        Timer stallTimer;
+        DistributionSummary batchSize;
+        boolean wakeScheduled;
+
+        Device(Printer printer) {
+            this.printer = printer;
+        }
+
+        boolean isOnline(long now) {
+            return now >= offlineUntil;
+        }
+
+        synchronized boolean isIdle() {
+            return running == null && queue.isEmpty();
+        }
+
+        @Override
+        public Printer getPrinter() {
+            return printer;
+        }
+
+        @Override
+        public synchronized long getQueuedPages() {
+            return localPages + externalPages;
+        }
+
+        @Override
+        public double getPagesPerMinute() {
+            Double measured = measuredPpm;
+            return measured != null && measured > 0 ? measured : printer.getRatedPpm();
+        }
+    }
+
+    private static final class Job {
+        final Order order;
+        final long pages;
+        final long enqueuedAt = System.nanoTime();
+        final CompletableFuture<Void> result = new CompletableFuture<>();
+        CompletableFuture<SpooledDocument> document;
+        long startedAt;
+        long printStartedAt;
+        /**
+         * 合并失败后改为单独打印
+         */
+        boolean single;
+
+        Job(Order order, long pages) {
+            this.order = order;
+            this.pages = pages;
+        }
+    }
+}
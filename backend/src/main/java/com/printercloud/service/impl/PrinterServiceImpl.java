@@ -0,0 +1,199 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.dto.request.FleetSimulationRequest;
+import com.printercloud.dto.request.PrinterRequest;
+import com.printercloud.dto.response.FleetSimulationResponse;
+import com.printercloud.entity.Order;
+import com.printercloud.entity.Printer;
+import com.printercloud.repository.OrderRepository;
+import com.printercloud.repository.PrinterRepository;
+import com.printercloud.service.PrinterFleet;
+import com.printercloud.service.PrinterService;
+import com.printercloud.service.RoutingPolicy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * 打印机管理服务实现类
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PrinterServiceImpl implements PrinterService {
+
+    private static final int MAX_REPLAY = 100000;
+
+    private final PrinterRepository printerRepository;
+    private final OrderRepository orderRepository;
+    private final PrinterFleet printerFleet;
+
+    @Override
+    public List<Printer> getPrinters() {
+        return printerRepository.findAllByOrderByIdAsc();
+    }
+
+    @Override
+    public Printer savePrinter(PrinterRequest request) {
+        Printer printer;
+        if (request.getId() != null) {
+            printer = printerRepository.findById(request.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("打印机不存在"));
+        } else {
+            printer = new Printer();
+        }
+        if (request.getRatedPpm() == null || request.getRatedPpm() <= 0) {
+            throw new IllegalArgumentException("额定打印速度必须大于0");
+        }
+        Optional<Printer> sameName = printerRepository.findByName(request.getName().trim());
+        if (sameName.isPresent() && !sameName.get().getId().equals(printer.getId())) {
+            throw new IllegalArgumentException("打印机名称已存在");
+        }
+        printer.setName(request.getName().trim());
+        printer.setDeviceUri(request.getDeviceUri());
+        printer.setColorCapable(Boolean.TRUE.equals(request.getColorCapable()));
+        printer.setDuplexCapable(Boolean.TRUE.equals(request.getDuplexCapable()));
+        printer.setPaperSizes(normalizePaperSizes(request.getPaperSizes()));
+        printer.setRatedPpm(request.getRatedPpm());
+        if (request.getStatus() != null) {
+            printer.setStatus(request.getStatus());
+        }
+        printer.setDescription(request.getDescription());
+
+        printer = printerRepository.save(printer);
+        printerFleet.reload();
+        log.info("打印机保存成功: id={}, name={}", printer.getId(), printer.getName());
+        return printer;
+    }
+
+    @Override
+    public boolean togglePrinterStatus(Long id) {
+        return printerRepository.findById(id).map(printer -> {
+            printer.setStatus(printer.isEnabled() ? 0 : 1);
+            printerRepository.save(printer);
+            printerFleet.reload();
+            log.info("打印机状态切换: id={}, status={}", id, printer.getStatus());
+            return true;
+        }).orElse(false);
+    }
+
+    @Override
+    public boolean deletePrinter(Long id) {
+        if (!printerRepository.existsById(id)) {
+            return false;
+        }
+        printerRepository.deleteById(id);
+        printerFleet.reload();
+        log.info("打印机删除成功: id={}", id);
+        return true;
+    }
+
+    @Override
+    public FleetSimulationResponse simulate(FleetSimulationRequest request) {
+        List<Printer> printers = simulationPrinters(request);
+        if (printers.isEmpty()) {
+            throw new IllegalArgumentException("没有可用于模拟的打印机");
+        }
+        List<FleetSimulator.SimOrder> orders = simulationOrders(request);
+
+        List<RoutingPolicy> policies = new ArrayList<>();
+        if (request.getPolicies() == null || request.getPolicies().isEmpty()) {
+            Collections.addAll(policies, RoutingPolicy.values());
+        } else {
+            for (String name : request.getPolicies()) {
+                try {
+                    policies.add(RoutingPolicy.valueOf(name.trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("未知的路由策略: " + name);
+                }
+            }
+        }
+
+        FleetSimulationResponse response = new FleetSimulationResponse();
+        response.setOrders(orders.size());
+        response.setResults(policies.stream()
+                .map(policy -> FleetSimulator.run(printers, orders, policy))
+                .collect(Collectors.toList()));
+        return response;
+    }
+
+    private List<Printer> simulationPrinters(FleetSimulationRequest request) {
+        if (request.getPrinters() == null || request.getPrinters().isEmpty()) {
+            return printerRepository.findAllByOrderByIdAsc().stream()
+                    .filter(Printer::isEnabled)
+                    .collect(Collectors.toList());
+        }
+        List<Printer> printers = new ArrayList<>();
+        for (FleetSimulationRequest.PrinterSpec spec : request.getPrinters()) {
+            if (spec.getPpm() == null || spec.getPpm() <= 0) {
+                throw new IllegalArgumentException("模拟打印机的打印速度必须大于0");
+            }
+            Printer printer = new Printer();
+            printer.setName(spec.getName() != null ? spec.getName() : "sim-" + (printers.size() + 1));
+            printer.setRatedPpm(spec.getPpm());
+            printer.setColorCapable(Boolean.TRUE.equals(spec.getColorCapable()));
+            printer.setDuplexCapable(Boolean.TRUE.equals(spec.getDuplexCapable()));
+            printer.setPaperSizes(normalizePaperSizes(spec.getPaperSizes()));
+            printers.add(printer);
+        }
+        return printers;
+    }
+
+    private List<FleetSimulator.SimOrder> simulationOrders(FleetSimulationRequest request) {
+        double speedup = request.getSpeedup() != null && request.getSpeedup() > 0 ? request.getSpeedup() : 1;
+        List<FleetSimulator.SimOrder> orders = new ArrayList<>();
+        if (request.getOrders() != null && !request.getOrders().isEmpty()) {
+            if (request.getOrders().size() > MAX_REPLAY) {
+                throw new IllegalArgumentException("模拟订单数不能超过" + MAX_REPLAY);
+            }
+            for (FleetSimulationRequest.Item item : request.getOrders()) {
+                long arrival = item.getArrivalMs() != null ? item.getArrivalMs() : 0;
+                int pages = item.getPages() != null ? Math.max(1, item.getPages()) : 1;
+                int copies = item.getCopies() != null ? Math.max(1, item.getCopies()) : 1;
+                orders.add(new FleetSimulator.SimOrder((long) (arrival / speedup), (long) pages * copies,
+                        item.getColorType(), item.getPaperSize(), item.getDuplex()));
+            }
+        } else {
+            int limit = request.getReplayRecent() != null ? request.getReplayRecent() : 500;
+            if (limit <= 0 || limit > MAX_REPLAY) {
+                throw new IllegalArgumentException("回放订单数必须在1-" + MAX_REPLAY + "之间");
+            }
+            List<Order> recent = orderRepository.findAll(
+                    PageRequest.of(0, limit, Sort.by(Sort.Direction.DESC, "createdTime"))).getContent();
+            if (recent.isEmpty()) {
+                return orders;
+            }
+            long first = recent.get(recent.size() - 1).getCreatedTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            for (Order order : recent) {
+                long arrival = order.getCreatedTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() - first;
+                orders.add(new FleetSimulator.SimOrder((long) (arrival / speedup),
+                        (long) Math.max(1, order.getEstimatedPages()) * Math.max(1, order.getCopies()),
+                        order.getColorType(), order.getPaperSize(), order.getDuplex()));
+            }
+        }
+        orders.sort(Comparator.comparingLong(o -> o.arrivalMs));
+        return orders;
+    }
+
+    private static String normalizePaperSizes(String paperSizes) {
+        if (paperSizes == null || paperSizes.trim().isEmpty()) {
+            return "A4";
+        }
+        return Arrays.stream(paperSizes.split(","))
+                .map(s -> s.trim().toUpperCase())
+                .filter(s -> !s.isEmpty())
+                .distinct()
+                .collect(Collectors.joining(","));
+    }
+}
@@ -0,0 +1,37 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.service.PriceChangePublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.UUID;
+
+/**
+ * 通过Redis发布/订阅广播价格变更，消息格式为 "节点ID 指纹"
+ */
+@Slf4j
+public class RedisPriceChangePublisher implements PriceChangePublisher {
+
+    /**
+     * 本节点标识，用于忽略自己发出的消息
+     */
+    public static final String NODE_ID = UUID.randomUUID().toString();
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+
+    public RedisPriceChangePublisher(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    @Override
+    public void publish(String fingerprint) {
+        try {
+            redisTemplate.convertAndSend(channel, NODE_ID + " " + fingerprint);
+        } catch (RuntimeException e) {
+            // 广播失败时其他节点依靠定时指纹检查追上
+            log.warn("价格变更广播失败: {}", e.getMessage());
+        }
+    }
+}
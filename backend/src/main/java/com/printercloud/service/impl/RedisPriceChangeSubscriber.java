@@ -0,0 +1,74 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.service.PriceTable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 订阅其他节点的价格变更广播。订阅在应用启动完成后建立，断开后定时重试，
+ * Redis不可用时不影响启动，期间由定时指纹检查保证最终一致
+ */
+@Slf4j
+public class RedisPriceChangeSubscriber implements MessageListener {
+
+    private final RedisMessageListenerContainer container;
+    private final PriceTable priceTable;
+    private boolean warned;
+
+    public RedisPriceChangeSubscriber(RedisMessageListenerContainer container, PriceTable priceTable, String channel) {
+        this.container = container;
+        this.priceTable = priceTable;
+        container.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        int sep = body.indexOf(' ');
+        if (sep < 0) {
+            log.warn("无法识别的价格变更消息: {}", body);
+            return;
+        }
+        if (RedisPriceChangePublisher.NODE_ID.equals(body.substring(0, sep))) {
+            return;
+        }
+        priceTable.onRemoteChange(body.substring(sep + 1));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        ensureSubscribed();
+    }
+
+    @Scheduled(fixedDelayString = "${price.sync.redis.resubscribe-interval-ms:10000}")
+    public synchronized void ensureSubscribed() {
+        if (container.isListening()) {
+            return;
+        }
+        try {
+            if (container.isRunning()) {
+                container.stop();
+            }
+            container.start();
+            if (warned) {
+                log.info("价格变更订阅已恢复");
+                // 断开期间可能错过消息
+                priceTable.onRemoteChange("");
+            }
+            warned = false;
+        } catch (RuntimeException e) {
+            if (!warned) {
+                log.warn("价格变更订阅暂未建立，将定时重试: {}", e.getMessage());
+                warned = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.service.WorkerIdProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 通过Redis租约分配节点编号：SET NX 占用 "前缀+编号" 键并定时续期。
+ * 启动时获取不到租约则启动失败；续期失败或租约超过有效期后停止发号，直到重新续期或获取到租约。
+ */
+@Slf4j
+public class RedisWorkerIdProvider implements WorkerIdProvider {
+
+    private static final RedisScript<Long> RENEW = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('expire', KEYS[1], ARGV[2]) else return 0 end",
+            Long.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final StringRedisTemplate redisTemplate;
+    private final String keyPrefix;
+    private final Duration ttl;
+
+    private volatile int workerId = -1;
+    private volatile boolean leased;
+    /**
+     * 租约有效期截止时间（本机 nanoTime），按发出 SET/EXPIRE 请求前的时间计算，不晚于Redis中键的实际过期时间
+     */
+    private volatile long validUntilNanos;
+
+    public RedisWorkerIdProvider(StringRedisTemplate redisTemplate, String keyPrefix, Duration ttl) {
+        this.redisTemplate = redisTemplate;
+        this.keyPrefix = keyPrefix;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public int workerId() {
+        int id = workerId;
+        if (!leased || System.nanoTime() - validUntilNanos >= 0) {
+            throw new IllegalStateException("订单号节点编号租约未获得或已过期，暂停生成订单号");
+        }
+        return id;
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            acquire();
+        } catch (RuntimeException e) {
+            throw new IllegalStateException("获取订单号节点编号租约失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 续期当前租约；租约丢失或尚未获得时重新获取。续期请求失败时立即停止发号，下次仍尝试续期同一编号
+     */
+    @Scheduled(fixedDelayString = "${order.no.worker-lease.renew-interval-ms:20000}")
+    public synchronized void renew() {
+        try {
+            if (leased) {
+                long requestedAt = System.nanoTime();
+                Long ok = redisTemplate.execute(RENEW, Collections.singletonList(keyPrefix + workerId),
+                        nodeId, String.valueOf(ttl.getSeconds()));
+                if (ok != null && ok == 1L) {
+                    validUntilNanos = requestedAt + ttl.toNanos();
+                    return;
+                }
+                leased = false;
+                log.warn("订单号节点编号{}的租约已丢失，重新获取", workerId);
+            }
+            acquire();
+        } catch (RuntimeException e) {
+            validUntilNanos = System.nanoTime();
+            log.warn("续期订单号节点编号租约失败，暂停生成订单号: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void release() {
+        if (!leased) {
+            return;
+        }
+        try {
+            redisTemplate.execute(RELEASE, Collections.singletonList(keyPrefix + workerId), nodeId);
+        } catch (RuntimeException e) {
+            log.warn("释放订单号节点编号租约失败: {}", e.getMessage());
+        }
+    }
+
+    private synchronized void acquire() {
+        // 从随机位置开始探测，减少多个节点同时启动时的争用
+        int start = ThreadLocalRandom.current().nextInt(MAX_WORKER_ID + 1);
+        for (int i = 0; i <= MAX_WORKER_ID; i++) {
+            int candidate = (start + i) % (MAX_WORKER_ID + 1);
+            long requestedAt = System.nanoTime();
+            Boolean ok = redisTemplate.opsForValue().setIfAbsent(keyPrefix + candidate, nodeId, ttl);
+            if (Boolean.TRUE.equals(ok)) {
+                workerId = candidate;
+                validUntilNanos = requestedAt + ttl.toNanos();
+                leased = true;
+                log.info("获得订单号节点编号租约: workerId={}", candidate);
+                return;
+            }
+        }
+        throw new IllegalStateException("订单号节点编号已全部被占用");
+    }
+}
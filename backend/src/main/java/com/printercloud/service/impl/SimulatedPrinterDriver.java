@@ -0,0 +1,54 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.Order;
+import com.printercloud.entity.Printer;
+import com.printercloud.service.PrinterDriver;
+import com.printercloud.service.SpooledDocument;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 模拟打印机：按额定速度计算打印耗时后完成，不占用等待线程。
+ * timeScale 用于压缩时间，failureRate 用于注入随机故障。
+ */
+public class SimulatedPrinterDriver implements PrinterDriver {
+
+    private final double timeScale;
+    private final double failureRate;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "printer-sim");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public SimulatedPrinterDriver(double timeScale, double failureRate) {
+        this.timeScale = timeScale;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public CompletionStage<Void> print(Printer printer, Order order, SpooledDocument document) {
+        CompletableFuture<Void> result = new CompletableFuture<>();
+        long pages = (long) order.getEstimatedPages() * order.getCopies();
+        long delayMs = (long) (pages * 60000.0 / printer.getRatedPpm() * timeScale);
+        timer.schedule(() -> {
+            if (failureRate > 0 && ThreadLocalRandom.current().nextDouble() < failureRate) {
+                result.completeExceptionally(new IllegalStateException("模拟打印机故障: " + printer.getName()));
+            } else {
+                result.complete(null);
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,79 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.service.OrderNoGenerator;
+import com.printercloud.service.WorkerIdProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 时间有序的订单号：PRT + yyMMddHHmmssSSS（UTC） + 3位节点编号 + 4位毫秒内序号，共25位。
+ * 时间部分固定按UTC格式化，夏令时切换不会使时间前缀重复。
+ * 同一毫秒内序号用尽时借用下一毫秒；系统时钟回拨时继续沿用上次的时间戳递增，保证不回退、不重复。
+ */
+@Slf4j
+public class SnowflakeOrderNoGenerator implements OrderNoGenerator {
+
+    private static final String PREFIX = "PRT";
+    private static final int MAX_SEQUENCE = 9999;
+
+    /**
+     * 时钟回拨超过该值时记录告警
+     */
+    private static final long ROLLBACK_WARN_MILLIS = 1000;
+
+    private final WorkerIdProvider workerIdProvider;
+    private final Clock clock;
+    private final DateTimeFormatter timeFormat;
+
+    private long lastMillis = -1;
+    private int sequence;
+    private String timePrefix;
+
+    public SnowflakeOrderNoGenerator(WorkerIdProvider workerIdProvider, Clock clock) {
+        this.workerIdProvider = workerIdProvider;
+        this.clock = clock;
+        this.timeFormat = DateTimeFormatter.ofPattern("yyMMddHHmmssSSS").withZone(ZoneOffset.UTC);
+    }
+
+    @Override
+    public synchronized String next() {
+        // 先确认节点编号可用，租约失效时不消耗序号
+        int workerId = workerIdProvider.workerId();
+        long now = clock.millis();
+        if (now < lastMillis) {
+            if (lastMillis - now >= ROLLBACK_WARN_MILLIS) {
+                log.warn("检测到系统时钟回拨{}ms，订单号沿用上次时间戳继续生成", lastMillis - now);
+            }
+            now = lastMillis;
+        }
+        if (now == lastMillis) {
+            if (++sequence > MAX_SEQUENCE) {
+                now = lastMillis + 1;
+                sequence = 0;
+            }
+        } else {
+            sequence = 0;
+        }
+        if (now != lastMillis) {
+            lastMillis = now;
+            timePrefix = PREFIX + timeFormat.format(Instant.ofEpochMilli(now));
+        }
+
+        StringBuilder sb = new StringBuilder(25).append(timePrefix);
+        appendPadded(sb, workerId, 3);
+        appendPadded(sb, sequence, 4);
+        return sb.toString();
+    }
+
+    private static void appendPadded(StringBuilder sb, int value, int width) {
+        String s = Integer.toString(value);
+        for (int i = s.length(); i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(s);
+    }
+}
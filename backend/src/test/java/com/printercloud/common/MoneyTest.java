@@ -0,0 +1,72 @@
+package com.printercloud.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 随机取值验证分运算与 BigDecimal 四舍五入运算结果一致
+ */
+class MoneyTest {
+
+    private static final long SEED = 20241207L;
+    private static final int RUNS = 10000;
+
+    @Test
+    void toFenMatchesBigDecimalRounding() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < RUNS; i++) {
+            // 最多四位小数的元
+            BigDecimal yuan = BigDecimal.valueOf(random.nextInt(100_000_000) - 50_000_000, random.nextInt(5));
+            BigDecimal expected = yuan.setScale(2, RoundingMode.HALF_UP);
+            assertThat(Money.toYuan(Money.toFen(yuan))).as("yuan=%s", yuan).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void toYuanKeepsTwoDecimals() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < RUNS; i++) {
+            long fen = random.nextInt();
+            BigDecimal yuan = Money.toYuan(fen);
+            assertThat(yuan.scale()).isEqualTo(2);
+            assertThat(yuan).isEqualTo(BigDecimal.valueOf(fen).divide(BigDecimal.valueOf(100), 2, RoundingMode.UNNECESSARY));
+            assertThat(Money.toFen(yuan)).isEqualTo(fen);
+        }
+    }
+
+    @Test
+    void applyRateMatchesBigDecimalRounding() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < RUNS; i++) {
+            long fen = random.nextInt(1_000_000);
+            BigDecimal rate = BigDecimal.valueOf(random.nextInt(Money.RATE_BASE + 1), 4);
+            BigDecimal expected = Money.toYuan(fen).multiply(rate).setScale(2, RoundingMode.HALF_UP);
+            assertThat(Money.toYuan(Money.applyRate(fen, Money.toRate(rate))))
+                    .as("fen=%d rate=%s", fen, rate).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void divideMatchesBigDecimalRounding() {
+        Random random = new Random(SEED);
+        for (int i = 0; i < RUNS; i++) {
+            long fen = random.nextInt();
+            long divisor = 1 + random.nextInt(1000);
+            BigDecimal expected = BigDecimal.valueOf(fen).divide(BigDecimal.valueOf(divisor), 0, RoundingMode.HALF_UP);
+            assertThat(Money.divide(fen, divisor)).as("fen=%d divisor=%d", fen, divisor).isEqualTo(expected.longValueExact());
+        }
+    }
+
+    @Test
+    void overflowAndBadDivisorThrow() {
+        assertThatThrownBy(() -> Money.multiply(Long.MAX_VALUE / 2, 3)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.divide(100, 0)).isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> Money.toFen(new BigDecimal("1e30"))).isInstanceOf(ArithmeticException.class);
+    }
+}
@@ -0,0 +1,146 @@
+package com.printercloud.repository;
+
+import com.printercloud.entity.Order;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 在 H2（MySQL 模式）上对订单列表、游标分页与打印认领查询实际生成的SQL执行 EXPLAIN，确认走预期的复合索引
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order-plan;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "com.printercloud.repository.OrderQueryPlanTest$SqlRecorder"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class OrderQueryPlanTest {
+
+    private static final Pattern INDEX = Pattern.compile("/\\* PUBLIC\\.([A-Z_.]+)");
+
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    private final LocalDateTime now = LocalDateTime.now();
+
+    @BeforeEach
+    void setUp() {
+        String[] statuses = {"PENDING_PAYMENT", "PAID", "PRINTING", "COMPLETED", "CANCELLED"};
+        for (int i = 0; i < 200; i++) {
+            Order order = new Order();
+            order.setOrderNo("P" + i);
+            order.setUserId((long) (i % 20));
+            order.setFileId((long) i);
+            order.setUnitPrice(new BigDecimal("0.50"));
+            order.setTotalAmount(new BigDecimal("0.50"));
+            order.setStatus(statuses[i % statuses.length]);
+            orderRepository.save(order);
+        }
+        entityManager.flush();
+        SqlRecorder.clear();
+    }
+
+    @Test
+    void dateRangeUsesUserCreatedIndex() {
+        orderRepository.findByUserIdInRange(1L, now.minusDays(7), now, PageRequest.of(0, 20));
+
+        assertThat(indexOf(lastSelect())).isEqualTo("IDX_ORDER_USER_CREATED_ID");
+    }
+
+    @Test
+    void statusAndDateRangeUsesUserStatusCreatedIndex() {
+        orderRepository.findByUserIdAndStatusInRange(1L, "PAID", now.minusDays(7), now, PageRequest.of(0, 20));
+
+        assertThat(indexOf(lastSelect())).isEqualTo("IDX_ORDER_USER_STATUS_CREATED");
+    }
+
+    @Test
+    void keysetPagesUseUserCreatedIndex() {
+        orderRepository.findFirstByUserIdOrderByKey(1L, PageRequest.of(0, 20));
+        assertThat(indexOf(lastSelect())).isEqualTo("IDX_ORDER_USER_CREATED_ID");
+
+        orderRepository.findByUserIdAfterKey(1L, now, 100L, PageRequest.of(0, 20));
+        assertThat(indexOf(lastSelect())).isEqualTo("IDX_ORDER_USER_CREATED_ID");
+    }
+
+    /**
+     * idx_status 与 idx_order_status_lease 前缀相同，两者代价一致，规划器任选其一；关键是不能全表扫描
+     */
+    @Test
+    void claimableLeaseQueryUsesStatusIndex() {
+        orderRepository.findClaimablePrintIds(now, 3, PageRequest.of(0, 50));
+
+        String plan = explain(lastSelect());
+        assertThat(plan).doesNotContain("tableScan");
+        assertThat(indexOf(plan)).isIn("IDX_ORDER_STATUS_LEASE", "IDX_STATUS");
+        assertThat(plan).contains("STATUS IN('PAID', 'PRINTING')");
+    }
+
+    private String lastSelect() {
+        List<String> sql = SqlRecorder.statements();
+        for (int i = sql.size() - 1; i >= 0; i--) {
+            if (sql.get(i).contains("from orders")) {
+                return sql.get(i);
+            }
+        }
+        throw new AssertionError("未捕获到订单查询SQL: " + sql);
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+    }
+
+    private String indexOf(String sqlOrPlan) {
+        String plan = sqlOrPlan.startsWith("SELECT") ? sqlOrPlan : explain(sqlOrPlan);
+        Matcher m = INDEX.matcher(plan);
+        assertThat(m.find()).as(plan).isTrue();
+        return m.group(1);
+    }
+
+    /**
+     * 记录 Hibernate 实际发出的SQL，EXPLAIN 的正是运行时执行的语句
+     */
+    public static class SqlRecorder implements StatementInspector {
+
+        private static final List<String> STATEMENTS = new ArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            synchronized (STATEMENTS) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+
+        static List<String> statements() {
+            synchronized (STATEMENTS) {
+                return new ArrayList<>(STATEMENTS);
+            }
+        }
+
+        static void clear() {
+            synchronized (STATEMENTS) {
+                STATEMENTS.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.common.DigestUtils;
+import com.printercloud.dto.response.FileUploadResponse;
+import com.printercloud.entity.UploadChunk;
+import com.printercloud.entity.UploadSession;
+import com.printercloud.repository.UploadChunkRepository;
+import com.printercloud.repository.UploadSessionRepository;
+import com.printercloud.service.FileBlobService;
+import com.printercloud.service.FileService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 文件已保存后会话收尾失败：不能把会话退回上传中而留下已保存的文件
+ */
+class ChunkUploadCompleteTest {
+
+    private static final String SESSION_ID = "complete-test-session";
+    private static final Long USER_ID = 7L;
+    private static final String UPLOADING = UploadSession.Status.UPLOADING.getCode();
+    private static final String ASSEMBLING = UploadSession.Status.ASSEMBLING.getCode();
+
+    private final UploadSessionRepository uploadSessionRepository = mock(UploadSessionRepository.class);
+    private final UploadChunkRepository uploadChunkRepository = mock(UploadChunkRepository.class);
+    private final FileService fileService = mock(FileService.class);
+    private final FileBlobService fileBlobService = mock(FileBlobService.class);
+    private final ChunkUploadServiceImpl service = new ChunkUploadServiceImpl(
+            uploadSessionRepository, uploadChunkRepository, fileService, fileBlobService);
+
+    @TempDir
+    Path tempDir;
+
+    private final FileUploadResponse saved = new FileUploadResponse();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ReflectionTestUtils.setField(service, "bufferSize", 8192);
+        byte[] data = "分片内容".getBytes(StandardCharsets.UTF_8);
+        File chunkDir = new File("uploads/chunks", SESSION_ID);
+        chunkDir.mkdirs();
+        Files.write(new File(chunkDir, "0.chunk").toPath(), data);
+
+        UploadSession session = new UploadSession();
+        session.setSessionId(SESSION_ID);
+        session.setUserId(USER_ID);
+        session.setFileName("a.pdf");
+        session.setTotalChunks(1);
+        session.setStatus(UPLOADING);
+        session.setExpireTime(LocalDateTime.now().plusHours(1));
+        UploadChunk chunk = new UploadChunk();
+        chunk.setSessionId(SESSION_ID);
+        chunk.setChunkIndex(0);
+        chunk.setChunkHash(DigestUtils.toHex(DigestUtils.md5().digest(data)));
+
+        when(uploadSessionRepository.findBySessionIdAndUserId(SESSION_ID, USER_ID)).thenReturn(Optional.of(session));
+        when(uploadChunkRepository.findBySessionIdOrderByChunkIndexAsc(SESSION_ID))
+                .thenReturn(Collections.singletonList(chunk));
+        when(uploadSessionRepository.compareAndSetStatus(SESSION_ID, UPLOADING, ASSEMBLING)).thenReturn(1);
+        when(fileBlobService.tempDir()).thenReturn(tempDir.toFile());
+        saved.setId(42L);
+        when(fileService.saveUploaded(any(), anyString(), any(), any(), eq(USER_ID))).thenReturn(saved);
+        when(uploadSessionRepository.save(any())).thenThrow(new DataAccessResourceFailureException("连接中断"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        File chunkDir = new File("uploads/chunks", SESSION_ID);
+        new File(chunkDir, "0.chunk").delete();
+        chunkDir.delete();
+    }
+
+    @Test
+    void sessionIsMarkedCompletedWhenSaveSucceeded() {
+        when(uploadSessionRepository.markCompleted(SESSION_ID, 42L)).thenReturn(1);
+
+        FileUploadResponse resp = service.complete(SESSION_ID, USER_ID);
+
+        assertThat(resp).isSameAs(saved);
+        verify(uploadSessionRepository, never()).compareAndSetStatus(SESSION_ID, ASSEMBLING, UPLOADING);
+        verify(fileService, never()).delete(any(), any());
+    }
+
+    @Test
+    void savedFileIsDeletedBeforeRevertingWhenSessionCannotBeCompleted() {
+        when(uploadSessionRepository.markCompleted(SESSION_ID, 42L)).thenReturn(0);
+
+        assertThatThrownBy(() -> service.complete(SESSION_ID, USER_ID))
+                .isInstanceOf(DataAccessResourceFailureException.class);
+
+        verify(fileService).delete(42L, USER_ID);
+        verify(uploadSessionRepository).compareAndSetStatus(SESSION_ID, ASSEMBLING, UPLOADING);
+    }
+}
@@ -0,0 +1,156 @@
+package com.printercloud.service.impl;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 只有确认归档在最后一次保存后未被改写时才信任 app.xml 中的页数
+ */
+class DocxPageCountReaderTest {
+
+    private static final List<String> TRUSTED = Arrays.asList("Microsoft Office Word", "WPS Office");
+    private static final long DOS_EPOCH = LocalDateTime.of(1980, 1, 1, 0, 0)
+            .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void wordSavedDocumentUsesAppPages() throws IOException {
+        File docx = wordDocument("word.docx");
+
+        assertThat(DocxPageCountReader.countPages(docx, TRUSTED)).isEqualTo(3);
+    }
+
+    /**
+     * 模拟 POI（ZipArchiveOutputStream）打开 Word 文档、修改正文后保存：
+     * app.xml 与 core.xml 原样保留，所有条目以保存时刻重新写入
+     */
+    @Test
+    void poiRewrittenDocumentFallsBack() throws IOException {
+        File word = wordDocument("word.docx");
+        File rewritten = dir.resolve("poi.docx").toFile();
+        try (ZipFile in = new ZipFile(word);
+             ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(rewritten.toPath()))) {
+            Enumeration<? extends ZipEntry> entries = in.entries();
+            while (entries.hasMoreElements()) {
+                ZipEntry entry = entries.nextElement();
+                out.putNextEntry(new ZipEntry(entry.getName()));
+                if ("word/document.xml".equals(entry.getName())) {
+                    out.write(documentXml(40).getBytes(StandardCharsets.UTF_8));
+                } else {
+                    try (InputStream data = in.getInputStream(entry)) {
+                        copy(data, out);
+                    }
+                }
+                out.closeEntry();
+            }
+        }
+
+        assertThat(DocxPageCountReader.countPages(rewritten, TRUSTED)).isEqualTo(-1);
+    }
+
+    @Test
+    void wpsDocumentStampedAtSaveTimeUsesAppPages() throws IOException {
+        Instant saved = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        File docx = docx("wps.docx", "WPS Office_11.1.0", saved, saved.toEpochMilli(), true);
+
+        assertThat(DocxPageCountReader.countPages(docx, TRUSTED)).isEqualTo(3);
+    }
+
+    @Test
+    void wpsDocumentRewrittenLaterFallsBack() throws IOException {
+        Instant saved = Instant.now().minus(2, ChronoUnit.DAYS).truncatedTo(ChronoUnit.SECONDS);
+        File docx = docx("wps-later.docx", "WPS Office_11.1.0", saved, System.currentTimeMillis(), true);
+
+        assertThat(DocxPageCountReader.countPages(docx, TRUSTED)).isEqualTo(-1);
+    }
+
+    @Test
+    void missingCorePropertiesFallsBack() throws IOException {
+        File docx = docx("no-core.docx", "Microsoft Office Word", Instant.now(), DOS_EPOCH, false);
+
+        assertThat(DocxPageCountReader.countPages(docx, TRUSTED)).isEqualTo(-1);
+    }
+
+    @Test
+    void untrustedApplicationFallsBack() throws IOException {
+        File docx = docx("lo.docx", "LibreOffice/7.6", Instant.now(), DOS_EPOCH, true);
+
+        assertThat(DocxPageCountReader.countPages(docx, TRUSTED)).isEqualTo(-1);
+    }
+
+    private File wordDocument(String name) throws IOException {
+        return docx(name, "Microsoft Office Word", Instant.parse("2024-05-01T08:30:00Z"), DOS_EPOCH, true);
+    }
+
+    private File docx(String name, String application, Instant modified, long entryTime, boolean withCore)
+            throws IOException {
+        Map<String, String> entries = new LinkedHashMap<>();
+        entries.put("[Content_Types].xml", "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\"/>");
+        entries.put("word/document.xml", documentXml(3));
+        entries.put("docProps/app.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Properties xmlns=\"http://schemas.openxmlformats.org/officeDocument/2006/extended-properties\">"
+                + "<Template>Normal.dotm</Template><Pages>3</Pages><Words>120</Words>"
+                + "<Application>" + application + "</Application></Properties>");
+        if (withCore) {
+            entries.put("docProps/core.xml", "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                    + "<cp:coreProperties xmlns:cp=\"http://schemas.openxmlformats.org/package/2006/metadata/core-properties\""
+                    + " xmlns:dcterms=\"http://purl.org/dc/terms/\""
+                    + " xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\">"
+                    + "<cp:lastModifiedBy>user</cp:lastModifiedBy>"
+                    + "<dcterms:modified xsi:type=\"dcterms:W3CDTF\">" + modified + "</dcterms:modified>"
+                    + "</cp:coreProperties>");
+        }
+        File file = dir.resolve(name).toFile();
+        try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file.toPath()))) {
+            for (Map.Entry<String, String> e : entries.entrySet()) {
+                ZipEntry entry = new ZipEntry(e.getKey());
+                entry.setTime(entryTime);
+                out.putNextEntry(entry);
+                out.write(e.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return file;
+    }
+
+    private static String documentXml(int paragraphs) {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            body.append("<w:p><w:r><w:t>段落").append(i).append("</w:t></w:r></w:p>");
+        }
+        return "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\"><w:body>"
+                + body + "</w:body></w:document>";
+    }
+
+    private static void copy(InputStream in, OutputStream out) throws IOException {
+        byte[] buf = new byte[8192];
+        int n;
+        while ((n = in.read(buf)) > 0) {
+            out.write(buf, 0, n);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.FileBlob;
+import com.printercloud.entity.FileInfo;
+import com.printercloud.repository.FileBlobRepository;
+import com.printercloud.repository.FileInfoRepository;
+import com.printercloud.service.FileBlobService;
+import com.printercloud.service.FilePageCounterService;
+import com.printercloud.service.PageCountCache;
+import com.printercloud.service.PageCountTaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 删除文件时按记录上的内容ID决定释放内容引用还是删除独占文件，不依赖存储文件名
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class FileBlobReferenceTest {
+
+    private static final String HASH = "0123456789abcdef0123456789abcdef";
+
+    @Autowired
+    private FileInfoRepository fileInfoRepository;
+    @Autowired
+    private FileBlobRepository fileBlobRepository;
+
+    @TempDir
+    Path dir;
+
+    private final FileBlobService fileBlobService = mock(FileBlobService.class);
+    private FileServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        fileInfoRepository.deleteAll();
+        fileBlobRepository.deleteAll();
+        service = new FileServiceImpl(fileInfoRepository, mock(FilePageCounterService.class), fileBlobService,
+                mock(PageCountTaskService.class), mock(PageCountCache.class));
+    }
+
+    @Test
+    void blobBackedFileReleasesBlobWhateverItsName() throws IOException {
+        File stored = storedFile("renamed.pdf");
+        FileInfo fi = fileInfoRepository.save(fileInfo(stored, 5L));
+
+        assertThat(service.delete(fi.getId(), 1L)).isTrue();
+
+        verify(fileBlobService).release(HASH);
+        assertThat(stored).exists();
+    }
+
+    @Test
+    void legacyFileIsDeletedEvenWhenNamedLikeABlob() throws IOException {
+        File stored = storedFile(HASH + "-legacy");
+        FileInfo fi = fileInfoRepository.save(fileInfo(stored, null));
+
+        assertThat(service.delete(fi.getId(), 1L)).isTrue();
+
+        verify(fileBlobService, never()).release(any());
+        assertThat(stored).doesNotExist();
+    }
+
+    @Test
+    void backfillLinksRecordsStoredAtABlobPath() throws IOException {
+        File blobFile = storedFile(HASH + "-a1b2c3d4");
+        FileBlob blob = new FileBlob();
+        blob.setFileHash(HASH);
+        blob.setStoragePath(blobFile.getPath());
+        blob.setFileSize(1L);
+        blob = fileBlobRepository.save(blob);
+        FileInfo shared = fileInfoRepository.save(fileInfo(blobFile, null));
+        FileInfo legacy = fileInfoRepository.save(fileInfo(storedFile("old.pdf"), null));
+
+        assertThat(fileInfoRepository.backfillBlobIds()).isEqualTo(1);
+
+        assertThat(fileInfoRepository.findById(shared.getId()).get().getBlobId()).isEqualTo(blob.getId());
+        assertThat(fileInfoRepository.findById(legacy.getId()).get().getBlobId()).isNull();
+    }
+
+    private File storedFile(String name) throws IOException {
+        File f = dir.resolve(name).toFile();
+        f.createNewFile();
+        return f;
+    }
+
+    private static FileInfo fileInfo(File stored, Long blobId) {
+        FileInfo fi = new FileInfo();
+        fi.setUserId(1L);
+        fi.setOriginalName("a.pdf");
+        fi.setStoredName(stored.getName());
+        fi.setFilePath(stored.getPath());
+        fi.setFileSize(1L);
+        fi.setFileType("PDF");
+        fi.setFileHash(HASH);
+        fi.setBlobId(blobId);
+        return fi;
+    }
+}
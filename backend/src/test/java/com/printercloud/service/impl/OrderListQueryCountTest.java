@@ -0,0 +1,131 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.dto.response.CursorPage;
+import com.printercloud.dto.response.OrderResponse;
+import com.printercloud.entity.FileInfo;
+import com.printercloud.entity.Order;
+import com.printercloud.repository.FileInfoRepository;
+import com.printercloud.repository.OrderRepository;
+import com.printercloud.service.OrderNoGenerator;
+import com.printercloud.service.PriceConfigService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 订单列表每页的SQL条数固定，不随订单行数增长
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(OrderServiceImpl.class)
+class OrderListQueryCountTest {
+
+    private static final long USER_ID = 1001L;
+    private static final int ORDERS = 120;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+    @Autowired
+    private OrderRepository orderRepository;
+    @Autowired
+    private FileInfoRepository fileInfoRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private PriceConfigService priceConfigService;
+    @MockBean
+    private OrderNoGenerator orderNoGenerator;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ORDERS; i++) {
+            FileInfo file = fileInfoRepository.save(newFile(i));
+            orderRepository.save(newOrder(i, file.getId()));
+        }
+        // 清空一级缓存，查询必须真正访问数据库
+        entityManager.flush();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void offsetPageUsesConstantQueries() {
+        long small = countQueries(() -> orderService.listOrders(USER_ID, 0, 10, null, null, null));
+        long large = countQueries(() -> orderService.listOrders(USER_ID, 0, 50, null, null, null));
+
+        // 分页查询 + 总数查询 + 一次批量查询文件
+        assertThat(small).isEqualTo(3);
+        assertThat(large).isEqualTo(small);
+    }
+
+    @Test
+    void offsetPageResolvesEveryFile() {
+        Page<OrderResponse> page = orderService.listOrders(USER_ID, 1, 50, "PAID", null, null);
+
+        assertThat(page.getContent()).isNotEmpty();
+        assertThat(page.getContent()).allSatisfy(o -> assertThat(o.getFileInfo()).isNotNull());
+    }
+
+    @Test
+    void cursorPageUsesConstantQueries() {
+        long small = countQueries(() -> orderService.listOrdersByCursor(USER_ID, null, 10, false));
+        long large = countQueries(() -> orderService.listOrdersByCursor(USER_ID, null, 50, false));
+
+        // 游标查询 + 一次批量查询文件
+        assertThat(small).isEqualTo(2);
+        assertThat(large).isEqualTo(small);
+
+        CursorPage<OrderResponse> first = orderService.listOrdersByCursor(USER_ID, null, 50, false);
+        entityManager.clear();
+        long next = countQueries(() -> orderService.listOrdersByCursor(USER_ID, first.getNextCursor(), 50, false));
+        assertThat(next).isEqualTo(small);
+    }
+
+    private long countQueries(Runnable action) {
+        entityManager.clear();
+        statistics.clear();
+        action.run();
+        return statistics.getPrepareStatementCount();
+    }
+
+    private static FileInfo newFile(int i) {
+        FileInfo file = new FileInfo();
+        file.setUserId(USER_ID);
+        file.setOriginalName("doc-" + i + ".pdf");
+        file.setStoredName("stored-" + i + ".pdf");
+        file.setFilePath("uploads/stored-" + i + ".pdf");
+        file.setFileSize(1024L);
+        file.setFileType("pdf");
+        file.setPageCount(3);
+        return file;
+    }
+
+    private static Order newOrder(int i, Long fileId) {
+        Order order = new Order();
+        order.setOrderNo("T" + i);
+        order.setUserId(USER_ID);
+        order.setFileId(fileId);
+        order.setUnitPrice(new BigDecimal("0.50"));
+        order.setTotalAmount(new BigDecimal("1.50"));
+        order.setEstimatedPages(3);
+        order.setStatus(i % 2 == 0 ? Order.Status.PAID.getCode() : Order.Status.COMPLETED.getCode());
+        return order;
+    }
+}
@@ -0,0 +1,152 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.FileInfo;
+import com.printercloud.repository.FileInfoRepository;
+import com.printercloud.service.FileBlobService;
+import com.printercloud.service.FilePageCounterService;
+import com.printercloud.service.PageCountCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 节点重启后丢失的页数解析任务由恢复扫描重新提交
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PageCountRecoveryTest {
+
+    @Autowired
+    private FileInfoRepository fileInfoRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path dir;
+
+    private final FilePageCounterService counter = mock(FilePageCounterService.class);
+    private ThreadPoolTaskExecutor executor;
+    private PageCountTaskServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        fileInfoRepository.deleteAll();
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(10);
+        executor.initialize();
+        service = new PageCountTaskServiceImpl(counter, mock(FileBlobService.class), fileInfoRepository,
+                mock(PageCountCache.class), executor, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(service, "staleMinutes", 10L);
+        ReflectionTestUtils.setField(service, "recoveryBatchSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdown();
+    }
+
+    @Test
+    void stalePendingFilesAreCountedAgain() throws Exception {
+        File pdf = Files.write(dir.resolve("a.pdf"), new byte[]{1, 2, 3}).toFile();
+        when(counter.countPages(any(), eq("hash-a"), any(), any())).thenReturn(7);
+        Long first = pending("hash-a", pdf, 30);
+        Long second = pending("hash-a", pdf, 20);
+
+        service.recoverStalePending();
+        waitForIdle();
+
+        assertThat(status(first)).isEqualTo(FileInfo.PageCountStatus.DONE.getCode());
+        assertThat(status(second)).isEqualTo(FileInfo.PageCountStatus.DONE.getCode());
+        assertThat(fileInfoRepository.findById(first).get().getPageCount()).isEqualTo(7);
+        // 同一内容只解析一次
+        verify(counter, times(1)).countPages(any(), eq("hash-a"), any(), any());
+    }
+
+    @Test
+    void recentPendingFilesAreLeftAlone() throws Exception {
+        File pdf = Files.write(dir.resolve("b.pdf"), new byte[]{1}).toFile();
+        Long id = pending("hash-b", pdf, 1);
+
+        service.recoverStalePending();
+        waitForIdle();
+
+        assertThat(status(id)).isEqualTo(FileInfo.PageCountStatus.PENDING.getCode());
+        verify(counter, never()).countPages(any(), any(), any(), any());
+    }
+
+    @Test
+    void missingSourceIsMarkedFailed() throws Exception {
+        Long id = pending("hash-c", dir.resolve("gone.pdf").toFile(), 30);
+
+        service.recoverStalePending();
+        waitForIdle();
+
+        assertThat(status(id)).isEqualTo(FileInfo.PageCountStatus.FAILED.getCode());
+        verify(counter, never()).countPages(any(), any(), any(), any());
+    }
+
+    /**
+     * 保存一条待解析文件记录，并把更新时间改为若干分钟前
+     */
+    private Long pending(String hash, File file, int minutesAgo) {
+        FileInfo fi = new FileInfo();
+        fi.setUserId(1L);
+        fi.setOriginalName(file.getName());
+        fi.setStoredName(file.getName());
+        fi.setFilePath(file.getPath());
+        fi.setFileSize(file.length());
+        fi.setFileType("PDF");
+        fi.setFileHash(hash);
+        fi.setPageCountStatus(FileInfo.PageCountStatus.PENDING.getCode());
+        Long id = fileInfoRepository.save(fi).getId();
+        new TransactionTemplate(transactionManager).executeWithoutResult(tx ->
+                entityManager.createQuery("UPDATE FileInfo f SET f.updatedTime = :t WHERE f.id = :id")
+                        .setParameter("t", LocalDateTime.now().minusMinutes(minutesAgo))
+                        .setParameter("id", id)
+                        .executeUpdate());
+        return id;
+    }
+
+    private String status(Long id) {
+        entityManager.clear();
+        return fileInfoRepository.findById(id).get().getPageCountStatus();
+    }
+
+    private void waitForIdle() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while ((executor.getActiveCount() > 0 || !executor.getThreadPoolExecutor().getQueue().isEmpty())
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(50);
+    }
+}
@@ -0,0 +1,269 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.exception.PageCountException;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 轻量PDF页数读取与PDFBox结果对照：覆盖传统交叉引用表、带预测器的交叉引用流、对象流、多次增量更新，
+ * 以及必须回退或拒绝的损坏文件
+ */
+class PdfPageCountReaderTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void classicXrefTableMatchesPdfBox() throws IOException {
+        File pdf = dir.resolve("classic.pdf").toFile();
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < 5; i++) {
+                doc.addPage(new PDPage());
+            }
+            doc.save(pdf);
+        }
+
+        assertThat(PdfPageCountReader.countPages(pdf)).isEqualTo(5).isEqualTo(pdfBoxPages(pdf));
+    }
+
+    /**
+     * 页面对象全部压缩在对象流中，交叉引用流使用 Flate + PNG Up 预测器
+     */
+    @Test
+    void xrefStreamWithPredictorAndObjectStreamMatchesPdfBox() throws IOException {
+        PdfBuilder pdf = new PdfBuilder();
+        String[] objects = {
+                "<< /Type /Catalog /Pages 2 0 R >>",
+                "<< /Type /Pages /Kids [3 0 R 4 0 R 5 0 R] /Count 3 >>",
+                page(2), page(2), page(2)
+        };
+        StringBuilder header = new StringBuilder();
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < objects.length; i++) {
+            header.append(i + 1).append(' ').append(body.length()).append(' ');
+            body.append(objects[i]).append('\n');
+        }
+        long objStm = pdf.stream(6, "/Type /ObjStm /N " + objects.length + " /First " + header.length()
+                + " /Filter /FlateDecode", deflate(ascii(header.toString() + body)));
+
+        long xrefOffset = pdf.offset();
+        int[] widths = {1, 4, 2};
+        List<long[]> rows = new ArrayList<>();
+        rows.add(new long[]{0, 0, 65535});
+        for (int i = 0; i < objects.length; i++) {
+            rows.add(new long[]{2, 6, i});
+        }
+        rows.add(new long[]{1, objStm, 0});
+        rows.add(new long[]{1, xrefOffset, 0});
+        pdf.stream(7, "/Type /XRef /Size 8 /Root 1 0 R /W [1 4 2] /Filter /FlateDecode"
+                + " /DecodeParms << /Predictor 12 /Columns 7 >>", deflate(pngUp(rows, widths)));
+        pdf.raw("startxref\n" + xrefOffset + "\n%%EOF\n");
+        File file = pdf.save("xref-stream.pdf");
+
+        assertThat(PdfPageCountReader.countPages(file)).isEqualTo(3).isEqualTo(pdfBoxPages(file));
+    }
+
+    /**
+     * 每次增量更新追加新页面并改写页面树根节点，文件中有多个startxref，应以最后一次修订为准
+     */
+    @Test
+    void incrementalUpdatesFollowLastStartXref() throws IOException {
+        PdfBuilder pdf = new PdfBuilder();
+        pdf.obj(1, "<< /Type /Catalog /Pages 2 0 R >>");
+        pdf.obj(2, pages(3));
+        pdf.obj(3, page(2));
+        long prev = pdf.xref(true, "/Size 4 /Root 1 0 R");
+        for (int n = 4; n <= 6; n++) {
+            pdf.obj(n, page(2));
+            pdf.obj(2, pages(n));
+            prev = pdf.xref(false, "/Size " + (n + 1) + " /Root 1 0 R /Prev " + prev);
+        }
+        File file = pdf.save("incremental.pdf");
+
+        assertThat(new String(Files.readAllBytes(file.toPath()), StandardCharsets.ISO_8859_1)
+                .split("startxref", -1)).hasSize(5);
+        assertThat(PdfPageCountReader.countPages(file)).isEqualTo(4).isEqualTo(pdfBoxPages(file));
+    }
+
+    /**
+     * startxref 指向错误位置时返回-1，由PDFBox修复交叉引用后计数
+     */
+    @Test
+    void brokenXrefReturnsMinusOneForPdfBoxFallback() throws IOException {
+        File pdf = dir.resolve("broken.pdf").toFile();
+        try (PDDocument doc = new PDDocument()) {
+            for (int i = 0; i < 4; i++) {
+                doc.addPage(new PDPage());
+            }
+            doc.save(pdf);
+        }
+        String content = new String(Files.readAllBytes(pdf.toPath()), StandardCharsets.ISO_8859_1);
+        int idx = content.lastIndexOf("startxref");
+        String tail = content.substring(idx + "startxref".length()).trim();
+        long offset = Long.parseLong(tail.substring(0, tail.indexOf('%')).trim());
+        File broken = dir.resolve("broken-xref.pdf").toFile();
+        Files.write(broken.toPath(), (content.substring(0, idx) + "startxref\n" + (offset + 3) + "\n%%EOF\n")
+                .getBytes(StandardCharsets.ISO_8859_1));
+
+        assertThat(PdfPageCountReader.countPages(broken)).isEqualTo(-1);
+        assertThat(pdfBoxPages(broken)).isEqualTo(4);
+    }
+
+    @Test
+    void nestedPageTreeBombHitsDepthLimit() throws IOException {
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < 10_000; i++) {
+            kids.append('[');
+        }
+        for (int i = 0; i < 10_000; i++) {
+            kids.append(']');
+        }
+        PdfBuilder pdf = new PdfBuilder();
+        pdf.obj(1, "<< /Type /Catalog /Pages 2 0 R >>");
+        pdf.obj(2, "<< /Type /Pages /Kids " + kids + " /Count 1 >>");
+        pdf.xref(true, "/Size 3 /Root 1 0 R");
+        File file = pdf.save("bomb.pdf");
+
+        assertThatThrownBy(() -> PdfPageCountReader.countPages(file))
+                .isInstanceOf(PageCountException.class)
+                .hasMessageContaining("128");
+    }
+
+    private static int pdfBoxPages(File file) throws IOException {
+        try (PDDocument doc = PDDocument.load(file)) {
+            return doc.getNumberOfPages();
+        }
+    }
+
+    private static String page(int parent) {
+        return "<< /Type /Page /Parent " + parent + " 0 R /MediaBox [0 0 595 842] >>";
+    }
+
+    private static String pages(int last) {
+        StringBuilder kids = new StringBuilder();
+        for (int n = 3; n <= last; n++) {
+            kids.append(n).append(" 0 R ");
+        }
+        return "<< /Type /Pages /Kids [" + kids + "] /Count " + (last - 2) + " >>";
+    }
+
+    private static byte[] pngUp(List<long[]> rows, int[] widths) {
+        int rowLength = widths[0] + widths[1] + widths[2];
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] prev = new byte[rowLength];
+        for (long[] row : rows) {
+            byte[] cur = new byte[rowLength];
+            int pos = 0;
+            for (int f = 0; f < 3; f++) {
+                for (int i = widths[f] - 1; i >= 0; i--) {
+                    cur[pos++] = (byte) (row[f] >>> (8 * i));
+                }
+            }
+            out.write(2);
+            for (int i = 0; i < rowLength; i++) {
+                out.write(cur[i] - prev[i]);
+            }
+            prev = cur;
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] deflate(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream z = new DeflaterOutputStream(out, new Deflater())) {
+            z.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] ascii(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 按字节偏移手工写PDF，每次 xref 只登记上次修订之后写入的对象
+     */
+    private final class PdfBuilder {
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private final Map<Integer, Long> revision = new TreeMap<>();
+
+        PdfBuilder() {
+            raw("%PDF-1.5\n%âãÏÓ\n");
+        }
+
+        long offset() {
+            return out.size();
+        }
+
+        void raw(String s) {
+            byte[] b = ascii(s);
+            out.write(b, 0, b.length);
+        }
+
+        void obj(int num, String body) {
+            revision.put(num, offset());
+            raw(num + " 0 obj\n" + body + "\nendobj\n");
+        }
+
+        long stream(int num, String dict, byte[] data) {
+            long offset = offset();
+            revision.put(num, offset);
+            raw(num + " 0 obj\n<< " + dict + " /Length " + data.length + " >>\nstream\n");
+            out.write(data, 0, data.length);
+            raw("\nendstream\nendobj\n");
+            return offset;
+        }
+
+        /**
+         * 写交叉引用表与trailer，返回本节偏移，供下一次修订的 /Prev 使用
+         */
+        long xref(boolean first, String trailer) {
+            long offset = offset();
+            if (first) {
+                revision.put(0, -1L);
+            }
+            StringBuilder sb = new StringBuilder("xref\n");
+            List<Integer> nums = new ArrayList<>(revision.keySet());
+            for (int i = 0; i < nums.size(); ) {
+                int j = i;
+                while (j + 1 < nums.size() && nums.get(j + 1) == nums.get(j) + 1) {
+                    j++;
+                }
+                sb.append(nums.get(i)).append(' ').append(j - i + 1).append('\n');
+                for (int k = i; k <= j; k++) {
+                    long at = revision.get(nums.get(k));
+                    sb.append(at < 0 ? "0000000000 65535 f\r\n" : String.format("%010d 00000 n\r\n", at));
+                }
+                i = j + 1;
+            }
+            sb.append("trailer\n<< ").append(trailer).append(" >>\nstartxref\n").append(offset).append("\n%%EOF\n");
+            raw(sb.toString());
+            revision.clear();
+            return offset;
+        }
+
+        File save(String name) throws IOException {
+            File file = dir.resolve(name).toFile();
+            Files.write(file.toPath(), out.toByteArray());
+            return file;
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.dto.request.BatchQuoteRequest;
+import com.printercloud.dto.response.BatchQuoteResponse;
+import com.printercloud.entity.Order;
+import com.printercloud.entity.PriceConfig;
+import com.printercloud.entity.PriceRule;
+import com.printercloud.repository.PriceConfigRepository;
+import com.printercloud.repository.PriceRuleRepository;
+import com.printercloud.repository.UserRepository;
+import com.printercloud.service.PriceSnapshot;
+import com.printercloud.service.PriceTable;
+import com.printercloud.service.PrintQuote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 随机价格配置与打印参数下，按分计价的结果与原 BigDecimal 计价（单价×页数×份数）一致
+ */
+class PriceConfigServicePricingTest {
+
+    private static final long SEED = 20241207L;
+    private static final int RUNS = 2000;
+    private static final String[] COLORS = {"BW", "COLOR", "bw", "color"};
+    private static final String[] DUPLEXES = {"SINGLE", "DOUBLE", "single", "double"};
+    private static final String[] SIZES = {"A4", "A3", "a4", "a3"};
+
+    private final PriceTable priceTable = mock(PriceTable.class);
+    private PriceConfigServiceImpl service;
+    private Random random;
+
+    @BeforeEach
+    void setUp() {
+        service = new PriceConfigServiceImpl(mock(PriceConfigRepository.class), mock(PriceRuleRepository.class),
+                mock(UserRepository.class), priceTable);
+        ReflectionTestUtils.setField(service, "batchMaxItems", 10000);
+        random = new Random(SEED);
+    }
+
+    @Test
+    void flatPriceMatchesBigDecimalTotal() {
+        for (int run = 0; run < RUNS; run++) {
+            List<PriceConfig> configs = randomConfigs();
+            when(priceTable.current()).thenReturn(PriceSnapshot.of(run, "v" + run, configs, Collections.emptyList()));
+            String color = pick(COLORS);
+            String duplex = pick(DUPLEXES);
+            String size = pick(SIZES);
+            int pages = 1 + random.nextInt(500);
+            int copies = 1 + random.nextInt(100);
+
+            BigDecimal expected = baselineTotal(configs, color, duplex, size, pages, copies);
+            PrintQuote quote = service.quotePrint(color, size, duplex, pages, copies, null);
+
+            assertThat(service.calculatePrintPrice(color, size, duplex, pages, copies, null))
+                    .as("run=%d %s/%s/%s pages=%d copies=%d", run, color, duplex, size, pages, copies)
+                    .isEqualByComparingTo(expected);
+            assertThat(quote.getTotalPrice()).isEqualByComparingTo(expected);
+            assertThat(quote.getTotalPrice().scale()).isEqualTo(2);
+            // 订单单价由同一报价得出，不再用总价反除
+            assertThat(quote.getUnitPrice().multiply(BigDecimal.valueOf((long) pages * copies)))
+                    .isEqualByComparingTo(quote.getTotalPrice());
+        }
+    }
+
+    @Test
+    void batchTotalMatchesSumOfBigDecimalLines() {
+        for (int run = 0; run < RUNS / 10; run++) {
+            List<PriceConfig> configs = randomConfigs();
+            when(priceTable.current()).thenReturn(PriceSnapshot.of(run, "v" + run, configs, Collections.emptyList()));
+            BatchQuoteRequest request = new BatchQuoteRequest();
+            List<BatchQuoteRequest.Item> items = new ArrayList<>();
+            BigDecimal expected = BigDecimal.ZERO;
+            int count = 1 + random.nextInt(50);
+            for (int i = 0; i < count; i++) {
+                BatchQuoteRequest.Item item = new BatchQuoteRequest.Item();
+                item.setColorType(pick(COLORS));
+                item.setDuplex(pick(DUPLEXES));
+                item.setPaperSize(pick(SIZES));
+                item.setPages(1 + random.nextInt(500));
+                item.setCopies(1 + random.nextInt(100));
+                items.add(item);
+                expected = expected.add(baselineTotal(configs, item.getColorType(), item.getDuplex(),
+                        item.getPaperSize(), item.getPages(), item.getCopies()));
+            }
+            request.setItems(items);
+
+            BatchQuoteResponse response = service.calculateBatchPrice(request, null);
+
+            assertThat(response.getTotalPrice()).as("run=%d", run).isEqualByComparingTo(expected);
+            assertThat(response.getItems()).hasSize(count);
+        }
+    }
+
+    @Test
+    void tierAndDiscountRoundUnitPriceHalfUp() {
+        for (int run = 0; run < RUNS; run++) {
+            BigDecimal tierPrice = yuan(1 + random.nextInt(500));
+            int minPages = 2 + random.nextInt(50);
+            BigDecimal rate = BigDecimal.valueOf(1 + random.nextInt(9999), 4);
+            List<PriceRule> rules = new ArrayList<>();
+            rules.add(tierRule(minPages, tierPrice));
+            rules.add(allDayDiscount(rate));
+            List<PriceConfig> configs = randomConfigs();
+            when(priceTable.current()).thenReturn(PriceSnapshot.of(run, "v" + run, configs, rules));
+            int pages = 1 + random.nextInt(100);
+            int copies = 1 + random.nextInt(5);
+
+            BigDecimal base = pages * copies >= minPages ? tierPrice
+                    : baselineUnit(configs, "BW", "SINGLE", "A4");
+            BigDecimal unit = base.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+            BigDecimal expected = unit.multiply(BigDecimal.valueOf(pages)).multiply(BigDecimal.valueOf(copies));
+
+            assertThat(service.calculatePrintPrice("BW", "A4", "SINGLE", pages, copies, null))
+                    .as("run=%d tier=%s from %d rate=%s pages=%d copies=%d", run, tierPrice, minPages, rate, pages, copies)
+                    .isEqualByComparingTo(expected);
+        }
+    }
+
+    /**
+     * 原计价：按配置键取单价，未配置或为0时使用默认单价，乘以页数和份数
+     */
+    private static BigDecimal baselineTotal(List<PriceConfig> configs, String color, String duplex, String size,
+                                            int pages, int copies) {
+        return baselineUnit(configs, color, duplex, size)
+                .multiply(BigDecimal.valueOf(pages))
+                .multiply(BigDecimal.valueOf(copies));
+    }
+
+    private static BigDecimal baselineUnit(List<PriceConfig> configs, String color, String duplex, String size) {
+        String key = String.format("print.%s.%s.%s", color.toLowerCase(), duplex.toLowerCase(), size.toLowerCase());
+        for (PriceConfig config : configs) {
+            if (config.getConfigKey().equals(key) && config.getPriceValue().compareTo(BigDecimal.ZERO) != 0) {
+                return config.getPriceValue();
+            }
+        }
+        return PriceSnapshot.defaultUnitPrice(color, duplex);
+    }
+
+    /**
+     * 每个打印组合随机缺省、配置为0或配置0.01~99.99元
+     */
+    private List<PriceConfig> randomConfigs() {
+        List<PriceConfig> configs = new ArrayList<>();
+        for (Order.ColorType c : Order.ColorType.values()) {
+            for (Order.Duplex d : Order.Duplex.values()) {
+                for (Order.PaperSize s : Order.PaperSize.values()) {
+                    int choice = random.nextInt(5);
+                    if (choice == 0) {
+                        continue;
+                    }
+                    PriceConfig config = new PriceConfig();
+                    config.setConfigKey(String.format("print.%s.%s.%s", c.name().toLowerCase(),
+                            d.name().toLowerCase(), s.name().toLowerCase()));
+                    config.setPriceValue(choice == 1 ? BigDecimal.ZERO : yuan(1 + random.nextInt(9999)));
+                    configs.add(config);
+                }
+            }
+        }
+        return configs;
+    }
+
+    private static PriceRule tierRule(int minPages, BigDecimal price) {
+        PriceRule rule = new PriceRule();
+        rule.setRuleType(PriceRule.RuleType.TIER.getCode());
+        rule.setMinPages(minPages);
+        rule.setPriceValue(price);
+        return rule;
+    }
+
+    /**
+     * 起止时间相同表示全天折扣
+     */
+    private static PriceRule allDayDiscount(BigDecimal rate) {
+        PriceRule rule = new PriceRule();
+        rule.setRuleType(PriceRule.RuleType.TIME_DISCOUNT.getCode());
+        rule.setDiscountRate(rate);
+        rule.setStartTime(LocalTime.MIDNIGHT);
+        rule.setEndTime(LocalTime.MIDNIGHT);
+        return rule;
+    }
+
+    private static BigDecimal yuan(long fen) {
+        return BigDecimal.valueOf(fen, 2);
+    }
+
+    private String pick(String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
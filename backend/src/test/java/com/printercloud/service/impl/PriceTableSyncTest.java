@@ -0,0 +1,176 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.entity.PriceConfig;
+import com.printercloud.repository.PriceConfigRepository;
+import com.printercloud.repository.PriceRuleRepository;
+import com.printercloud.repository.PriceVersionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 两个节点共用同一数据库、通过模拟的Redis发布/订阅同步价格表
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PriceTableSyncTest {
+
+    private static final String CHANNEL = "printercloud:price:invalidate";
+    private static final String KEY = PriceConfig.ConfigKey.BW_SINGLE_A4;
+
+    @Autowired
+    private PriceConfigRepository priceConfigRepository;
+    @Autowired
+    private PriceRuleRepository priceRuleRepository;
+    @Autowired
+    private PriceVersionRepository priceVersionRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager entityManager;
+
+    private final List<Node> nodes = new ArrayList<>();
+    private boolean dropMessages;
+
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() {
+        priceConfigRepository.deleteAll();
+        saveConfig(KEY, "A4黑白单面打印", "0.50");
+        // 另一条配置的更新时间更晚，被修改配置的更新时间回退后最大更新时间和总数都不变
+        saveConfig(PriceConfig.ConfigKey.COLOR_SINGLE_A4, "A4彩色单面打印", "1.50");
+        nodes.clear();
+        dropMessages = false;
+        nodeA = new Node("node-a");
+        nodeB = new Node("node-b");
+    }
+
+    @Test
+    void inPlaceEditFromLaggingClockReachesOtherNode() {
+        updatePrice(nodeA, "0.66", true);
+
+        assertThat(nodeA.table.current().price(KEY)).isEqualByComparingTo("0.66");
+        assertThat(nodeB.table.current().price(KEY)).isEqualByComparingTo("0.66");
+        assertThat(nodeB.table.current().getFingerprint()).isEqualTo(nodeA.table.current().getFingerprint());
+        assertThat(nodeA.meterRegistry.counter("price.table.reload", "source", "remote").count()).isZero();
+        assertThat(nodeB.meterRegistry.counter("price.table.reload", "source", "remote").count()).isEqualTo(1);
+    }
+
+    @Test
+    void missedBroadcastIsCaughtByPeriodicCheck() {
+        dropMessages = true;
+        updatePrice(nodeA, "0.70", true);
+        assertThat(nodeB.table.current().price(KEY)).isEqualByComparingTo("0.50");
+
+        nodeB.table.checkForChanges();
+
+        assertThat(nodeB.table.current().price(KEY)).isEqualByComparingTo("0.70");
+    }
+
+    @Test
+    void rolledBackEditKeepsVersion() {
+        Long before = priceVersionRepository.findCurrentVersion();
+        long snapshotVersion = nodeB.table.current().getVersion();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            PriceConfig config = priceConfigRepository.findByConfigKey(KEY).orElseThrow(IllegalStateException::new);
+            config.setPriceValue(new BigDecimal("0.99"));
+            priceConfigRepository.save(config);
+            nodeA.table.reloadAfterCommit();
+            status.setRollbackOnly();
+        });
+        nodeB.table.checkForChanges();
+
+        assertThat(priceVersionRepository.findCurrentVersion()).isEqualTo(before);
+        assertThat(nodeB.table.current().getVersion()).isEqualTo(snapshotVersion);
+        assertThat(nodeB.table.current().price(KEY)).isEqualByComparingTo("0.50");
+    }
+
+    private void saveConfig(String key, String name, String price) {
+        PriceConfig config = new PriceConfig();
+        config.setConfigKey(key);
+        config.setConfigName(name);
+        config.setCategory(PriceConfig.Category.PRINT.getCode());
+        config.setPriceValue(new BigDecimal(price));
+        priceConfigRepository.save(config);
+    }
+
+    /**
+     * 在事务内修改价格；laggingClock 时把更新时间改回过去，模拟时钟偏慢的节点
+     */
+    private void updatePrice(Node node, String price, boolean laggingClock) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            PriceConfig config = priceConfigRepository.findByConfigKey(KEY).orElseThrow(IllegalStateException::new);
+            config.setPriceValue(new BigDecimal(price));
+            priceConfigRepository.saveAndFlush(config);
+            if (laggingClock) {
+                entityManager.createQuery("UPDATE PriceConfig p SET p.updatedTime = :t WHERE p.configKey = :k")
+                        .setParameter("t", LocalDateTime.now().minusHours(1))
+                        .setParameter("k", KEY)
+                        .executeUpdate();
+            }
+            node.table.reloadAfterCommit();
+        });
+    }
+
+    /**
+     * 一个应用节点：价格表、Redis发布者与订阅者。模拟的Redis把消息投递给所有节点（包括发送者自己），
+     * 并把消息中的节点标识换成各节点的名称，以便在同一JVM内区分节点
+     */
+    private final class Node {
+        final String name;
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final PriceTableImpl table;
+        final RedisPriceChangeSubscriber subscriber;
+
+        Node(String name) {
+            this.name = name;
+            StringRedisTemplate redis = mock(StringRedisTemplate.class);
+            doAnswer(inv -> {
+                broadcast(this, inv.getArgument(1));
+                return null;
+            }).when(redis).convertAndSend(anyString(), anyString());
+            this.table = new PriceTableImpl(priceConfigRepository, priceRuleRepository, priceVersionRepository,
+                    new RedisPriceChangePublisher(redis, CHANNEL), meterRegistry);
+            this.table.init();
+            this.subscriber = new RedisPriceChangeSubscriber(mock(RedisMessageListenerContainer.class), table, CHANNEL);
+            nodes.add(this);
+        }
+    }
+
+    private void broadcast(Node sender, String body) {
+        if (dropMessages) {
+            return;
+        }
+        String fingerprint = body.substring(body.indexOf(' ') + 1);
+        for (Node node : nodes) {
+            // 发给自己的消息保留原节点标识，应被订阅者忽略
+            String nodeId = node == sender ? RedisPriceChangePublisher.NODE_ID : sender.name;
+            byte[] payload = (nodeId + " " + fingerprint).getBytes(StandardCharsets.UTF_8);
+            node.subscriber.onMessage(new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), payload), null);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.repository.FileInfoRepository;
+import com.printercloud.service.PdfArtifactCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 共享假脱机目录：启动时只清空本节点目录，其他节点的文件超过期限才删除
+ */
+class PrintSpoolerCleanupTest {
+
+    private static final File SPOOL = new File("uploads/spool");
+
+    private final List<File> created = new ArrayList<>();
+    private final List<PrintSpoolerImpl> spoolers = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (PrintSpoolerImpl spooler : spoolers) {
+            spooler.shutdown();
+            ((File) ReflectionTestUtils.getField(spooler, "spoolDir")).delete();
+        }
+        for (int i = created.size() - 1; i >= 0; i--) {
+            created.get(i).delete();
+        }
+        SPOOL.delete();
+        SPOOL.getParentFile().delete();
+    }
+
+    @Test
+    void startupKeepsOtherNodesRecentFiles() throws IOException {
+        File own = file("test-node-a", "own.pdf", 0);
+        File otherRecent = file("test-node-b", "printing.pdf", 1);
+        File otherStale = file("test-node-b", "crashed.pdf", 48);
+        File staleRun = file("run-test", "left.pdf", 48);
+
+        spooler("test-node-a").init();
+
+        assertThat(own).doesNotExist();
+        assertThat(otherRecent).exists();
+        assertThat(otherStale).doesNotExist();
+        assertThat(staleRun).doesNotExist();
+        assertThat(new File(SPOOL, "test-node-a")).isDirectory();
+    }
+
+    @Test
+    void runWithoutNodeIdLeavesExistingDirectoriesAlone() throws IOException {
+        File otherRecent = file("test-node-b", "printing.pdf", 0);
+
+        spooler("").init();
+
+        assertThat(otherRecent).exists();
+    }
+
+    private PrintSpoolerImpl spooler(String nodeId) {
+        PrintSpoolerImpl spooler = new PrintSpoolerImpl(mock(FileInfoRepository.class), mock(PdfArtifactCache.class),
+                new SimpleMeterRegistry(), 1, 16, 1, 1, 1, 1, 1, nodeId, 24);
+        spoolers.add(spooler);
+        return spooler;
+    }
+
+    private File file(String dir, String name, long ageHours) throws IOException {
+        File d = new File(SPOOL, dir);
+        if (d.mkdirs()) {
+            created.add(d);
+        }
+        File f = new File(d, name);
+        f.createNewFile();
+        f.setLastModified(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(ageHours));
+        created.add(f);
+        return f;
+    }
+}
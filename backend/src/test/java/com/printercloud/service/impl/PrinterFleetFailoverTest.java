@@ -0,0 +1,195 @@
+package com.printercloud.service.impl;
+
+import com.printercloud.dto.response.PrinterStatusResponse;
+import com.printercloud.entity.Order;
+import com.printercloud.entity.Printer;
+import com.printercloud.repository.OrderRepository;
+import com.printercloud.repository.PrinterRepository;
+import com.printercloud.service.PrintSpooler;
+import com.printercloud.service.PrinterDriver;
+import com.printercloud.service.RoutingPolicy;
+import com.printercloud.service.SpooledDocument;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 设备下线时排队作业改派到其他设备，作业本身不失败
+ */
+class PrinterFleetFailoverTest {
+
+    private final PrinterRepository printerRepository = mock(PrinterRepository.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final PrinterDriver printerDriver = mock(PrinterDriver.class);
+    private final PrintSpooler printSpooler = mock(PrintSpooler.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    /**
+     * 每次提交到驱动的打印，由测试决定何时完成
+     */
+    private final List<CompletableFuture<Void>> prints = new ArrayList<>();
+    private final List<Long> printedOn = new ArrayList<>();
+
+    private Printer primary;
+    private Printer backup;
+    private PrinterFleetImpl fleet;
+
+    @BeforeEach
+    void setUp() {
+        primary = printer(1L, "primary", 30);
+        backup = printer(2L, "backup", 30);
+        when(printerRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(primary, backup));
+        when(orderRepository.sumPrintingPagesByPrinter()).thenReturn(Collections.emptyList());
+        when(orderRepository.assignPrinter(any(), anyString(), any())).thenReturn(1);
+        when(printSpooler.spool(any())).thenAnswer(inv -> CompletableFuture.completedFuture(
+                new SpooledDocument(null, "pdf", 1, false)));
+        when(printerDriver.print(any(), any(), any())).thenAnswer(inv -> {
+            CompletableFuture<Void> print = new CompletableFuture<>();
+            synchronized (prints) {
+                prints.add(print);
+                printedOn.add(((Printer) inv.getArgument(0)).getId());
+            }
+            return print;
+        });
+        // 连续失败1次即下线
+        fleet = new PrinterFleetImpl(printerRepository, orderRepository, printerDriver, printSpooler, meterRegistry,
+                RoutingPolicy.FASTEST_FINISH, 1, 60000, 3, false, 3, 10, 2000);
+        fleet.reload();
+    }
+
+    @Test
+    void queuedJobsMoveToHealthyPrinterWhenDeviceGoesOffline() {
+        // 重新认领的订单保持原设备，三个作业都排在 primary
+        CompletableFuture<Void> first = fleet.submit(order(1L, primary.getId())).toCompletableFuture();
+        CompletableFuture<Void> second = fleet.submit(order(2L, primary.getId())).toCompletableFuture();
+        CompletableFuture<Void> third = fleet.submit(order(3L, primary.getId())).toCompletableFuture();
+        assertThat(printedOn).containsExactly(primary.getId());
+
+        prints.get(0).completeExceptionally(new IllegalStateException("卡纸"));
+
+        assertThat(first).isCompletedExceptionally();
+        assertThat(second).isNotDone();
+        assertThat(third).isNotDone();
+        assertThat(printedOn).containsExactly(primary.getId(), backup.getId());
+        verify(orderRepository).assignPrinter(eq(2L), anyString(), eq(backup.getId()));
+        verify(orderRepository).assignPrinter(eq(3L), anyString(), eq(backup.getId()));
+
+        prints.get(1).complete(null);
+        prints.get(2).complete(null);
+
+        assertThat(second).isCompleted().isNotCompletedExceptionally();
+        assertThat(third).isCompleted().isNotCompletedExceptionally();
+        assertThat(printedOn).containsExactly(primary.getId(), backup.getId(), backup.getId());
+        assertThat(meterRegistry.counter("print.fleet.failover").count()).isEqualTo(2);
+    }
+
+    @Test
+    void queuedJobsFailWhenNoOtherPrinterIsAvailable() {
+        backup.setStatus(0);
+        fleet.reload();
+        fleet.submit(order(1L, null));
+        CompletableFuture<Void> queued = fleet.submit(order(2L, null)).toCompletableFuture();
+
+        prints.get(0).completeExceptionally(new IllegalStateException("卡纸"));
+
+        assertThat(queued).isCompletedExceptionally();
+        assertThat(meterRegistry.counter("print.fleet.failover").count()).isZero();
+    }
+
+    @Test
+    void lostLeaseFailsJobWithoutPrinting() {
+        when(orderRepository.assignPrinter(eq(1L), anyString(), any())).thenReturn(0);
+
+        CompletableFuture<Void> result = fleet.submit(order(1L, null)).toCompletableFuture();
+
+        assertThat(result).isCompletedExceptionally();
+        assertThat(printedOn).isEmpty();
+        assertThat(fleet.status()).allSatisfy(s -> assertThat(s.getQueuedPages()).isZero());
+    }
+
+    @Test
+    void lostLeaseOnFailoverFailsJobAndReleasesDocument() {
+        when(orderRepository.assignPrinter(eq(2L), anyString(), eq(backup.getId()))).thenReturn(0);
+        fleet.submit(order(1L, primary.getId()));
+        CompletableFuture<Void> queued = fleet.submit(order(2L, primary.getId())).toCompletableFuture();
+
+        prints.get(0).completeExceptionally(new IllegalStateException("卡纸"));
+
+        assertThat(queued).isCompletedExceptionally();
+        assertThat(printedOn).containsExactly(primary.getId());
+        assertThat(fleet.status()).allSatisfy(s -> assertThat(s.getQueuedPages()).isZero());
+        assertThat(meterRegistry.counter("print.fleet.failover").count()).isZero();
+        // 第一个作业打印后释放一次，改派失败的作业释放预先准备的文档
+        verify(printSpooler, times(2)).release(any());
+    }
+
+    /**
+     * 合并打印后按合并文档的实际页数更新实测速度，而不是各订单页数之和
+     */
+    @Test
+    void batchSpeedUsesCombinedDocumentPages() throws InterruptedException {
+        when(printSpooler.combine(any(), any())).thenReturn(CompletableFuture.completedFuture(
+                new SpooledDocument(null, "pdf", 12, true)));
+        PrinterFleetImpl coalescing = new PrinterFleetImpl(printerRepository, orderRepository, printerDriver,
+                printSpooler, meterRegistry, RoutingPolicy.FASTEST_FINISH, 1, 60000, 3, true, 3, 2, 60000);
+        coalescing.reload();
+
+        coalescing.submit(order(1L, primary.getId()));
+        long start = System.nanoTime();
+        coalescing.submit(order(2L, primary.getId()));
+        assertThat(prints).hasSize(1);
+        Thread.sleep(200);
+        prints.get(0).complete(null);
+        double minutes = (System.nanoTime() - start) / 60e9;
+
+        // 两个订单共4页，合并文档12页：按4页计算不可能达到该下限
+        assertThat(coalescing.status().get(0).getPagesPerMinute()).isGreaterThanOrEqualTo(12 / minutes);
+        coalescing.shutdown();
+    }
+
+    @Test
+    void statusHasNoWaitEstimateWithoutSpeed() {
+        primary.setRatedPpm(0);
+        fleet.reload();
+
+        PrinterStatusResponse status = fleet.status().get(0);
+
+        assertThat(status.getPagesPerMinute()).isZero();
+        assertThat(status.getEstimatedWaitSeconds()).isNull();
+    }
+
+    private static Printer printer(Long id, String name, int ppm) {
+        Printer printer = new Printer();
+        printer.setId(id);
+        printer.setName(name);
+        printer.setRatedPpm(ppm);
+        printer.setPaperSizes("A4");
+        printer.setStatus(1);
+        return printer;
+    }
+
+    private static Order order(Long id, Long printerId) {
+        Order order = new Order();
+        order.setId(id);
+        order.setOrderNo("T" + id);
+        order.setPrinterId(printerId);
+        order.setLeaseToken("token");
+        order.setEstimatedPages(2);
+        return order;
+    }
+}